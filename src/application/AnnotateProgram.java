@@ -0,0 +1,47 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import chess.engine.SearchLimits;
+import chess.pgn.PgnAnnotator;
+
+/**
+ * This class annotates the games of a PGN file with the evaluations of the
+ * engine, from the command line. The first two arguments are the input and the
+ * output PGN files, followed by "--nodes n" (the nodes searched in each
+ * position, 100000 by default), "--movetime ms" (a fixed time per position
+ * instead of the nodes), "--threads n" (the number of games annotated at the
+ * same time, one per processor by default) and "--hash megabytes" (the size of
+ * the transposition table of each engine). If the program is interrupted, running
+ * it again with the same files resumes the annotation.
+ *
+ * @author Joo Victor
+ */
+public class AnnotateProgram {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2) {
+			System.out.println("Usage: AnnotateProgram input.pgn output.pgn [--nodes n | --movetime ms] [--threads n]"
+					+ " [--hash megabytes]");
+			return;
+		}
+		List<String> arguments = Arrays.asList(args);
+		PgnAnnotator annotator = new PgnAnnotator();
+		annotator.setHashMegabytes(Integer.parseInt(Arguments.value(arguments, "--hash", "16")));
+		annotator.setThreads(Integer.parseInt(
+				Arguments.value(arguments, "--threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+		String moveTime = Arguments.value(arguments, "--movetime", null);
+		annotator.setLimits(moveTime != null ? SearchLimits.moveTime(Long.parseLong(moveTime))
+				: SearchLimits.nodes(Long.parseLong(Arguments.value(arguments, "--nodes", "100000"))));
+		annotator.setLog(System.out);
+
+		int games = annotator.annotate(Paths.get(args[0]), Paths.get(args[1]));
+		System.out.println();
+		System.out.println(String.format(Locale.ROOT, "%d games, %d positions, %.0f positions/s with %d threads",
+				games, annotator.getPositions(), annotator.getPositionsPerSecond(), annotator.getThreads()));
+	}
+}
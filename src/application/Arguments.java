@@ -0,0 +1,28 @@
+package application;
+
+import java.util.List;
+
+/**
+ * This class reads the options of the command line of the programs of this
+ * package, given as a name followed by a value, such as "--threads 4", in any
+ * order after the positional arguments.
+ *
+ * @author Joo Victor
+ */
+final class Arguments {
+
+	private Arguments() {
+	}
+
+	/**
+	 * @param arguments    the arguments of the command line
+	 * @param name         the name of the option, such as "--threads"
+	 * @param defaultValue the value returned if the option wasn't given
+	 * @return the value that follows the name of an option, or the default value
+	 *         if the option wasn't given
+	 */
+	static String value(List<String> arguments, String name, String defaultValue) {
+		int index = arguments.indexOf(name);
+		return index < 0 || index + 1 >= arguments.size() ? defaultValue : arguments.get(index + 1);
+	}
+}
@@ -0,0 +1,21 @@
+package application;
+
+import chess.engine.Bench;
+
+/**
+ * This class runs the benchmark of the engine, {@link chess.engine.Bench},
+ * from the command line. The depth of the search can be passed as the first
+ * argument, {@value chess.engine.Bench#DEFAULT_DEPTH} by default. The total of
+ * nodes is the signature of the build, which must stay the same when the
+ * search and the move generation are not meant to change, and the nodes per
+ * second compare builds on the same computer.
+ *
+ * @author Joo Victor
+ */
+public class BenchProgram {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : Bench.DEFAULT_DEPTH;
+		Bench.run(depth, System.out);
+	}
+}
@@ -0,0 +1,179 @@
+package application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+
+/**
+ * This class draws the screens of the chess game on the terminal. Each screen
+ * (frame) is built in a text buffer that is reused from one frame to the next,
+ * and then written to the terminal with a single write, instead of one write
+ * for each piece. The renderer has two modes. In the full mode, every frame
+ * clears the screen and draws the whole board again. In the differential mode,
+ * the renderer remembers what was drawn on each square, and after the first
+ * frame only the squares whose piece or highlight changed are drawn again,
+ * using ANSI escape codes to move the cursor to them, which avoids the flicker
+ * of redrawing the whole screen over slow connections.
+ *
+ * @author Joo Victor
+ */
+public class BoardRenderer {
+
+	private static final String CLEAR_SCREEN = "\033[H\033[2J";
+	private static final String ERASE_BELOW = "\033[J";
+
+	private static final int WHITE = 1 << 16;
+	private static final int HIGHLIGHTED = 1 << 17;
+
+	private OutputStream out;
+	private boolean differential;
+
+	private StringBuilder buffer = new StringBuilder(2048);
+	private byte[] bytes = new byte[2048];
+	private int[] drawnCells = new int[0];
+	private int drawnRows;
+	private boolean drawn;
+
+	/**
+	 * creates a renderer that writes the frames to the output passed as a
+	 * parameter, usually the standard output of the program.
+	 *
+	 * @param out          terminal output
+	 * @param differential true to draw only the squares that changed
+	 */
+	public BoardRenderer(OutputStream out, boolean differential) {
+		this.out = out;
+		this.differential = differential;
+	}
+
+	public boolean isDifferential() {
+		return differential;
+	}
+
+	/**
+	 * forgets what was drawn on the screen, so the next frame will be drawn in
+	 * full. It must be called whenever something else may have written over the
+	 * board.
+	 */
+	public void invalidate() {
+		drawn = false;
+	}
+
+	/**
+	 * draws the frame of a chess match: the board, the captured pieces, the turn
+	 * and the state of the match, as printed by
+	 * {@link application.UI#printMatch(ChessMatch, List)}.
+	 *
+	 * @param chessMatch a chess match
+	 * @param captured   list of captured chess pieces
+	 */
+	public void renderMatch(ChessMatch chessMatch, List<ChessPiece> captured) {
+		startFrame(chessMatch.getPieces(), null);
+		UI.appendMatchStatus(buffer, chessMatch, captured);
+		writeFrame();
+	}
+
+	/**
+	 * draws the frame of the board with the possible movements of the movement's
+	 * source piece highlighted.
+	 *
+	 * @param piecesMatrix  chess pieces matrix
+	 * @param possibleMoves possible movements of a piece, or null
+	 */
+	public void renderBoard(ChessPiece[][] piecesMatrix, boolean[][] possibleMoves) {
+		startFrame(piecesMatrix, possibleMoves);
+		writeFrame();
+	}
+
+	/**
+	 * starts a new frame in the buffer with the board. In the full mode, or if
+	 * nothing was drawn yet, the screen is cleared and the whole board is
+	 * appended. In the differential mode, only the squares that changed since the
+	 * previous frame are appended, each one preceded by the escape code that moves
+	 * the cursor to it, and then the cursor is moved below the board and the rest
+	 * of the screen is erased. In both modes, the cursor ends at the first column
+	 * of the line below the column letters.
+	 */
+	private void startFrame(ChessPiece[][] piecesMatrix, boolean[][] possibleMoves) {
+		buffer.setLength(0);
+		int rows = piecesMatrix.length;
+		if (drawnCells.length != rows * rows) {
+			drawnCells = new int[rows * rows];
+			drawn = false;
+		}
+
+		if (!differential || !drawn) {
+			buffer.append(CLEAR_SCREEN);
+			UI.appendBoard(buffer, piecesMatrix, possibleMoves);
+			if (differential) {
+				for (int row = 0; row < rows; row++) {
+					for (int column = 0; column < rows; column++) {
+						drawnCells[row * rows + column] = cell(piecesMatrix, possibleMoves, row, column);
+					}
+				}
+				drawnRows = rows;
+				drawn = true;
+			}
+			return;
+		}
+
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < rows; column++) {
+				int cell = cell(piecesMatrix, possibleMoves, row, column);
+				if (cell != drawnCells[row * rows + column]) {
+					moveCursor(row + 1, 3 + 2 * column);
+					UI.appendPiece(buffer, piecesMatrix[row][column], (cell & HIGHLIGHTED) != 0);
+					drawnCells[row * rows + column] = cell;
+				}
+			}
+		}
+		moveCursor(drawnRows + 2, 1);
+		buffer.append(ERASE_BELOW);
+	}
+
+	/**
+	 * encodes what is drawn on a square in a single integer: the piece symbol, its
+	 * color and whether the square is highlighted.
+	 */
+	private static int cell(ChessPiece[][] piecesMatrix, boolean[][] possibleMoves, int row, int column) {
+		ChessPiece piece = piecesMatrix[row][column];
+		int cell = piece == null ? '-' : piece.toString().charAt(0);
+		if (piece != null && piece.getColor() == Color.WHITE) {
+			cell |= WHITE;
+		}
+		if (possibleMoves != null && possibleMoves[row][column]) {
+			cell |= HIGHLIGHTED;
+		}
+		return cell;
+	}
+
+	private void moveCursor(int line, int column) {
+		buffer.append("\033[").append(line).append(';').append(column).append('H');
+	}
+
+	/**
+	 * writes the buffer to the terminal with a single write. All the characters of
+	 * a frame are ASCII, so they are copied to a reusable byte array without going
+	 * through a charset encoder.
+	 */
+	private void writeFrame() {
+		int length = buffer.length();
+		if (bytes.length < length) {
+			bytes = new byte[Math.max(length, bytes.length * 2)];
+		}
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) buffer.charAt(i);
+		}
+		try {
+			out.write(bytes, 0, length);
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error writing to the terminal", e);
+		}
+	}
+}
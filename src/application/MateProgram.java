@@ -0,0 +1,48 @@
+package application;
+
+import java.util.Arrays;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.engine.MateResult;
+import chess.engine.MateSolver;
+import chess.engine.Move;
+import chess.pgn.San;
+
+/**
+ * This class answers a "mate in at most N moves" query from the command line,
+ * with the proof-number search of {@link chess.engine.MateSolver}. The first
+ * two arguments are the position in FEN, between quotes, and the largest
+ * number of moves of the mate, followed by "--movetime ms" (the longest time of
+ * the search, no limit by default) and "--capacity nodes" (the largest number
+ * of nodes of the tree kept in memory, 1048576 by default). The proven line is
+ * written in SAN, with the nodes expanded and the time of the search.
+ *
+ * @author Joo Victor
+ */
+public class MateProgram {
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Usage: MateProgram \"fen\" moves [--movetime ms] [--capacity nodes]");
+			return;
+		}
+		List<String> arguments = Arrays.asList(args);
+		MateSolver solver = new MateSolver();
+		solver.setMoveTimeMillis(Long.parseLong(Arguments.value(arguments, "--movetime", "0")));
+		solver.setCapacity(Integer.parseInt(Arguments.value(arguments, "--capacity", String.valueOf(1 << 20))));
+
+		ChessMatch chessMatch = Fen.read(args[0]);
+		MateResult result = solver.solve(chessMatch, Integer.parseInt(args[1]));
+		StringBuilder line = new StringBuilder();
+		for (int move : result.getLine()) {
+			line.append(San.format(chessMatch, Move.legalMove(chessMatch, move), (char) 0)).append(' ');
+			Move.perform(chessMatch, move);
+		}
+		System.out.println(result.getStatus().getDescription()
+				+ (result.getLine().length > 0 ? " in " + result.getMateIn() + ": " + line.toString().trim() : ""));
+		System.out.println("Nodes expanded: " + result.getNodes() + ", largest tree: " + result.getMaxTreeSize()
+				+ " nodes, time: " + result.getTimeMillis() + " ms");
+	}
+}
@@ -0,0 +1,61 @@
+package application;
+
+import boardgame.Board;
+import chess.ChessMatch;
+import chess.engine.Engine;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
+import chess.metrics.MetricsSnapshot;
+import chess.pieces.AttackTables;
+
+/**
+ * This class measures the cost of the counters of
+ * {@link chess.metrics.ChessMetrics}. It searches the initial position to a
+ * fixed depth several times and reports the nodes searched per second, along
+ * with the counters of the operations performed. Running it once as is and
+ * once with "-Dchess.metrics.disabled=true" gives the speed of the engine with
+ * and without the counters. In the same way, running it with
+ * "-Dboardgame.mailbox=true" compares the mailbox board with the attack tables.
+ * The first searches only warm up the JIT compiler
+ * and are not measured. The depth and the number of searches can be passed as
+ * the first and second arguments of the program.
+ *
+ * @author Joo Victor
+ */
+public class MetricsBenchmark {
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		int searches = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Engine engine = new Engine();
+		ChessMatch chessMatch = new ChessMatch();
+
+		for (int i = 0; i < 3; i++) {
+			engine.getTable().clear();
+			engine.search(chessMatch, SearchLimits.depth(depth));
+		}
+
+		MetricsSnapshot before = ChessMetrics.snapshot();
+		long nodes = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < searches; i++) {
+			engine.getTable().clear();
+			SearchResult result = engine.search(chessMatch, SearchLimits.depth(depth));
+			nodes += result.getNodes();
+		}
+		long nanos = System.nanoTime() - start;
+		MetricsSnapshot counted = ChessMetrics.snapshot().minus(before);
+
+		System.out.println("Counters enabled: " + ChessMetrics.ENABLED);
+		System.out.println("Mailbox board: " + Board.MAILBOX);
+		System.out.println("Attack tables generated in " + AttackTables.getGenerationNanos() / 1_000_000 + " ms");
+		System.out.println("Searches: " + searches + " to depth " + depth);
+		System.out.println("Nodes per second: " + (long) (nodes * 1e9 / nanos));
+		if (ChessMetrics.ENABLED) {
+			System.out.println("Counted nodes: " + counted.get(Counter.NODES) + " of " + nodes);
+			System.out.println(counted);
+		}
+	}
+}
@@ -1,17 +1,36 @@
 package application;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Scanner;
 
+import chess.ChessClock;
 import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.Color;
+import chess.engine.Engine;
+import chess.engine.Move;
+import chess.engine.Ponderer;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
 
 /**
- * This class is responsible for running the application.
+ * This class is responsible for running the application. If the program is
+ * started with the "--diff" argument, the screens are drawn in the differential
+ * mode of the {@link application.BoardRenderer}, which redraws only the squares
+ * that changed. If it is started with the "--bot white" or "--bot black"
+ * argument, the engine plays the pieces of that color, thinking for the number
+ * of milliseconds given by the "--movetime" argument (2000 by default). While
+ * the user is thinking, the engine ponders the reply it expects, unless the
+ * "--no-ponder" argument is given. The "--clock" argument, for example
+ * "--clock 300+2", plays the match with chess clocks of 300 seconds plus 2
+ * seconds per move, and the engine then manages its time from its clock. A
+ * player whose time runs out loses the match as soon as they complete their
+ * move.
  * @author Joo Victor
  */
 
@@ -22,22 +41,53 @@ public class Program {
 		Scanner sc = new Scanner(System.in);
 		ChessMatch chessMatch = new ChessMatch();
 		List<ChessPiece> captured = new ArrayList<>();
+		List<String> arguments = Arrays.asList(args);
+		BoardRenderer renderer = new BoardRenderer(System.out, arguments.contains("--diff"));
+		Color botColor = botColor(arguments);
+		long moveTime = moveTime(arguments);
+		boolean ponder = !arguments.contains("--no-ponder");
+		Ponderer ponderer = botColor == null ? null : new Ponderer(new Engine());
+		ChessClock clock = clock(arguments);
+		if (clock != null) {
+			clock.start(chessMatch.getCurrentPlayer());
+		}
 		
-		while(!chessMatch.getCheckMate()) {
+		while(!chessMatch.getResult().isOver()) {
 			try {
-				UI.clearScreen();
-				UI.printMatch(chessMatch, captured);
+				renderer.renderMatch(chessMatch, captured);
+				if (clock != null) {
+					System.out.println(clock);
+				}
+				if (chessMatch.getCurrentPlayer() == botColor) {
+					SearchLimits limits = clock != null ? SearchLimits.clock(clock) : SearchLimits.moveTime(moveTime);
+					SearchResult result = ponderer.search(chessMatch, limits);
+					if (testTimeForfeit(chessMatch, clock)) {
+						continue;
+					}
+					ChessPiece capturedPiece = chessMatch.performChessMove(Move.sourcePosition(result.getBestMove()),
+							Move.targetPosition(result.getBestMove()));
+					if(capturedPiece != null) {
+						captured.add(capturedPiece);
+					}
+					pressClock(chessMatch, clock);
+					if (ponder && !chessMatch.getResult().isOver()) {
+						ponderer.startPondering(chessMatch, result.getPonderMove());
+					}
+					continue;
+				}
 				System.out.println();
 				System.out.print("Source: ");
 				ChessPosition source = UI.readChessPosition(sc);
 				
 				boolean[][] possibleMoves = chessMatch.possibleMoves(source);
-				UI.clearScreen();
-				UI.printBoard(chessMatch.getPieces(), possibleMoves);
+				renderer.renderBoard(chessMatch.getPieces(), possibleMoves);
 				
 				System.out.println();
 				System.out.print("Target: ");
 				ChessPosition target = UI.readChessPosition(sc);
+				if (testTimeForfeit(chessMatch, clock)) {
+					continue;
+				}
 				
 				ChessPiece capturedPiece = chessMatch.performChessMove(source, target);
 				
@@ -54,6 +104,7 @@ public class Program {
 					}
 					chessMatch.replacePromotedPiece(type);
 				}
+				pressClock(chessMatch, clock);
 			}
 			catch(ChessException e) {
 				System.out.println(e.getMessage());
@@ -64,8 +115,72 @@ public class Program {
 				sc.nextLine();  // command used to make the program wait for the user to press enter
 			}
 		}
-		UI.clearScreen();
-		UI.printMatch(chessMatch, captured);
+		if (ponderer != null) {
+			ponderer.shutdown();
+		}
+		renderer.renderMatch(chessMatch, captured);
+	}
+
+	/**
+	 * ends the match if the current player has run out of time.
+	 * 
+	 * @return true if the current player lost on time
+	 */
+	private static boolean testTimeForfeit(ChessMatch chessMatch, ChessClock clock) {
+		if (clock != null && clock.isFlagged(chessMatch.getCurrentPlayer())) {
+			clock.stop();
+			chessMatch.loseOnTime();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * presses the clock after a move, or stops it if the move ended the match.
+	 */
+	private static void pressClock(ChessMatch chessMatch, ChessClock clock) {
+		if (clock == null) {
+			return;
+		}
+		if (chessMatch.getResult().isOver()) {
+			clock.stop();
+		} else {
+			clock.press();
+		}
+	}
+
+	/**
+	 * @return the chess clock given by the "--clock" argument, in the format
+	 *         "seconds+increment", or null if the match is played without clocks
+	 */
+	private static ChessClock clock(List<String> arguments) {
+		String value = Arguments.value(arguments, "--clock", null);
+		if (value == null) {
+			return null;
+		}
+		String[] timeControl = value.split("\\+");
+		long increment = timeControl.length > 1 ? Long.parseLong(timeControl[1]) : 0;
+		return new ChessClock(Long.parseLong(timeControl[0]) * 1000, increment * 1000);
+	}
+
+	/**
+	 * @return the color played by the engine, given by the "--bot" argument, or
+	 *         null if the engine doesn't play
+	 */
+	private static Color botColor(List<String> arguments) {
+		String value = Arguments.value(arguments, "--bot", null);
+		if (value == null) {
+			return null;
+		}
+		return value.equalsIgnoreCase("white") ? Color.WHITE : Color.BLACK;
+	}
+
+	/**
+	 * @return the thinking time of the engine in milliseconds, given by the
+	 *         "--movetime" argument
+	 */
+	private static long moveTime(List<String> arguments) {
+		return Long.parseLong(Arguments.value(arguments, "--movetime", "2000"));
 	}
 
 }
@@ -0,0 +1,84 @@
+package application;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+/**
+ * This class measures the throughput of the {@link application.BoardRenderer}
+ * in frames per second, in the full mode and in the differential mode. The
+ * frames of a short match are prepared beforehand, alternating the board with
+ * the possible moves of a piece highlighted and the board after the move, just
+ * like the screens shown by {@link application.Program}. Then the frames are
+ * drawn over and over to an output that only counts the bytes written, so the
+ * result measures the renderer and not the terminal. The number of frames can
+ * be passed as the first argument of the program.
+ *
+ * @author Joo Victor
+ */
+public class RendererBenchmark {
+
+	private static final String[] MOVES = { "e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6", "b5a4", "g8f6", "e1g1",
+			"f8e7" };
+
+	public static void main(String[] args) {
+		int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+		List<ChessPiece[][]> boards = new ArrayList<>();
+		List<boolean[][]> highlights = new ArrayList<>();
+		ChessMatch chessMatch = new ChessMatch();
+		for (String move : MOVES) {
+			ChessPosition source = new ChessPosition(move.charAt(0), move.charAt(1) - '0');
+			ChessPosition target = new ChessPosition(move.charAt(2), move.charAt(3) - '0');
+			boards.add(chessMatch.getPieces());
+			highlights.add(chessMatch.possibleMoves(source));
+			chessMatch.performChessMove(source, target);
+			boards.add(chessMatch.getPieces());
+			highlights.add(null);
+		}
+
+		for (boolean differential : new boolean[] { false, true }) {
+			CountingOutputStream out = new CountingOutputStream();
+			BoardRenderer renderer = new BoardRenderer(out, differential);
+			run(renderer, boards, highlights, frames / 10); // warm up
+			out.count = 0;
+
+			long start = System.nanoTime();
+			run(renderer, boards, highlights, frames);
+			long elapsed = System.nanoTime() - start;
+
+			System.out.printf("%-12s %,12.0f frames/s %8.1f bytes/frame%n", differential ? "differential" : "full",
+					frames * 1e9 / elapsed, (double) out.count / frames);
+		}
+	}
+
+	private static void run(BoardRenderer renderer, List<ChessPiece[][]> boards, List<boolean[][]> highlights,
+			int frames) {
+		for (int i = 0; i < frames; i++) {
+			int index = i % boards.size();
+			renderer.renderBoard(boards.get(index), highlights.get(index));
+		}
+	}
+
+	/**
+	 * an output that discards the bytes written, only counting them.
+	 */
+	private static class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import chess.engine.SearchLimits;
+import chess.tournament.EpdPosition;
+import chess.tournament.SuiteResult;
+import chess.tournament.SuiteRunner;
+
+/**
+ * This class runs an EPD test suite from the command line. The first two
+ * arguments are the EPD file with the positions, with their bm or am
+ * operations, and the file that receives the results, one tab separated line
+ * per position, followed by "--nodes n" (the nodes searched in each position,
+ * 1000000 by default), "--movetime ms" (a fixed time per position instead of
+ * the nodes), "--threads n" (the number of positions searched at the same
+ * time, 1 by default) and "--hash megabytes" (the size of the transposition
+ * table of each engine).
+ *
+ * @author Joo Victor
+ */
+public class SuiteProgram {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2) {
+			System.out.println("Usage: SuiteProgram suite.epd results.tsv [--nodes n | --movetime ms] [--threads n]"
+					+ " [--hash megabytes]");
+			return;
+		}
+		List<String> arguments = Arrays.asList(args);
+		SuiteRunner runner = new SuiteRunner();
+		runner.setHashMegabytes(Integer.parseInt(Arguments.value(arguments, "--hash", "16")));
+		runner.setThreads(Integer.parseInt(Arguments.value(arguments, "--threads", "1")));
+		String moveTime = Arguments.value(arguments, "--movetime", null);
+		runner.setLimits(moveTime != null ? SearchLimits.moveTime(Long.parseLong(moveTime))
+				: SearchLimits.nodes(Long.parseLong(Arguments.value(arguments, "--nodes", "1000000"))));
+		runner.setLog(System.out);
+
+		List<SuiteResult> results = runner.run(EpdPosition.load(Paths.get(args[0])));
+		SuiteRunner.write(results, Paths.get(args[1]));
+
+		int solved = 0;
+		long solutionTime = 0;
+		long solutionNodes = 0;
+		for (SuiteResult result : results) {
+			if (result.isSolved()) {
+				solved++;
+				solutionTime += result.getSolutionTimeMillis();
+				solutionNodes += result.getSolutionNodes();
+			}
+		}
+		System.out.println();
+		System.out.println(String.format(Locale.ROOT,
+				"%d/%d solved, mean time to solution %.0f ms, mean nodes to solution %.0f", solved, results.size(),
+				solved == 0 ? 0.0 : (double) solutionTime / solved, solved == 0 ? 0.0 : (double) solutionNodes / solved));
+	}
+}
@@ -0,0 +1,64 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import chess.engine.Engine;
+import chess.tournament.Tournament;
+import chess.tournament.TournamentStatistics;
+
+/**
+ * This class runs a self-play tournament of the engine from the command line.
+ * The arguments are "--openings file.epd" (the opening positions, the initial
+ * position by default), "--games n" (the maximum number of games), "--threads
+ * n" (the number of games played at the same time, one per processor by
+ * default), "--tc seconds+increment" (the time control, in seconds, for
+ * example "10+0.1"), "--nodes n" (a fixed number of nodes per move instead of
+ * the clocks), "--hash megabytes" (the size of the transposition table of each
+ * engine) and "--sprt elo0,elo1" (the hypotheses of the SPRT, or "off"). Both
+ * engines are the engine of this build, so the program measures the speed of
+ * the tournament and the noise of its results; to test a change, the candidate
+ * factory of {@link chess.tournament.Tournament} is given the changed engine.
+ *
+ * @author Joo Victor
+ */
+public class TournamentProgram {
+
+	public static void main(String[] args) throws IOException {
+		List<String> arguments = Arrays.asList(args);
+		int hash = Integer.parseInt(Arguments.value(arguments, "--hash", "4"));
+		Tournament tournament = new Tournament(() -> new Engine(hash), () -> new Engine(hash));
+
+		String openings = Arguments.value(arguments, "--openings", null);
+		if (openings != null) {
+			tournament.setOpenings(Tournament.loadOpenings(Paths.get(openings)));
+		}
+		tournament.setGames(Integer.parseInt(Arguments.value(arguments, "--games", "1000")));
+		tournament.setThreads(Integer.parseInt(
+				Arguments.value(arguments, "--threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+		String[] timeControl = Arguments.value(arguments, "--tc", "10+0.1").split("\\+");
+		tournament.setTimeControl(Math.round(Double.parseDouble(timeControl[0]) * 1000),
+				timeControl.length > 1 ? Math.round(Double.parseDouble(timeControl[1]) * 1000) : 0);
+		tournament.setNodesPerMove(Long.parseLong(Arguments.value(arguments, "--nodes", "0")));
+		String sprt = Arguments.value(arguments, "--sprt", "0,5");
+		if (sprt.equals("off")) {
+			tournament.disableSprt();
+		} else {
+			String[] elo = sprt.split(",");
+			tournament.setSprt(Double.parseDouble(elo[0]), Double.parseDouble(elo[1]), 0.05, 0.05);
+		}
+		tournament.setLog(System.out);
+
+		TournamentStatistics statistics = tournament.run();
+		System.out.println();
+		System.out.println(statistics);
+		System.out.println(String.format(Locale.ROOT, "LLR %.2f (%.2f, %.2f): %s", tournament.getLogLikelihoodRatio(),
+				TournamentStatistics.lowerBound(0.05, 0.05), TournamentStatistics.upperBound(0.05, 0.05),
+				tournament.getDecision().getDescription()));
+		System.out.println(String.format(Locale.ROOT, "%.0f games/hour with %d threads, %d losses on time",
+				tournament.getGamesPerHour(), tournament.getThreads(), tournament.getTimeForfeits()));
+	}
+}
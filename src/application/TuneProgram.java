@@ -0,0 +1,54 @@
+package application;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import chess.engine.Evaluator;
+import chess.tuning.LabelledPositions;
+import chess.tuning.TexelTuner;
+
+/**
+ * This class tunes the weights of the evaluation of the engine on a file of
+ * labelled positions, from the command line. The first two arguments are the
+ * EPD file with the positions and the file that receives the tuned material
+ * values and piece-square tables, followed by "--iterations n" (the steps of
+ * gradient descent, 500 by default), "--rate centipawns" (the largest change
+ * of a weight in one step, 1 by default) and "--threads n" (one per processor
+ * by default).
+ *
+ * @author Joo Victor
+ */
+public class TuneProgram {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2) {
+			System.out.println("Usage: TuneProgram positions.epd output.txt [--iterations n] [--rate centipawns]"
+					+ " [--threads n]");
+			return;
+		}
+		List<String> arguments = Arrays.asList(args);
+		TexelTuner tuner = new TexelTuner();
+		tuner.setIterations(Integer.parseInt(Arguments.value(arguments, "--iterations", "500")));
+		tuner.setLearningRate(Double.parseDouble(Arguments.value(arguments, "--rate", "1")));
+		tuner.setThreads(Integer.parseInt(
+				Arguments.value(arguments, "--threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+		tuner.setLog(System.out);
+
+		long start = System.nanoTime();
+		LabelledPositions positions = LabelledPositions.read(Paths.get(args[0]));
+		System.out.println(String.format(Locale.ROOT, "%d positions read in %.1f s", positions.size(),
+				(System.nanoTime() - start) / 1e9));
+
+		int[] initial = Evaluator.defaultParameters();
+		int[] tuned = tuner.tune(positions, initial);
+		System.out.println(String.format(Locale.ROOT, "Error %.6f -> %.6f, %.0f ms per pass with %d threads",
+				tuner.error(positions, initial), tuner.error(positions, tuned), tuner.getMillisPerPass(),
+				tuner.getThreads()));
+		Files.write(Paths.get(args[1]), TexelTuner.format(tuned).getBytes(StandardCharsets.ISO_8859_1));
+	}
+}
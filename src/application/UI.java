@@ -10,6 +10,7 @@ import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
 import chess.Color;
+import chess.GameResult;
 
 /**
  * The class UI is the user interface of the chess game and it has the purpose
@@ -51,16 +52,15 @@ public class UI {
 	}
 
 	/**
-	 * It will allow the program to read a chess position entered by the user
+	 * It will allow the program to read a chess position entered by the user. The
+	 * typed text is read by {@link chess.ChessPosition#parse(String)}, which looks
+	 * at its two characters and returns one of the shared chess positions
 	 * 
 	 * @return chess position entered by the user
 	 */
 	public static ChessPosition readChessPosition(Scanner sc) {
 		try {
-			String typedPosition = sc.nextLine();
-			char column = typedPosition.charAt(0);
-			int row = Integer.parseInt(typedPosition.substring(1));
-			return new ChessPosition(column, row);
+			return ChessPosition.parse(sc.nextLine());
 		} catch (RuntimeException e) {
 			throw new InputMismatchException("Error reading ChessPosition. Valid values are from a1 to h8.");
 		}
@@ -69,32 +69,25 @@ public class UI {
 	/**
 	 * It will print the board through the {@link #printBoard(ChessPiece[][])}
 	 * method, the indicator of the pieces captured through the
-	 * {@link #printCapturedPieces(List)} method and if there has not been a
-	 * checkmate (and this will be checked using
+	 * {@link #appendCapturedPieces(StringBuilder, List)} method and if there has
+	 * not been a checkmate (and this will be checked using
 	 * {@link chess.ChessMatch#getCheckMate()}) it will print respectively through
 	 * the {@link chess.ChessMatch#getTurn()} and
 	 * {@link chess.ChessMatch#getCheck()} methods, a message that will say which
 	 * player is the current turn and also warn if there is a check. If a checkmate
-	 * has occurred, it will print a congratulatory message to the winner.
+	 * has occurred, it will print a congratulatory message to the winner, and if
+	 * the match ended in a draw, it will print the reason of the draw returned by
+	 * the {@link chess.ChessMatch#getResult()} method. The whole text is built in
+	 * a buffer and written to the terminal at once.
 	 * 
 	 * @param chessMatch a chess match
 	 * @param captured   list of captured chess pieces
 	 */
 	public static void printMatch(ChessMatch chessMatch, List<ChessPiece> captured) {
-		printBoard(chessMatch.getPieces());
-		System.out.println();
-		printCapturedPieces(captured);
-		System.out.println();
-		System.out.println("Turn: " + chessMatch.getTurn());
-		if (!chessMatch.getCheckMate()) {
-			System.out.println("Waiting player: " + chessMatch.getCurrentPlayer());
-			if (chessMatch.getCheck()) {
-				System.out.println("CHECK!");
-			}
-		} else {
-			System.out.println("CHECKMATE!");
-			System.out.println("Winner: " + chessMatch.getCurrentPlayer());
-		}
+		StringBuilder buffer = new StringBuilder(1024);
+		appendBoard(buffer, chessMatch.getPieces(), null);
+		appendMatchStatus(buffer, chessMatch, captured);
+		System.out.print(buffer);
 	}
 
 	/**
@@ -104,14 +97,7 @@ public class UI {
 	 * @param piecesMatrix chess pieces matrix
 	 */
 	public static void printBoard(ChessPiece[][] piecesMatrix) {
-		for (int row = 0; row < piecesMatrix.length; row++) {
-			System.out.print((8 - row) + " ");
-			for (int column = 0; column < piecesMatrix.length; column++) {
-				printPiece(piecesMatrix[row][column], false);
-			}
-			System.out.println();
-		}
-		System.out.println("  a b c d e f g h");
+		printBoard(piecesMatrix, null);
 	}
 
 	/**
@@ -123,66 +109,117 @@ public class UI {
 	 * @param possibleMoves possible movements of a piece
 	 */
 	public static void printBoard(ChessPiece[][] piecesMatrix, boolean[][] possibleMoves) {
+		StringBuilder buffer = new StringBuilder(1024);
+		appendBoard(buffer, piecesMatrix, possibleMoves);
+		System.out.print(buffer);
+	}
+
+	/**
+	 * appends the matrix of chess pieces passed as method parameter to a text
+	 * buffer, one line per row of the board, followed by the line with the column
+	 * letters. If the possible movements matrix isn't null, the positions it marks
+	 * have their background painted.
+	 * 
+	 * @param buffer        text buffer
+	 * @param piecesMatrix  chess pieces matrix
+	 * @param possibleMoves possible movements of a piece, or null
+	 */
+	static void appendBoard(StringBuilder buffer, ChessPiece[][] piecesMatrix, boolean[][] possibleMoves) {
 		for (int row = 0; row < piecesMatrix.length; row++) {
-			System.out.print((8 - row) + " ");
+			buffer.append(8 - row).append(' ');
 			for (int column = 0; column < piecesMatrix.length; column++) {
-				printPiece(piecesMatrix[row][column], possibleMoves[row][column]);
+				appendPiece(buffer, piecesMatrix[row][column], possibleMoves != null && possibleMoves[row][column]);
 			}
-			System.out.println();
+			buffer.append(System.lineSeparator());
 		}
-		System.out.println("  a b c d e f g h");
+		buffer.append("  a b c d e f g h").append(System.lineSeparator());
 	}
 
 	/**
-	 * prints a chess piece. If a board position does not contain a chess piece
-	 * (that is, the piece is null), then a visual representation for that situation
-	 * is printed.
+	 * appends a chess piece to a text buffer. If a board position does not contain
+	 * a chess piece (that is, the piece is null), then a visual representation for
+	 * that situation is appended.
 	 * 
-	 * @param chessPiece chess piece
+	 * @param buffer     text buffer
+	 * @param piece      chess piece
 	 * @param background a boolean that if true will paint the background of a chess
 	 *                   position
 	 */
-	private static void printPiece(ChessPiece piece, boolean background) {
+	static void appendPiece(StringBuilder buffer, ChessPiece piece, boolean background) {
 		if (background) {
-			System.out.print(ANSI_RED_BACKGROUND);
+			buffer.append(ANSI_RED_BACKGROUND);
 		}
 		if (piece == null) {
-			System.out.print("-" + ANSI_RESET);
+			buffer.append('-').append(ANSI_RESET);
 		} else {
 			if (piece.getColor() == Color.WHITE) {
-				System.out.print(ANSI_WHITE + piece + ANSI_RESET);
+				buffer.append(ANSI_WHITE).append(piece).append(ANSI_RESET);
 			} else {
-				System.out.print(ANSI_YELLOW + piece + ANSI_RESET);
+				buffer.append(ANSI_YELLOW).append(piece).append(ANSI_RESET);
 			}
 		}
-		System.out.print(" ");
+		buffer.append(' ');
 	}
 
 	/**
-	 * Prints the black and white pieces that were captured in the game. For that,
-	 * this method receives as parameter the list of captured pieces of the game,
-	 * and then from this list, two new lists are created, the one of captured white
-	 * pieces and the one of captured black pieces. So these lists are printed when
-	 * they are converted to Strings by the {@link java.util.Arrays#toString()}
-	 * method
+	 * appends to a text buffer everything that is printed below the board by the
+	 * {@link #printMatch(ChessMatch, List)} method: the captured pieces, the turn
+	 * and the state of the match.
 	 * 
-	 * @param capturedPieces captured pieces list
+	 * @param buffer     text buffer
+	 * @param chessMatch a chess match
+	 * @param captured   list of captured chess pieces
 	 */
+	static void appendMatchStatus(StringBuilder buffer, ChessMatch chessMatch, List<ChessPiece> captured) {
+		String newLine = System.lineSeparator();
+		buffer.append(newLine);
+		appendCapturedPieces(buffer, captured);
+		buffer.append(newLine);
+		buffer.append("Turn: ").append(chessMatch.getTurn()).append(newLine);
+		if (!chessMatch.getResult().isOver()) {
+			buffer.append("Waiting player: ").append(chessMatch.getCurrentPlayer()).append(newLine);
+			if (chessMatch.getCheck()) {
+				buffer.append("CHECK!").append(newLine);
+			}
+		} else if (chessMatch.getCheckMate()) {
+			buffer.append("CHECKMATE!").append(newLine);
+			buffer.append("Winner: ").append(chessMatch.getCurrentPlayer()).append(newLine);
+		} else if (chessMatch.getResult() == GameResult.TIME_FORFEIT) {
+			buffer.append("TIME FORFEIT!").append(newLine);
+			buffer.append("Winner: ").append(chessMatch.getCurrentPlayer() == Color.WHITE ? Color.BLACK : Color.WHITE)
+					.append(newLine);
+		} else {
+			buffer.append("DRAW!").append(newLine);
+			buffer.append("Reason: ").append(chessMatch.getResult().getDescription()).append(newLine);
+		}
+	}
 
-	private static void printCapturedPieces(List<ChessPiece> capturedPieces) {
+	/**
+	 * Appends the black and white pieces that were captured in the game to a text
+	 * buffer. For that, this method receives as parameter the list of captured
+	 * pieces of the game, and then from this list, two new lists are created, the
+	 * one of captured white pieces and the one of captured black pieces. So these
+	 * lists are appended when they are converted to Strings by the
+	 * {@link java.util.Arrays#toString(Object[])} method
+	 * 
+	 * @param buffer         text buffer
+	 * @param capturedPieces captured pieces list
+	 */
+	private static void appendCapturedPieces(StringBuilder buffer, List<ChessPiece> capturedPieces) {
 		List<ChessPiece> whitePieces = capturedPieces.stream().filter(x -> x.getColor() == Color.WHITE)
 				.collect(Collectors.toList());
 		List<ChessPiece> blackPieces = capturedPieces.stream().filter(x -> x.getColor() == Color.BLACK)
 				.collect(Collectors.toList());
 
-		System.out.println("Captured pieces:");
-		System.out.print("White:");
-		System.out.print(ANSI_WHITE);
-		System.out.println(Arrays.toString(whitePieces.toArray())); // will print the white pieces list
-		System.out.print(ANSI_RESET);
-		System.out.print("Black:");
-		System.out.print(ANSI_YELLOW);
-		System.out.println(Arrays.toString(blackPieces.toArray())); // will print the black pieces list
-		System.out.print(ANSI_RESET);
+		String newLine = System.lineSeparator();
+		buffer.append("Captured pieces:").append(newLine);
+		buffer.append("White:");
+		buffer.append(ANSI_WHITE);
+		buffer.append(Arrays.toString(whitePieces.toArray())).append(newLine); // the white pieces list
+		buffer.append(ANSI_RESET);
+		buffer.append("Black:");
+		buffer.append(ANSI_YELLOW);
+		buffer.append(Arrays.toString(blackPieces.toArray())).append(newLine); // the black pieces list
+		buffer.append(ANSI_RESET);
 	}
 }
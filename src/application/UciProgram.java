@@ -0,0 +1,427 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.PieceType;
+import chess.engine.Bench;
+import chess.engine.Engine;
+import chess.engine.Move;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.metrics.ChessMetrics;
+
+/**
+ * This class is the second entry point of the application: instead of the
+ * interactive game of {@link application.Program}, it runs the engine behind
+ * the UCI (Universal Chess Interface) protocol, reading commands from the
+ * standard input and writing answers to the standard output, so that the
+ * engine can play in the tournament managers and graphical interfaces that
+ * speak this protocol. The supported commands are "uci", "isready",
+ * "ucinewgame", "setoption" (with the options Hash and Threads), "position
+ * startpos moves ...", "go" (with wtime, btime, winc, binc, movestogo, depth,
+ * nodes, movetime, infinite and ponder), "ponderhit", "stop" and "quit",
+ * besides "bench [depth]", which runs the benchmark of {@link chess.engine.Bench}.
+ * <p>
+ * The search runs in its own thread, so "stop" can be read while it runs. The
+ * position isn't rebuilt from the initial position for each "position"
+ * command: the interfaces send the whole game every time, but usually only one
+ * or two moves were added since the previous command, so the moves the two
+ * commands have in common are kept, the other moves of the previous command
+ * are undone, and only the new moves are performed. The counters of
+ * {@link chess.metrics.ChessMetrics} are registered in JMX, so they can be
+ * watched while the engine plays.
+ *
+ * @author Joo Victor
+ */
+public class UciProgram {
+
+	private static final String PROMOTION_SYMBOLS = "qrbn";
+	private static final String PROMOTION_TYPES = "QRBH";
+
+	private PrintStream out;
+	private ParallelSearch search = new ParallelSearch(1, 16);
+	private ChessMatch chessMatch = new ChessMatch();
+	private List<String> performedMoves = new ArrayList<>();
+
+	private Thread searchThread;
+	private volatile boolean waitingForStop;
+	private volatile boolean searchReturned;
+	private SearchLimits ponderLimits;
+
+	public UciProgram(PrintStream out) {
+		this.out = out;
+	}
+
+	public static void main(String[] args) throws IOException {
+		ChessMetrics.registerMBean();
+		UciProgram program = new UciProgram(System.out);
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (!program.execute(line.trim())) {
+				break;
+			}
+		}
+		program.stopSearch();
+		program.search.shutdown();
+	}
+
+	/**
+	 * executes a command of the protocol. The unknown commands are ignored, as
+	 * the protocol demands.
+	 *
+	 * @param command a command line
+	 * @return false if the command was "quit"
+	 */
+	public boolean execute(String command) {
+		String[] tokens = command.split("\\s+");
+		switch (tokens[0]) {
+		case "uci":
+			send("id name chess-game");
+			send("id author Joao Victor");
+			send("option name Hash type spin default 16 min 1 max 1024");
+			send("option name Threads type spin default 1 min 1 max 64");
+			send("option name Ponder type check default true");
+			send("uciok");
+			break;
+		case "isready":
+			send("readyok");
+			break;
+		case "ucinewgame":
+			stopSearch();
+			search.clearHash();
+			chessMatch = new ChessMatch();
+			performedMoves.clear();
+			break;
+		case "setoption":
+			stopSearch();
+			setOption(tokens);
+			break;
+		case "position":
+			stopSearch();
+			setPosition(tokens);
+			break;
+		case "go":
+			stopSearch();
+			try {
+				go(tokens);
+			} catch (NumberFormatException e) {
+				send("info string invalid go command: " + command);
+			}
+			break;
+		case "ponderhit":
+			if (ponderLimits != null) {
+				ponderHit(ponderLimits);
+				ponderLimits = null;
+				releaseBestMove();
+			}
+			break;
+		case "stop":
+			stopSearch();
+			break;
+		case "bench":
+			stopSearch();
+			try {
+				Bench.run(tokens.length > 1 ? Integer.parseInt(tokens[1]) : Bench.DEFAULT_DEPTH, out);
+			} catch (NumberFormatException e) {
+				send("info string invalid depth: " + command);
+			}
+			break;
+		case "quit":
+			return false;
+		default:
+			break;
+		}
+		return true;
+	}
+
+	/**
+	 * executes "setoption name [name] value [value]".
+	 */
+	private void setOption(String[] tokens) {
+		String name = value(tokens, "name");
+		String value = value(tokens, "value");
+		if (name == null || value == null) {
+			return;
+		}
+		try {
+			if (name.equalsIgnoreCase("Hash")) {
+				search.setHashSize(Math.max(1, Math.min(Integer.parseInt(value), 1024)));
+			} else if (name.equalsIgnoreCase("Threads")) {
+				search.setThreads(Math.max(1, Math.min(Integer.parseInt(value), 64)));
+			}
+		} catch (NumberFormatException e) {
+			send("info string invalid value for " + name + ": " + value);
+		}
+	}
+
+	/**
+	 * executes "position startpos moves ...". The moves in common with the
+	 * previous position command are kept, the remaining previous moves are undone
+	 * and the new moves are performed. If the previous moves can't all be undone,
+	 * because the history of the match is limited, the match is restarted.
+	 */
+	private void setPosition(String[] tokens) {
+		if (tokens.length < 2 || !tokens[1].equals("startpos")) {
+			send("info string only startpos positions are supported");
+			return;
+		}
+		List<String> moves = new ArrayList<>();
+		for (int i = 2; i < tokens.length; i++) {
+			if (!tokens[i].equals("moves")) {
+				moves.add(tokens[i]);
+			}
+		}
+
+		int common = 0;
+		while (common < moves.size() && common < performedMoves.size()
+				&& moves.get(common).equals(performedMoves.get(common))) {
+			common++;
+		}
+		while (performedMoves.size() > common && chessMatch.canUndo()) {
+			chessMatch.undo();
+			performedMoves.remove(performedMoves.size() - 1);
+		}
+		if (performedMoves.size() > common) {
+			chessMatch = new ChessMatch();
+			performedMoves.clear();
+			common = 0;
+		}
+
+		for (int i = common; i < moves.size(); i++) {
+			String move = moves.get(i);
+			try {
+				performMove(move);
+				performedMoves.add(move);
+			} catch (ChessException e) {
+				send("info string illegal move " + move + ": " + e.getMessage());
+				return;
+			}
+		}
+	}
+
+	/**
+	 * performs a move in UCI notation, such as "e2e4" or "e7e8q" for a promotion.
+	 */
+	private void performMove(String text) {
+		int move = Move.parse(text);
+		chessMatch.performChessMove(Move.sourcePosition(move), Move.targetPosition(move));
+		if (chessMatch.getPromoted() != null && text.length() > 4) {
+			int index = PROMOTION_SYMBOLS.indexOf(Character.toLowerCase(text.charAt(4)));
+			if (index > 0) {
+				chessMatch.replacePromotedPiece(PROMOTION_TYPES.substring(index, index + 1));
+			}
+		}
+	}
+
+	/**
+	 * executes "go" with its limits. The search runs in a new thread, which sends
+	 * the info lines of each iteration and, at the end, the best move. In the
+	 * infinite and ponder modes, the best move is only sent after "stop" or
+	 * "ponderhit", even if the search ends before.
+	 */
+	private void go(String[] tokens) {
+		SearchLimits limits = new SearchLimits();
+		boolean infinite = false;
+		boolean ponder = false;
+		for (int i = 1; i < tokens.length; i++) {
+			String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+			switch (tokens[i]) {
+			case "wtime":
+				limits.setWhiteTimeMillis(Math.max(0, Long.parseLong(value)));
+				break;
+			case "btime":
+				limits.setBlackTimeMillis(Math.max(0, Long.parseLong(value)));
+				break;
+			case "winc":
+				limits.setWhiteIncrementMillis(Long.parseLong(value));
+				break;
+			case "binc":
+				limits.setBlackIncrementMillis(Long.parseLong(value));
+				break;
+			case "movestogo":
+				limits.setMovesToGo(Integer.parseInt(value));
+				break;
+			case "depth":
+				limits.setDepth(Integer.parseInt(value));
+				break;
+			case "nodes":
+				limits.setNodes(Long.parseLong(value));
+				break;
+			case "movetime":
+				limits.setMoveTimeMillis(Long.parseLong(value));
+				break;
+			case "infinite":
+				infinite = true;
+				break;
+			case "ponder":
+				ponder = true;
+				break;
+			default:
+				break;
+			}
+		}
+
+		ponderLimits = ponder ? limits : null;
+		SearchLimits searchLimits = ponder ? SearchLimits.depth(limits.getDepth()) : limits;
+		waitingForStop = infinite || ponder;
+		searchReturned = false;
+		ChessMatch position = chessMatch;
+		searchThread = new Thread(() -> runSearch(position, searchLimits), "search");
+		searchThread.start();
+	}
+
+	private void runSearch(ChessMatch position, SearchLimits limits) {
+		SearchResult result = search.search(position, limits, iteration -> sendInfo(position, iteration));
+		searchReturned = true;
+		synchronized (this) {
+			while (waitingForStop) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		int bestMove = result.getBestMove();
+		if (bestMove == Move.NONE) {
+			send("bestmove 0000");
+		} else if (result.getPonderMove() == Move.NONE) {
+			send("bestmove " + uciMove(position, bestMove));
+		} else {
+			send("bestmove " + uciMove(position, bestMove) + " ponder "
+					+ uciReply(position, bestMove, result.getPonderMove()));
+		}
+	}
+
+	/**
+	 * sends the info line of a completed iteration. The nodes are counted over all
+	 * the threads, and the moves of the principal variation are written with the
+	 * promotion suffix, as the best move is.
+	 */
+	private void sendInfo(ChessMatch position, SearchResult result) {
+		long nodes = search.getNodes();
+		long time = Math.max(1, result.getTimeMillis());
+		int score = result.getScore();
+		String scoreText;
+		if (result.isMateScore()) {
+			int movesToMate = (Engine.MATE - Math.abs(score) + 1) / 2;
+			scoreText = "mate " + (score > 0 ? movesToMate : -movesToMate);
+		} else {
+			scoreText = "cp " + score;
+		}
+		StringBuilder line = new StringBuilder(128);
+		line.append("info depth ").append(result.getDepth()).append(" score ").append(scoreText).append(" nodes ")
+				.append(nodes).append(" nps ").append(nodes * 1000 / time).append(" time ")
+				.append(result.getTimeMillis()).append(" hashfull ").append(search.getTable().hashfull())
+				.append(" pv ").append(uciMove(position, result.getBestMove()));
+		if (result.getPonderMove() != Move.NONE) {
+			line.append(' ').append(uciReply(position, result.getBestMove(), result.getPonderMove()));
+		}
+		send(line.toString());
+	}
+
+	/**
+	 * stops the search in progress, if any, and waits until its best move is
+	 * sent.
+	 */
+	private void stopSearch() {
+		if (searchThread == null) {
+			return;
+		}
+		releaseBestMove();
+		try {
+			while (searchThread.isAlive()) {
+				if (!searchReturned) {
+					search.stop();
+				}
+				searchThread.join(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		searchThread = null;
+		ponderLimits = null;
+	}
+
+	/**
+	 * gives the time limits of the game to the ponder search. The engine sets its
+	 * own limits when its search starts, so the limits of the ponder hit are only
+	 * given after that, unless the search already returned.
+	 */
+	private void ponderHit(SearchLimits limits) {
+		long now = System.nanoTime();
+		while (!search.getMainEngine().isSearching() && !searchReturned) {
+			Thread.onSpinWait();
+		}
+		if (!searchReturned) {
+			search.ponderHit(limits, now);
+		}
+	}
+
+	private synchronized void releaseBestMove() {
+		waitingForStop = false;
+		notifyAll();
+	}
+
+	/**
+	 * writes a move in UCI notation. The engine always promotes to a queen, so the
+	 * moves of a pawn to the last row get the "q" suffix.
+	 */
+	private static String uciMove(ChessMatch position, int move) {
+		ChessPiece piece = position.getPieces()[Move.source(move) / 8][Move.source(move) % 8];
+		int targetRow = Move.target(move) / 8;
+		boolean promotion = piece != null && piece.getType() == PieceType.PAWN && (targetRow == 0 || targetRow == 7);
+		return Move.toString(move) + (promotion ? "q" : "");
+	}
+
+	/**
+	 * writes in UCI notation the reply to a move, such as the ponder move, which
+	 * is a move of the position reached after that move. The move is performed on
+	 * a copy of the position, to find whether the reply is a promotion.
+	 */
+	private static String uciReply(ChessMatch position, int move, int reply) {
+		ChessMatch next = position.copy();
+		if (!Move.perform(next, move)) {
+			return Move.toString(reply);
+		}
+		return uciMove(next, reply);
+	}
+
+	/**
+	 * returns the words between the keyword passed as a parameter and the next
+	 * keyword of a setoption command.
+	 */
+	private static String value(String[] tokens, String keyword) {
+		StringBuilder value = null;
+		for (int i = 1; i < tokens.length; i++) {
+			if (value == null) {
+				if (tokens[i].equals(keyword)) {
+					value = new StringBuilder();
+				}
+			} else if (tokens[i].equals("name") || tokens[i].equals("value")) {
+				break;
+			} else {
+				value.append(value.length() == 0 ? "" : " ").append(tokens[i]);
+			}
+		}
+		return value == null || value.length() == 0 ? null : value.toString();
+	}
+
+	private void send(String line) {
+		synchronized (out) {
+			out.println(line);
+			out.flush();
+		}
+	}
+}
@@ -4,15 +4,33 @@ package boardgame;
  * This class represents the board of a chess game. That's why it has a number
  * of rows and columns, and it's also associated with multiple pieces that are
  * arranged in a matrix form on the board. We have that the matrix of pieces,
- * consists of the regions of the board, where the pieces are placed
+ * consists of the regions of the board, where the pieces are placed. Besides
+ * the matrix, the board keeps the occupied positions as the bits of a long (the
+ * occupancy bitboard), where the position of a row and a column is the bit
+ * number row times the number of columns plus column, so that the pieces that
+ * slide along lines can find the pieces in their way with a few bit
+ * operations. The occupancy is only kept for boards of up to 64 positions,
+ * such as the chessboard. Optionally, the board also keeps the codes of its
+ * pieces in a {@link boardgame.Mailbox}, a flat array with a border of
+ * sentinel cells, which the pieces can walk without testing whether the
+ * positions exist. The mailbox is enabled for all the boards by starting the
+ * program with the system property "boardgame.mailbox" set to true, so both
+ * representations can be compared by the same benchmark
  * 
  * @author Joo Victor
  */
 public class Board {
 
+	/**
+	 * true if the boards keep a mailbox of their pieces
+	 */
+	public static final boolean MAILBOX = Boolean.getBoolean("boardgame.mailbox");
+
 	private int rows;
 	private int columns;
 	private Piece[][] pieces;
+	private long occupancy;
+	private Mailbox mailbox;
 
 	/**
 	 * Create a board that has a number of rows, a number of columns and finally an
@@ -26,12 +44,27 @@ public class Board {
 	 * @param columns number of columns
 	 */
 	public Board(int rows, int columns) {
+		this(rows, columns, MAILBOX);
+	}
+
+	/**
+	 * Creates a board as the {@link #Board(int, int)} constructor does, choosing
+	 * whether the board also keeps a mailbox of its pieces.
+	 * 
+	 * @param rows    number of rows
+	 * @param columns number of columns
+	 * @param mailbox true if the board keeps a mailbox of its pieces
+	 */
+	public Board(int rows, int columns, boolean mailbox) {
 		if (rows < 1 || columns < 1) {
 			throw new BoardException("Error creating board: there must be at least 1 row and 1 column");
 		}
 		this.rows = rows;
 		this.columns = columns;
 		pieces = new Piece[rows][columns];
+		if (mailbox) {
+			this.mailbox = new Mailbox(rows, columns);
+		}
 	}
 
 	public int getRows() {
@@ -42,6 +75,22 @@ public class Board {
 		return columns;
 	}
 
+	/**
+	 * @return the mailbox of the pieces of the board, or null if the board doesn't
+	 *         keep one
+	 */
+	public Mailbox getMailbox() {
+		return mailbox;
+	}
+
+	/**
+	 * @return the occupancy bitboard of the board, where the bit row * columns +
+	 *         column is set if there is a piece on that position
+	 */
+	public long getOccupancy() {
+		return occupancy;
+	}
+
 	/**
 	 * This method returns a piece belonging to the piece matrix associated with the
 	 * board given a row and a column of the board. Using the
@@ -97,6 +146,10 @@ public class Board {
 		}
 		pieces[position.getRow()][position.getColumn()] = piece;
 		piece.position = position;
+		occupancy |= bit(position);
+		if (mailbox != null) {
+			mailbox.set(position.getRow(), position.getColumn(), piece.getCode());
+		}
 	}
 
 	/**
@@ -124,9 +177,22 @@ public class Board {
 		Piece removedPiece = piece(position);
 		removedPiece.position = null;
 		pieces[position.getRow()][position.getColumn()] = null;
+		occupancy &= ~bit(position);
+		if (mailbox != null) {
+			mailbox.set(position.getRow(), position.getColumn(), Mailbox.EMPTY);
+		}
 		return removedPiece;
 	}
 
+	/**
+	 * the bit of a position in the occupancy bitboard, or no bit if the board has
+	 * more than 64 positions
+	 */
+	private long bit(Position position) {
+		int index = position.getRow() * columns + position.getColumn();
+		return index < 64 ? 1L << index : 0L;
+	}
+
 	/**
 	 * check if a certain position exists on the board or not given a row and a
 	 * column
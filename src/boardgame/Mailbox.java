@@ -0,0 +1,105 @@
+package boardgame;
+
+/**
+ * This class is a second representation of the pieces of a board, kept by the
+ * {@link boardgame.Board} next to its matrix of pieces when it's enabled: a
+ * flat array of bytes (a mailbox), with one byte per position holding the code
+ * of the piece on it (see {@link boardgame.Piece#getCode()}), or
+ * {@link #EMPTY}. The positions of the board are surrounded by a border of
+ * sentinel cells, {@link #OFF_BOARD}: one column on each side and two rows
+ * above and below, which for the 8x8 chessboard gives the classic 10x12 board.
+ * A piece that walks a line or jumps by an offset always lands on a cell of the
+ * array, and the sentinel cells stop it, so the walk needs no test of whether
+ * the position exists. Two rows are needed above and below for the knight,
+ * which jumps two rows; a jump of two columns past a side lands on the border
+ * column of the neighbouring row, so one column on each side is enough.
+ * <p>
+ * A cell is found by its index, row offsets are multiples of the width of the
+ * mailbox, and column offsets are units, so the offset of a move is computed
+ * once by {@link #offset(int, int)} and then added to the index.
+ * 
+ * @author Joo Victor
+ */
+public final class Mailbox {
+
+	/**
+	 * code of an empty cell
+	 */
+	public static final byte EMPTY = 0;
+
+	/**
+	 * code of a sentinel cell, outside the board
+	 */
+	public static final byte OFF_BOARD = -1;
+
+	private final int width;
+	private final byte[] cells;
+
+	/**
+	 * creates an empty mailbox for a board with the number of rows and columns
+	 * passed as parameters, surrounded by sentinel cells.
+	 * 
+	 * @param rows    number of rows of the board
+	 * @param columns number of columns of the board
+	 */
+	Mailbox(int rows, int columns) {
+		width = columns + 2;
+		cells = new byte[(rows + 4) * width];
+		for (int index = 0; index < cells.length; index++) {
+			int row = index / width - 2;
+			int column = index % width - 1;
+			cells[index] = row >= 0 && row < rows && column >= 0 && column < columns ? EMPTY : OFF_BOARD;
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @param row    a row of the board
+	 * @param column a column of the board
+	 * @return the index of the cell of the position
+	 */
+	public int index(int row, int column) {
+		return (row + 2) * width + column + 1;
+	}
+
+	/**
+	 * @param index index of a cell
+	 * @return the row of the board of the cell
+	 */
+	public int row(int index) {
+		return index / width - 2;
+	}
+
+	/**
+	 * @param index index of a cell
+	 * @return the column of the board of the cell
+	 */
+	public int column(int index) {
+		return index % width - 1;
+	}
+
+	/**
+	 * @param rowStep    number of rows of a move
+	 * @param columnStep number of columns of a move
+	 * @return the offset of the move between the indexes of the cells
+	 */
+	public int offset(int rowStep, int columnStep) {
+		return rowStep * width + columnStep;
+	}
+
+	/**
+	 * @param index index of a cell
+	 * @return the code of the piece on the cell, {@link #EMPTY} or
+	 *         {@link #OFF_BOARD}
+	 */
+	public byte get(int index) {
+		return cells[index];
+	}
+
+	void set(int row, int column, byte code) {
+		cells[index(row, column)] = code;
+	}
+}
@@ -28,6 +28,18 @@ public abstract class Piece {
 		return board;
 	}
 
+	/**
+	 * returns the code of the piece in the {@link boardgame.Mailbox} of the board,
+	 * a positive byte that tells the types of pieces apart. A generic piece has
+	 * code 1; the types of pieces of a game override this method with their own
+	 * codes.
+	 * 
+	 * @return the code of the piece
+	 */
+	public byte getCode() {
+		return 1;
+	}
+
 	/**
 	 * determines the possible movements of a piece which will consist of an array
 	 * of boolean values, where each boolean value will contain a possible move. In
@@ -2,14 +2,26 @@ package boardgame;
 
 /**
  * this is an auxiliary class, responsible for representing the position of a
- * piece on the board.
+ * piece on the board. A position is immutable, so the same instance can be
+ * shared by any number of pieces and moves. The 64 positions of an 8x8 board
+ * are created once and returned by the {@link #of(int, int)} method, so moving
+ * the pieces around the chessboard doesn't allocate any position.
  * 
  * @author Joo Victor
  */
 public class Position {
 
-	private int row;
-	private int column;
+	private static final int CACHED_SIZE = 8;
+	private static final Position[] CACHE = new Position[CACHED_SIZE * CACHED_SIZE];
+
+	static {
+		for (int i = 0; i < CACHE.length; i++) {
+			CACHE[i] = new Position(i / CACHED_SIZE, i % CACHED_SIZE);
+		}
+	}
+
+	private final int row;
+	private final int column;
 
 	/**
 	 * generates a position that contains a row and a column (the representation of
@@ -23,31 +35,45 @@ public class Position {
 		this.column = column;
 	}
 
-	public int getRow() {
-		return row;
+	/**
+	 * returns the position of a row and a column. The positions of the first 8
+	 * rows and columns are shared instances created once, and the others are
+	 * created on demand.
+	 * 
+	 * @param row    position row
+	 * @param column position column
+	 * @return the position
+	 */
+	public static Position of(int row, int column) {
+		if (row >= 0 && row < CACHED_SIZE && column >= 0 && column < CACHED_SIZE) {
+			return CACHE[row * CACHED_SIZE + column];
+		}
+		return new Position(row, column);
 	}
 
-	public void setRow(int row) {
-		this.row = row;
+	public int getRow() {
+		return row;
 	}
 
 	public int getColumn() {
 		return column;
 	}
 
-	public void setColumn(int column) {
-		this.column = column;
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Position)) {
+			return false;
+		}
+		Position other = (Position) obj;
+		return row == other.row && column == other.column;
 	}
 
-	/**
-	 * updates the values (row, column) of a position
-	 * 
-	 * @param row    a row
-	 * @param column a column
-	 */
-	public void setValues(int row, int column) {
-		this.row = row;
-		this.column = column;
+	@Override
+	public int hashCode() {
+		return 31 * row + column;
 	}
 
 	/**
@@ -0,0 +1,151 @@
+package chess;
+
+/**
+ * This class is the chess clock of a match, with a base time for each player
+ * and an increment that is added to the player's time each time they complete
+ * a move (Fischer increment). Only one of the two clocks runs at a time: the
+ * clock of the player to move. When that player completes a move, they press
+ * the clock, which stops their clock, adds the increment to it and starts the
+ * opponent's clock. A player whose remaining time reaches zero loses the match
+ * on time. The times are measured with {@link System#nanoTime()}, so they don't
+ * depend on changes of the system date.
+ *
+ * @author Joo Victor
+ */
+public class ChessClock {
+
+	private long baseMillis;
+	private long incrementMillis;
+	private long whiteRemainingNanos;
+	private long blackRemainingNanos;
+	private Color running;
+	private long startedAt;
+
+	/**
+	 * creates a stopped clock with the base time and the increment passed as
+	 * parameters for both players.
+	 *
+	 * @param baseMillis      base time of each player in milliseconds
+	 * @param incrementMillis increment per move in milliseconds
+	 */
+	public ChessClock(long baseMillis, long incrementMillis) {
+		if (baseMillis <= 0 || incrementMillis < 0) {
+			throw new IllegalArgumentException("Invalid time control: " + baseMillis + "+" + incrementMillis);
+		}
+		this.baseMillis = baseMillis;
+		this.incrementMillis = incrementMillis;
+		whiteRemainingNanos = baseMillis * 1_000_000;
+		blackRemainingNanos = baseMillis * 1_000_000;
+	}
+
+	public long getBaseMillis() {
+		return baseMillis;
+	}
+
+	public long getIncrementMillis() {
+		return incrementMillis;
+	}
+
+	/**
+	 * @return the color of the player whose clock is running, or null if the clock
+	 *         is stopped
+	 */
+	public Color getRunning() {
+		return running;
+	}
+
+	/**
+	 * starts the clock of the player passed as a parameter. If the clock of the
+	 * other player was running, it is stopped, without increment.
+	 *
+	 * @param player the player to move
+	 */
+	public void start(Color player) {
+		stop();
+		running = player;
+		startedAt = System.nanoTime();
+	}
+
+	/**
+	 * stops the clock that is running, if any.
+	 */
+	public void stop() {
+		if (running != null) {
+			spend(running, System.nanoTime() - startedAt);
+			running = null;
+		}
+	}
+
+	/**
+	 * is pressed by the player to move after completing a move. It stops the
+	 * player's clock, adds the increment to it if the player still had time, and
+	 * starts the opponent's clock.
+	 *
+	 * @return the time the player spent on the move, in milliseconds
+	 */
+	public long press() {
+		if (running == null) {
+			throw new IllegalStateException("The clock is not running");
+		}
+		Color player = running;
+		long spent = System.nanoTime() - startedAt;
+		stop();
+		if (!isFlagged(player)) {
+			spend(player, -incrementMillis * 1_000_000);
+		}
+		start(player == Color.WHITE ? Color.BLACK : Color.WHITE);
+		return spent / 1_000_000;
+	}
+
+	/**
+	 * returns the remaining time of a player, including the time elapsed since
+	 * their clock started, if it is running. The remaining time is never negative.
+	 *
+	 * @param player a player
+	 * @return the remaining time in milliseconds
+	 */
+	public long getRemainingMillis(Color player) {
+		return Math.max(0, remainingNanos(player) / 1_000_000);
+	}
+
+	/**
+	 * @param player a player
+	 * @return true if the player has run out of time
+	 */
+	public boolean isFlagged(Color player) {
+		return remainingNanos(player) <= 0;
+	}
+
+	private long remainingNanos(Color player) {
+		long remaining = player == Color.WHITE ? whiteRemainingNanos : blackRemainingNanos;
+		if (player == running) {
+			remaining -= System.nanoTime() - startedAt;
+		}
+		return remaining;
+	}
+
+	private void spend(Color player, long nanos) {
+		if (player == Color.WHITE) {
+			whiteRemainingNanos -= nanos;
+		} else {
+			blackRemainingNanos -= nanos;
+		}
+	}
+
+	/**
+	 * Outputs the remaining times of both players in minutes and seconds, for
+	 * example "White 4:59 - Black 5:00".
+	 *
+	 * @return a string with the remaining times
+	 */
+	@Override
+	public String toString() {
+		return "White " + format(getRemainingMillis(Color.WHITE)) + " - Black "
+				+ format(getRemainingMillis(Color.BLACK));
+	}
+
+	private static String format(long millis) {
+		long seconds = millis / 1000;
+		return seconds / 60 + ":" + (seconds % 60 < 10 ? "0" : "") + seconds % 60;
+	}
+}
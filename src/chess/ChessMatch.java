@@ -1,15 +1,20 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
+import chess.metrics.ChessMetrics;
+import chess.metrics.ChessMoveEvent;
+import chess.metrics.Counter;
+import chess.pieces.AttackTables;
 import chess.pieces.Bishop;
 import chess.pieces.King;
 import chess.pieces.Knight;
+import chess.pieces.MoveGenerator;
 import chess.pieces.Pawn;
 import chess.pieces.Queen;
 import chess.pieces.Rook;
@@ -29,11 +34,29 @@ public class ChessMatch {
 	private boolean checkMate;
 	private ChessPiece enPassantVulnerable;
 	private ChessPiece promoted;
+	private GameResult result = GameResult.IN_PROGRESS;
+	private int halfmoveClock;
 	private Board board;
 
 	private List<Piece> piecesOnTheBoard = new ArrayList<>();
 	private List<Piece> capturedPieces = new ArrayList<>();
 
+	private static final int HISTORY_CAPACITY = 1024;
+
+	private MoveHistory history = new MoveHistory(HISTORY_CAPACITY);
+
+	private long piecesHash;
+	private long[] positionHashes = new long[256];
+	private int plies;
+	private int[] pieceCounts = new int[12];
+	private int[] bishopsOnSquareColor = new int[2];
+	private int legalMoveScans;
+	private Piece[] alliedPieces = new Piece[16];
+	private long positionVersion;
+	private boolean[][][] movesCache;
+	private long[] movesCacheVersions;
+	private MoveList moveList;
+
 	/**
 	 * Creates a board of 8 rows and 8 columns and puts the chess pieces on the
 	 * board using the {@link #initialSetup()} method. In addition, a chess match
@@ -45,6 +68,91 @@ public class ChessMatch {
 		turn = 1;
 		currentPlayer = Color.WHITE;
 		initialSetup();
+		positionHashes[0] = getPositionHash();
+	}
+
+	/**
+	 * Creates an empty 8 by 8 board with the turn and the current player given as
+	 * parameters, without placing any piece. This constructor is used to rebuild a
+	 * match from a snapshot, see {@link chess.MatchSnapshot#read(java.io.DataInput)}, so
+	 * the pieces are put back afterwards by the
+	 * {@link #restorePiece(char, Color, int, int, int)} method
+	 *
+	 * @param turn          match turn
+	 * @param currentPlayer player that will carry out the next movement
+	 */
+	ChessMatch(int turn, Color currentPlayer) {
+		board = new Board(8, 8);
+		this.turn = turn;
+		this.currentPlayer = currentPlayer;
+	}
+
+	/**
+	 * Creates a copy of the match passed as a parameter, see {@link #copy()}. The
+	 * pieces are created again on a new board, in the same order of the list of
+	 * pieces of the original match, and the hash, the piece counters and the
+	 * hashes of the positions since the last capture or pawn move are copied as
+	 * arrays, instead of being computed again.
+	 *
+	 * @param other match to be copied
+	 */
+	private ChessMatch(ChessMatch other) {
+		board = new Board(8, 8);
+		turn = other.turn;
+		currentPlayer = other.currentPlayer;
+		check = other.check;
+		checkMate = other.checkMate;
+		result = other.result;
+		halfmoveClock = other.halfmoveClock;
+		for (int i = 0; i < other.piecesOnTheBoard.size(); i++) {
+			ChessPiece piece = (ChessPiece) other.piecesOnTheBoard.get(i);
+			ChessPiece copy = createPiece(piece.getType().getSymbol(), piece.getColor());
+			copy.setMoveCount(piece.getMoveCount());
+			board.placePiece(copy, piece.getPosition());
+			piecesOnTheBoard.add(copy);
+		}
+		for (int i = 0; i < other.capturedPieces.size(); i++) {
+			ChessPiece piece = (ChessPiece) other.capturedPieces.get(i);
+			capturedPieces.add(createPiece(piece.getType().getSymbol(), piece.getColor()));
+		}
+		enPassantVulnerable = pieceAt(other.enPassantVulnerable);
+		promoted = pieceAt(other.promoted);
+		piecesHash = other.piecesHash;
+		int oldest = Math.max(0, other.plies - halfmoveClock);
+		plies = other.plies - oldest;
+		if (plies >= positionHashes.length) {
+			positionHashes = new long[plies * 2];
+		}
+		System.arraycopy(other.positionHashes, oldest, positionHashes, 0, plies + 1);
+		pieceCounts = other.pieceCounts.clone();
+		bishopsOnSquareColor = other.bishopsOnSquareColor.clone();
+	}
+
+	/**
+	 * returns an independent copy of the match: the copy has its own board and its
+	 * own pieces, and its pieces refer to the copy, so moves performed on the copy
+	 * never change the original match, and the copy can be used by another thread.
+	 * The copy has the same position, state and draw rule state of the original
+	 * match, but not its move history, so its first move can't be undone. Unlike
+	 * writing a {@link chess.MatchSnapshot} and reading it back, no bytes are
+	 * encoded, and the original match is only read, so several threads can copy
+	 * the same match as long as no move is being performed on it.
+	 *
+	 * @return a copy of the match
+	 */
+	public ChessMatch copy() {
+		return new ChessMatch(this);
+	}
+
+	/**
+	 * @param piece a piece of another match, or null
+	 * @return the piece of this match at the position of that piece, or null
+	 */
+	private ChessPiece pieceAt(ChessPiece piece) {
+		if (piece == null || piece.getPosition() == null) {
+			return null;
+		}
+		return (ChessPiece) board.piece(piece.getPosition());
 	}
 
 	public int getTurn() {
@@ -71,6 +179,54 @@ public class ChessMatch {
 		return promoted;
 	}
 
+	public GameResult getResult() {
+		return result;
+	}
+
+	/**
+	 * returns the number of moves (counted by player, that is, half-moves) made
+	 * since the last capture or pawn move. When it reaches 100, the match ends in a
+	 * draw by the fifty-move rule.
+	 * 
+	 * @return the half-move clock of the match
+	 */
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	/**
+	 * Returns the Zobrist hash of the current position of the match. The hash
+	 * takes into account the pieces on the board, the player to move, the
+	 * castling rights (a king and a rook that haven't moved yet on their initial
+	 * squares) and the column of a pawn that can be captured en passant. Two
+	 * positions with the same hash are, with a very high probability, the same
+	 * position in the sense of the repetition rule.
+	 * 
+	 * @return the hash of the current position
+	 */
+	public long getPositionHash() {
+		long hash = piecesHash;
+		if (currentPlayer == Color.BLACK) {
+			hash ^= Zobrist.BLACK_TO_MOVE;
+		}
+		if (canCastle(7, 4, 7)) {
+			hash ^= Zobrist.CASTLING[0];
+		}
+		if (canCastle(7, 4, 0)) {
+			hash ^= Zobrist.CASTLING[1];
+		}
+		if (canCastle(0, 4, 7)) {
+			hash ^= Zobrist.CASTLING[2];
+		}
+		if (canCastle(0, 4, 0)) {
+			hash ^= Zobrist.CASTLING[3];
+		}
+		if (enPassantVulnerable != null && isEnPassantCapturePossible()) {
+			hash ^= Zobrist.EN_PASSANT_COLUMN[enPassantVulnerable.getPosition().getColumn()];
+		}
+		return hash;
+	}
+
 	/**
 	 * returns an matrix of chess pieces. For this, this method converts each piece
 	 * of type Piece of Matrix of pieces beloging to the Board into a piece of type
@@ -88,6 +244,26 @@ public class ChessMatch {
 		return chessPiecesMatrix;
 	}
 
+	/**
+	 * returns the chess piece on a square of the board, without copying the board
+	 * as the {@link #getPieces()} method does, which is the access path used by
+	 * the engine.
+	 * 
+	 * @param square a square, row * 8 + column
+	 * @return the chess piece on the square, or null
+	 */
+	public ChessPiece getPiece(int square) {
+		return (ChessPiece) board.piece(square / 8, square % 8);
+	}
+
+	/**
+	 * @return the occupancy bitboard of the board, where the bit row * 8 + column
+	 *         is set if there is a piece on that square
+	 */
+	public long getOccupancy() {
+		return board.getOccupancy();
+	}
+
 	/**
 	 * It will capture an source position that will be entered by the user, which
 	 * will be of a ChessPosition type. Then this position will be converted to a
@@ -95,7 +271,12 @@ public class ChessMatch {
 	 * that position will be validated by the
 	 * {@link #validateSourcePosition(Position)} method. After these procedures, the
 	 * Boolean of possible movements of the piece located in this position will be
-	 * returned through the {@link boardgame.Piece#possibleMoves()} method
+	 * read from the {@link #cachedMoves(Position)} method, so the matrix generated
+	 * to validate the source position is the same one used to validate the target
+	 * position when the move is performed by the
+	 * {@link #performChessMove(ChessPosition, ChessPosition)} method. A copy of
+	 * the matrix is returned, so the caller can change it without changing the
+	 * cache of the match
 	 * 
 	 * @param sourcePosition source position
 	 * @return a boolean matrix that will indicate the possible target positions of
@@ -104,7 +285,50 @@ public class ChessMatch {
 	public boolean[][] possibleMoves(ChessPosition sourcePosition) {
 		Position position = sourcePosition.toPosition();
 		validateSourcePosition(position);
-		return board.piece(position).possibleMoves();
+		boolean[][] moves = cachedMoves(position).clone();
+		for (int i = 0; i < moves.length; i++) {
+			moves[i] = moves[i].clone();
+		}
+		return moves;
+	}
+
+	/**
+	 * returns all the legal moves of the current player, generated in a single
+	 * pass by the {@link #legalMoves(MoveList)} method. Unlike the
+	 * {@link #possibleMoves(ChessPosition)} method, it doesn't throw a
+	 * ChessException for any position, and the moves that would leave the king of
+	 * the player in check are already left out. The list returned is owned by the
+	 * match and is filled again by the next call of this method.
+	 * 
+	 * @return the legal moves of the current player
+	 */
+	public MoveList legalMoves() {
+		if (moveList == null) {
+			moveList = new MoveList();
+		}
+		legalMoves(moveList);
+		return moveList;
+	}
+
+	/**
+	 * fills the list passed as a parameter with all the legal moves of the current
+	 * player. The target squares of each piece of the player are read as a long by
+	 * the {@link chess.pieces.MoveGenerator#possibleTargets(ChessPiece)} method, so
+	 * no matrix is allocated, and each move is tried by the
+	 * {@link #scanLegalMoves(Color, MoveList, int, boolean)} method, the same scan
+	 * used by the checkmate test. When the match is over, the list is left empty.
+	 * 
+	 * @param list the list that will receive the legal moves
+	 */
+	public void legalMoves(MoveList list) {
+		list.clear();
+		if (result.isOver()) {
+			return;
+		}
+		long version = positionVersion;
+		scanLegalMoves(currentPlayer, list, Integer.MAX_VALUE, true);
+		// the moves were all undone, so the moves cached for the position are valid
+		positionVersion = version;
 	}
 
 	/**
@@ -126,37 +350,157 @@ public class ChessMatch {
 	 * was moved is a pawn vulnerable to the special move en passant (A pawn is
 	 * vulnerable if it has moved two positions in the same turn) and also checked
 	 * whether if a promotion has occurred. By default the promoted pawn will be
-	 * replaced by a queen by the {@link #replacePromotedPiece(String)}
+	 * replaced by a queen by the {@link #replacePromotedPiece(String)}. Every
+	 * valid move is also recorded in the move history of the match, so it can be
+	 * undone by the {@link #undo()} method. Each move is also recorded as a
+	 * {@link chess.metrics.ChessMoveEvent} by the JDK Flight Recorder, when a
+	 * recording is running. Once the match is over, by a checkmate, a draw or a
+	 * loss on time, no move is accepted and a ChessException is thrown, so the
+	 * result can't be changed by a later move
 	 * 
 	 * @param sourcePosition source position
 	 * @param targetPosition targe position
 	 * @return a captured piece at the end of movement
 	 */
 	public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
+		ChessMoveEvent event = new ChessMoveEvent();
+		event.begin();
+		if (result.isOver()) {
+			throw new ChessException("The match is over");
+		}
 		Position source = sourcePosition.toPosition();
 		Position target = targetPosition.toPosition();
 		validateSourcePosition(source);
 		validateTargetPosition(source, target);
+		if (!performValidatedMove(source, target, event)) {
+			throw new ChessException("You can't put yourself in check");
+		}
+		return history.last().getCapturedPiece();
+	}
+
+	/**
+	 * performs a move given by the indexes of its source and target squares,
+	 * without the validations of the
+	 * {@link #performChessMove(ChessPosition, ChessPosition)} method and without
+	 * throwing a ChessException, which is the path used by the engine for the
+	 * moves it generates. The move must be one of the possible moves of a piece
+	 * of the current player, as read by the
+	 * {@link chess.pieces.MoveGenerator#possibleTargets(ChessPiece)} method,
+	 * since the source and the target are not checked; a move from any other
+	 * source, such as a user or a transposition table, must be performed by the
+	 * {@link #performChessMove(ChessPosition, ChessPosition)} method instead. A
+	 * move that would leave the player's own king in check is undone at once, as
+	 * in the checkmate test, so a search can try the possible moves and skip the
+	 * illegal ones without the cost of an exception.
+	 * 
+	 * @param source source square index, row * 8 + column
+	 * @param target target square index, row * 8 + column
+	 * @return true if the move was performed, or false if the match is over or
+	 *         the move would leave the player's own king in check, in which case
+	 *         the match is left unchanged
+	 */
+	public boolean performMove(int source, int target) {
+		if (result.isOver()) {
+			return false;
+		}
+		ChessMoveEvent event = new ChessMoveEvent();
+		event.begin();
+		return performValidatedMove(Position.of(source / 8, source % 8), Position.of(target / 8, target % 8), event);
+	}
+
+	/**
+	 * contains the logic of a move whose source and target were already
+	 * validated, shared by the
+	 * {@link #performChessMove(ChessPosition, ChessPosition)} and
+	 * {@link #performMove(int, int)} methods. The flight recorder event of the
+	 * move is begun by the caller, so its duration also covers the validations of
+	 * the move, and is ended and committed here once the move is performed.
+	 * 
+	 * @return false if the move was undone because it would leave the player's own
+	 *         king in check
+	 */
+	private boolean performValidatedMove(Position source, Position target, ChessMoveEvent event) {
+		int scansBefore = legalMoveScans;
 		Piece capturedPiece = makeMove(source, target);
 
 		if (testCheck(currentPlayer)) {
 			undoMove(source, target, capturedPiece);
-			throw new ChessException("You can't put yourself in check");
+			return false;
 		}
 
 		ChessPiece movedPiece = (ChessPiece) board.piece(target);
+		MoveRecord record = history.push();
+		record.recordMove(source, target, movedPiece, (ChessPiece) capturedPiece);
+		record.recordStateBefore(turn, currentPlayer, check, checkMate, enPassantVulnerable, promoted, halfmoveClock,
+				result);
 
 		// special move promotion
 		promoted = null;
-		if (movedPiece instanceof Pawn) {
+		if (movedPiece.getType() == PieceType.PAWN) {
 			boolean whitePieceReachedTheEnd = movedPiece.getColor() == Color.WHITE && target.getRow() == 0;
 			boolean blackPieceReachedTheEnd = movedPiece.getColor() == Color.BLACK && target.getRow() == 7;
 			if (whitePieceReachedTheEnd || blackPieceReachedTheEnd) {
 				promoted = (ChessPiece) board.piece(target);
-				promoted = replacePromotedPiece("Q");
+				record.recordPromotion(promoted, null);
+				promoted = swapPromotedPiece("Q");
 			}
 		}
 
+		// en passant vulnerable
+		boolean movedTwoPositions = target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2;
+		if (movedPiece.getType() == PieceType.PAWN && movedTwoPositions) {
+			enPassantVulnerable = movedPiece;
+		} else {
+			enPassantVulnerable = null;
+		}
+
+		// fifty-move rule
+		if (movedPiece.getType() == PieceType.PAWN || capturedPiece != null) {
+			halfmoveClock = 0;
+		} else {
+			halfmoveClock++;
+		}
+
+		updateMatchState();
+
+		record.recordStateAfter(turn, currentPlayer, check, checkMate, enPassantVulnerable, promoted, halfmoveClock,
+				result);
+		event.end();
+		if (event.shouldCommit()) {
+			commitMoveEvent(event, source, target, legalMoveScans != scansBefore);
+		}
+		return true;
+	}
+
+	/**
+	 * fills and commits the flight recorder event of a move. The legal moves of the
+	 * player to move are only counted here, after the duration of the move was
+	 * measured, and only when the event is recorded, so the moves cost nothing
+	 * more when no recording is running, and the scan that counts them doesn't
+	 * add its moves to the counters of the recording. The legal moves are scanned
+	 * to test checkmate when the move is a check, and to test stalemate otherwise.
+	 */
+	private void commitMoveEvent(ChessMoveEvent event, Position source, Position target, boolean scanned) {
+		event.setMove(ChessPosition.fromSquare(source.getRow() * 8 + source.getColumn()).toString()
+				+ ChessPosition.fromSquare(target.getRow() * 8 + target.getColumn()));
+		event.setLegalMoves(checkMate ? 0 : scanLegalMoves(currentPlayer, null, Integer.MAX_VALUE, false));
+		event.setCheck(check);
+		event.setCheckMateScan(scanned && check);
+		event.setStalemateScan(scanned && !check);
+		event.commit();
+	}
+
+	/**
+	 * updates the state of the match after the pieces of a move are in place. It's
+	 * tested if the opponent has been checked using the {@link #testCheck(Color)}
+	 * method, and whether the move resulted in a checkmate to the opponent using
+	 * the {@link #testCheckMate(Color)} method. If it did, the game is over, if it
+	 * didn't, then the next turn will be executed by the {@link #nextTurn()} method
+	 * and the rules that end a match in a draw are tested by the
+	 * {@link #testDraw()} method. The hash of the resulting position is added to
+	 * the position history used to detect repetitions.
+	 */
+	private void updateMatchState() {
 		check = (testCheck(opponent(currentPlayer))) ? true : false;
 
 		if (testCheckMate(opponent(currentPlayer))) {
@@ -165,15 +509,120 @@ public class ChessMatch {
 			nextTurn();
 		}
 
-		// en passant vulnerable
-		boolean movedTwoPositions = target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2;
-		if (movedPiece instanceof Pawn && movedTwoPositions) {
-			enPassantVulnerable = movedPiece;
-		} else {
-			enPassantVulnerable = null;
+		recordPosition();
+		result = checkMate ? GameResult.CHECKMATE : testDraw();
+	}
+
+	/**
+	 * ends the match because the current player ran out of time on the chess
+	 * clock, so the opponent wins. If the match is already over, nothing happens.
+	 */
+	public void loseOnTime() {
+		if (!result.isOver()) {
+			result = GameResult.TIME_FORFEIT;
+		}
+	}
+
+	/**
+	 * checks whether there is a move in the match history that can be undone by
+	 * the {@link #undo()} method.
+	 *
+	 * @return true if there is a move to undo
+	 */
+	public boolean canUndo() {
+		return history.canUndo();
+	}
+
+	/**
+	 * checks whether there is an undone move that can be performed again by the
+	 * {@link #redo()} method.
+	 *
+	 * @return true if there is a move to redo
+	 */
+	public boolean canRedo() {
+		return history.canRedo();
+	}
+
+	/**
+	 * Undoes the last chess move performed in the match, taking it from the move
+	 * history. If the move was a promotion, the piece that replaced the pawn is
+	 * removed from the board and the pawn is put back in its place. Then the move
+	 * itself is undone by the {@link #undoMove(Position, Position, Piece)} method,
+	 * which also puts back a captured piece and undoes castling and en passant
+	 * moves, and finally the turn, the current player, the check and checkmate
+	 * states, the pawn vulnerable to en passant and the promoted piece go back to
+	 * the values they had before the move. If there is no move to undo, then a
+	 * ChessException will be thrown. The record of the undone move is returned,
+	 * and it stays valid only until a new move is performed.
+	 *
+	 * @return the record of the undone move
+	 */
+	public MoveRecord undo() {
+		if (!history.canUndo()) {
+			throw new ChessException("There is no move to undo");
+		}
+		MoveRecord record = history.undo();
+		Position source = Position.of(record.getSourceRow(), record.getSourceColumn());
+		Position target = Position.of(record.getTargetRow(), record.getTargetColumn());
+
+		if (record.getPromotionPiece() != null) {
+			Piece promotionPiece = takePiece(target);
+			piecesOnTheBoard.remove(promotionPiece);
+			putPiece(record.getPromotedPawn(), target);
+			piecesOnTheBoard.add(record.getPromotedPawn());
+		}
+
+		enPassantVulnerable = record.getEnPassantVulnerableBefore();
+		undoMove(source, target, record.getCapturedPiece());
+
+		turn = record.getTurnBefore();
+		currentPlayer = record.getPlayerBefore();
+		check = record.getCheckBefore();
+		checkMate = record.getCheckMateBefore();
+		promoted = record.getPromotedBefore();
+		halfmoveClock = record.getHalfmoveClockBefore();
+		result = record.getResultBefore();
+		plies--;
+		return record;
+	}
+
+	/**
+	 * Performs again the last chess move undone by the {@link #undo()} method. The
+	 * move is performed by the {@link #makeMove(Position, Position)} method, the
+	 * promoted pawn is replaced by the same piece chosen the first time, and the
+	 * state of the match goes back to what it was right after the move, so none of
+	 * the validations and check tests need to run again. If there is no move to
+	 * redo, then a ChessException will be thrown.
+	 *
+	 * @return the record of the redone move
+	 */
+	public MoveRecord redo() {
+		if (!history.canRedo()) {
+			throw new ChessException("There is no move to redo");
 		}
+		MoveRecord record = history.redo();
+		Position source = Position.of(record.getSourceRow(), record.getSourceColumn());
+		Position target = Position.of(record.getTargetRow(), record.getTargetColumn());
+
+		makeMove(source, target);
 
-		return (ChessPiece) capturedPiece;
+		if (record.getPromotionPiece() != null) {
+			Piece pawn = takePiece(target);
+			piecesOnTheBoard.remove(pawn);
+			putPiece(record.getPromotionPiece(), target);
+			piecesOnTheBoard.add(record.getPromotionPiece());
+		}
+
+		turn = record.getTurnAfter();
+		currentPlayer = record.getPlayerAfter();
+		check = record.getCheckAfter();
+		checkMate = record.getCheckMateAfter();
+		enPassantVulnerable = record.getEnPassantVulnerableAfter();
+		promoted = record.getPromotedAfter();
+		halfmoveClock = record.getHalfmoveClockAfter();
+		result = record.getResultAfter();
+		recordPosition();
+		return record;
 	}
 
 	/**
@@ -185,13 +634,56 @@ public class ChessMatch {
 	 * promoted piece equals null, it means there is no promoted piece to be
 	 * replaced so an IllegalStateException will be thrown. If the type of the piece
 	 * chosen to exchange for the promoted one is of an invalid type, then this
-	 * method will return the piece chosen as the default in the promotion.
+	 * method will return the piece chosen as the default in the promotion. As the
+	 * move was already completed when this method is called, the check, checkmate
+	 * and draw states are evaluated again with the new piece on the board by the
+	 * {@link #updateMatchState()} method, because a queen and a knight, for
+	 * example, don't give check to the same squares. The promotion itself may end
+	 * the match, and a different piece may not, as in a promotion to a knight that
+	 * avoids a stalemate, so the piece can still be replaced when the match was
+	 * ended by the promotion, but a ChessException is thrown when the match was
+	 * ended afterwards, such as by a loss on time.
 	 * 
 	 * @param type the chess piece type symbol indicating which chess piece will
 	 *             replace the promoted piece.
 	 * @return the chess piece that will replace the promoted piece.
 	 */
 	public ChessPiece replacePromotedPiece(String type) {
+		MoveRecord last = history.last();
+		if (result.isOver() && (last == null || result != last.getResultAfter())) {
+			throw new ChessException("The match is over");
+		}
+		ChessPiece previous = promoted;
+		ChessPiece newPiece = swapPromotedPiece(type);
+		if (newPiece != previous) {
+			if (!checkMate) {
+				turn--;
+				currentPlayer = opponent(currentPlayer);
+			}
+			checkMate = false;
+			plies--;
+			updateMatchState();
+
+			MoveRecord record = history.last();
+			if (record != null && record.isPromotionOf(newPiece)) {
+				record.recordStateAfter(turn, currentPlayer, check, checkMate, enPassantVulnerable, promoted,
+						halfmoveClock, result);
+			}
+		}
+		return newPiece;
+	}
+
+	/**
+	 * contains the piece replacement logic of the
+	 * {@link #replacePromotedPiece(String)} method, without updating the state of
+	 * the match. The replacement is also recorded in the move history, so undoing
+	 * and redoing the move restores the chosen piece.
+	 * 
+	 * @param type the chess piece type symbol indicating which chess piece will
+	 *             replace the promoted piece.
+	 * @return the chess piece that will replace the promoted piece.
+	 */
+	private ChessPiece swapPromotedPiece(String type) {
 		if (promoted == null) {
 			throw new IllegalStateException("There is no piece to be promoted");
 		}
@@ -200,13 +692,19 @@ public class ChessMatch {
 			return promoted;
 		}
 
-		Position promotedPosition = promoted.getChessPosition().toPosition();
-		Piece p = board.removePiece(promotedPosition);
+		Position promotedPosition = promoted.getPosition();
+		Piece p = takePiece(promotedPosition);
 		piecesOnTheBoard.remove(p);
 
 		ChessPiece newPiece = newPiece(type, promoted.getColor());
-		board.placePiece(newPiece, promotedPosition);
+		putPiece(newPiece, promotedPosition);
 		piecesOnTheBoard.add(newPiece);
+
+		MoveRecord record = history.last();
+		if (record != null && record.isPromotionOf(promoted)) {
+			record.replacePromotionPiece(newPiece);
+		}
+		promoted = newPiece;
 		return newPiece;
 	}
 
@@ -256,49 +754,65 @@ public class ChessMatch {
 	 * @return a captured piece at end of movement
 	 */
 	private Piece makeMove(Position source, Position target) {
-		ChessPiece p = (ChessPiece) board.removePiece(source);
+		ChessMetrics.increment(Counter.MAKE_MOVE);
+		return movePieces(source, target);
+	}
+
+	/**
+	 * moves the pieces of a move as described in the
+	 * {@link #makeMove(Position, Position)} method, without adding the move to the
+	 * counters of {@link chess.metrics.ChessMetrics}. It's used by the scan of the
+	 * legal moves, which adds all the moves it tried to the counters at once.
+	 */
+	private Piece movePieces(Position source, Position target) {
+		ChessPiece p = (ChessPiece) takePiece(source);
 		p.increaseMoveCount();
-		Piece capturedPiece = board.removePiece(target);
-		board.placePiece(p, target);
+		Piece capturedPiece = takePiece(target);
+		putPiece(p, target);
 
 		if (capturedPiece != null) {
 			piecesOnTheBoard.remove(capturedPiece);
 			capturedPieces.add(capturedPiece);
 		}
 
-		// special move small castling (castling king side rook)
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-			Position sourceRook = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetRook = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(sourceRook);
-			board.placePiece(rook, targetRook);
-			rook.increaseMoveCount();
-		}
-
-		// special move big castling (castling queen side rook)
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-			Position sourceRook = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetRook = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(sourceRook);
-			board.placePiece(rook, targetRook);
-			rook.increaseMoveCount();
-		}
+		switch (p.getType()) {
+		case KING:
+			// special move small castling (castling king side rook)
+			if (target.getColumn() == source.getColumn() + 2) {
+				Position sourceRook = Position.of(source.getRow(), source.getColumn() + 3);
+				Position targetRook = Position.of(source.getRow(), source.getColumn() + 1);
+				ChessPiece rook = (ChessPiece) takePiece(sourceRook);
+				putPiece(rook, targetRook);
+				rook.increaseMoveCount();
+			}
 
-		// special move en passant
-		if (p instanceof Pawn) {
+			// special move big castling (castling queen side rook)
+			if (target.getColumn() == source.getColumn() - 2) {
+				Position sourceRook = Position.of(source.getRow(), source.getColumn() - 4);
+				Position targetRook = Position.of(source.getRow(), source.getColumn() - 1);
+				ChessPiece rook = (ChessPiece) takePiece(sourceRook);
+				putPiece(rook, targetRook);
+				rook.increaseMoveCount();
+			}
+			break;
+		case PAWN:
+			// special move en passant
 			boolean pawnWalkedDiagonally = source.getColumn() != target.getColumn();
 			if (pawnWalkedDiagonally && capturedPiece == null) {
 				Position pawnPosition;
 				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(target.getRow() + 1, target.getColumn());
+					pawnPosition = Position.of(target.getRow() + 1, target.getColumn());
 
 				} else {
-					pawnPosition = new Position(target.getRow() - 1, target.getColumn());
+					pawnPosition = Position.of(target.getRow() - 1, target.getColumn());
 				}
-				capturedPiece = board.removePiece(pawnPosition);
+				capturedPiece = takePiece(pawnPosition);
 				capturedPieces.add(capturedPiece);
 				piecesOnTheBoard.remove(capturedPiece);
 			}
+			break;
+		default:
+			break;
 		}
 
 		return capturedPiece;
@@ -328,48 +842,63 @@ public class ChessMatch {
 	 * @param capturedPiece piece captured in the movement performed
 	 */
 	private void undoMove(Position source, Position target, Piece capturedPiece) {
-		ChessPiece p = (ChessPiece) board.removePiece(target);
+		ChessMetrics.increment(Counter.UNDO_MOVE);
+		restorePieces(source, target, capturedPiece);
+	}
+
+	/**
+	 * puts the pieces of a move back as described in the
+	 * {@link #undoMove(Position, Position, Piece)} method, without adding the undo
+	 * to the counters of {@link chess.metrics.ChessMetrics}.
+	 */
+	private void restorePieces(Position source, Position target, Piece capturedPiece) {
+		ChessPiece p = (ChessPiece) takePiece(target);
 		p.decreaseMoveCount();
-		board.placePiece(p, source);
+		putPiece(p, source);
 
 		if (capturedPiece != null) {
-			board.placePiece(capturedPiece, target);
+			putPiece(capturedPiece, target);
 			capturedPieces.remove(capturedPiece);
 			piecesOnTheBoard.add(capturedPiece);
 		}
 
-		// special move small castling (castling king side rook)
-		if (p instanceof Rook && target.getColumn() == source.getColumn() + 2) {
-			Position sourceRook = new Position(source.getRow(), source.getColumn() + 3);
-			Position targetRook = new Position(source.getRow(), source.getColumn() + 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetRook);
-			board.placePiece(rook, sourceRook);
-			rook.decreaseMoveCount();
-		}
-
-		// special move big castling (castling queen side rook)
-		if (p instanceof Rook && target.getColumn() == source.getColumn() - 2) {
-			Position sourceRook = new Position(source.getRow(), source.getColumn() - 4);
-			Position targetRook = new Position(source.getRow(), source.getColumn() - 1);
-			ChessPiece rook = (ChessPiece) board.removePiece(targetRook);
-			board.placePiece(rook, sourceRook);
-			rook.decreaseMoveCount();
-		}
+		switch (p.getType()) {
+		case KING:
+			// special move small castling (castling king side rook)
+			if (target.getColumn() == source.getColumn() + 2) {
+				Position sourceRook = Position.of(source.getRow(), source.getColumn() + 3);
+				Position targetRook = Position.of(source.getRow(), source.getColumn() + 1);
+				ChessPiece rook = (ChessPiece) takePiece(targetRook);
+				putPiece(rook, sourceRook);
+				rook.decreaseMoveCount();
+			}
 
-		// special move en passant
-		if (p instanceof Pawn) {
+			// special move big castling (castling queen side rook)
+			if (target.getColumn() == source.getColumn() - 2) {
+				Position sourceRook = Position.of(source.getRow(), source.getColumn() - 4);
+				Position targetRook = Position.of(source.getRow(), source.getColumn() - 1);
+				ChessPiece rook = (ChessPiece) takePiece(targetRook);
+				putPiece(rook, sourceRook);
+				rook.decreaseMoveCount();
+			}
+			break;
+		case PAWN:
+			// special move en passant
 			boolean pawnWalkedDiagonally = source.getColumn() != target.getColumn();
 			if (pawnWalkedDiagonally && capturedPiece == enPassantVulnerable) {
-				ChessPiece pawn = (ChessPiece) board.removePiece(target);
+				ChessPiece pawn = (ChessPiece) takePiece(target);
 				Position pawnPosition;
 				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(3, target.getColumn());
+					pawnPosition = Position.of(3, target.getColumn());
 
 				} else {
-					pawnPosition = new Position(4, target.getColumn());
+					pawnPosition = Position.of(4, target.getColumn());
 				}
-				board.placePiece(pawn, pawnPosition);
+				putPiece(pawn, pawnPosition);
 			}
+			break;
+		default:
+			break;
 		}
 	}
 
@@ -395,7 +924,7 @@ public class ChessMatch {
 		if (currentPlayer != ((ChessPiece) board.piece(position)).getColor()) {
 			throw new ChessException("The chosen piece is not yours");
 		}
-		if (!board.piece(position).isThereAnyPossibleMove()) {
+		if (!hasAnyPossibleMove(cachedMoves(position))) {
 			throw new ChessException("There is no possible moves for the chosen piece");
 		}
 	}
@@ -408,19 +937,68 @@ public class ChessMatch {
 	 * a ChessException will be thrown. To determine if the target position of the
 	 * part of the origin position returned by the
 	 * {@link boardgame.Board#piece(Position)} method is part of this matrix of
-	 * possible positions to perform a movement, the
-	 * {@link boardgame.Piece#possibleMove(Position)} method is used
+	 * possible positions to perform a movement, the matrix returned by the
+	 * {@link #cachedMoves(Position)} method is used, which is usually the one
+	 * already generated to validate the source position
 	 * 
 	 * 
 	 * @param sourcePosition source position of a movement
 	 * @param targetPosition target position of a movement
 	 */
 	private void validateTargetPosition(Position sourcePosition, Position targetPosition) {
-		if (!board.piece(sourcePosition).possibleMove(targetPosition)) {
+		boolean[][] possibleMoves = cachedMoves(sourcePosition);
+		if (!possibleMoves[targetPosition.getRow()][targetPosition.getColumn()]) {
 			throw new ChessException("The chosen piece can't move to the target position");
 		}
 	}
 
+	/**
+	 * checks whether a matrix of possible moves has at least one possible move, in
+	 * the same way as the {@link boardgame.Piece#isThereAnyPossibleMove()} method,
+	 * but with a matrix that was already generated, so it can be reused after the
+	 * check.
+	 * 
+	 * @param matrix possible moves of a chess piece
+	 * @return true if the matrix has a possible move
+	 */
+	private boolean hasAnyPossibleMove(boolean[][] matrix) {
+		for (int row = 0; row < matrix.length; row++) {
+			for (int column = 0; column < matrix[row].length; column++) {
+				if (matrix[row][column]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * returns the possible moves of the piece located in a position, generated by
+	 * the {@link chess.pieces.MoveGenerator#possibleMoves(ChessPiece)} method. The
+	 * matrix is kept in a cache of the match, one entry for each square, along
+	 * with the version of the position it was generated for. The version is
+	 * increased every time a piece is put on or taken from the board, so an entry
+	 * is generated again only when the position changed since it was cached. This
+	 * way the validation of the source position, the validation of the target
+	 * position and the highlighting of the possible moves of a piece are all
+	 * served by a single generation.
+	 * 
+	 * @param position board position, which must contain a piece
+	 * @return a boolean matrix that will indicate the possible moves of the piece
+	 */
+	private boolean[][] cachedMoves(Position position) {
+		if (movesCache == null) {
+			movesCache = new boolean[board.getRows() * board.getColumns()][][];
+			movesCacheVersions = new long[movesCache.length];
+		}
+		int square = position.getRow() * board.getColumns() + position.getColumn();
+		if (movesCache[square] == null || movesCacheVersions[square] != positionVersion) {
+			movesCache[square] = MoveGenerator.possibleMoves((ChessPiece) board.piece(position));
+			movesCacheVersions[square] = positionVersion;
+		}
+		return movesCache[square];
+	}
+
 	/**
 	 * will change the turn match. When the turn is changed, the next player will be
 	 * the one to make a move, that is, when the current turn is the turn of the
@@ -446,46 +1024,70 @@ public class ChessMatch {
 
 	/**
 	 * this method will find the king of the color passed as a parameter. For this
-	 * to happen, a list will receive all pieces of the selected color, then that
-	 * list will be scanned until the king piece is found, then that piece is
-	 * returned. It's not possible that there isn't a king in the list of pieces
-	 * present on the board, if there isn't, it will indicate that the program has
-	 * an error, and an IllegalStateException will be thrown
+	 * to happen, the list of pieces on the board is scanned until the king piece of
+	 * the selected color is found, then that piece is returned. It's not possible
+	 * that there isn't a king in the list of pieces present on the board, if there
+	 * isn't, it will indicate that the program has an error, and an
+	 * IllegalStateException will be thrown
 	 * 
 	 * @param color player color
 	 * @return the king of the color passed as a parameter
 	 */
 	private ChessPiece king(Color color) {
-		List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color)
-				.collect(Collectors.toList());
-		for (Piece p : list) {
-			if (p instanceof King) {
-				return (ChessPiece) p;
+		for (int i = 0; i < piecesOnTheBoard.size(); i++) {
+			ChessPiece p = (ChessPiece) piecesOnTheBoard.get(i);
+			if (p.getType() == PieceType.KING && p.getColor() == color) {
+				return p;
 			}
 		}
 		throw new IllegalStateException("There is no " + color + " king on the board");
 	}
 
 	/**
-	 * tests whether a king of a certain color is checked. Thus, it will be
-	 * necessary to check the possible movements of each of the opponent's pieces.
-	 * If one of the opponent's pieces has as a possible target move the position
-	 * where the king is, then it means that the king is checked. To return the
-	 * position of the king, the {@link #king(Color)} method is used. To select the
-	 * king's opponents from a list, the {@link #opponent(Color)} method is used.
-	 * And finally, to determine if one of the opponent's pieces in this list has as
-	 * a possible target position, the position that the king is located, the
-	 * {@link boardgame.Piece#possibleMove(Position)} method is used.
+	 * tests whether a king of a certain color is checked. Instead of computing the
+	 * possible moves of each of the opponent's pieces, the attacks are looked at
+	 * from the king's square: the squares a rook, a bishop, a knight, a king or a
+	 * pawn of the king's color would attack from there are read from the tables of
+	 * {@link chess.pieces.AttackTables}, and if one of them holds an opponent
+	 * piece of that same type (or a queen, for the lines of the rook and the
+	 * bishop), then that piece attacks the king, and the king is checked. To
+	 * return the position of the king, the {@link #king(Color)} method is used.
 	 * 
 	 * @param color player color
 	 * @return a boolean that if true indicates that a king is checked
 	 */
 	private boolean testCheck(Color color) {
-		Position kingPosition = king(color).getChessPosition().toPosition();
-		List<Piece> opponentPieces = piecesOnTheBoard.stream()
-				.filter(x -> ((ChessPiece) x).getColor() == opponent(color)).collect(Collectors.toList());
-		for (Piece opponent : opponentPieces) {
-			if (opponent.possibleMove(kingPosition)) {
+		ChessMetrics.increment(Counter.CHECK_TEST);
+		return kingAttacked(color);
+	}
+
+	/**
+	 * tests whether the king of a color is attacked as described in the
+	 * {@link #testCheck(Color)} method, without adding the test to the counters of
+	 * {@link chess.metrics.ChessMetrics}.
+	 */
+	private boolean kingAttacked(Color color) {
+		Position kingPosition = king(color).getPosition();
+		int square = kingPosition.getRow() * 8 + kingPosition.getColumn();
+		Color attacker = opponent(color);
+		long occupancy = board.getOccupancy();
+		return hasAttacker(AttackTables.rookAttacks(square, occupancy), attacker, PieceType.ROOK, PieceType.QUEEN)
+				|| hasAttacker(AttackTables.bishopAttacks(square, occupancy), attacker, PieceType.BISHOP, PieceType.QUEEN)
+				|| hasAttacker(AttackTables.knightAttacks(square), attacker, PieceType.KNIGHT, PieceType.KNIGHT)
+				|| hasAttacker(AttackTables.pawnAttacks(color, square), attacker, PieceType.PAWN, PieceType.PAWN)
+				|| hasAttacker(AttackTables.kingAttacks(square), attacker, PieceType.KING, PieceType.KING);
+	}
+
+	/**
+	 * tests whether one of the squares passed as a parameter holds a piece of the
+	 * attacker's color and of one of the two types passed as parameters.
+	 */
+	private boolean hasAttacker(long squares, Color attacker, PieceType type, PieceType otherType) {
+		while (squares != 0L) {
+			int square = Long.numberOfTrailingZeros(squares);
+			squares &= squares - 1;
+			ChessPiece piece = (ChessPiece) board.piece(square / 8, square % 8);
+			if (piece != null && piece.getColor() == attacker && (piece.getType() == type || piece.getType() == otherType)) {
 				return true;
 			}
 		}
@@ -497,49 +1099,273 @@ public class ChessMatch {
 	 * passed as parameter isn't already checked, then that means there is no chance
 	 * of checkmate, and this is tested by the {@link #testCheck(Color)} method.
 	 * Furthermore, if all the pieces of that color, don't have a possible move that
-	 * takes the king of that color out of the check state, then that player of that
-	 * color got a checkmate. So, for this to happen, all the allied pieces of the
-	 * king are collected to a list. In this way, all possible movements (returned
-	 * by {@link boardgame.Piece#possibleMoves()} method) of each of the pieces in
-	 * this list are verified. For each possible target position of a ally piece,
-	 * the ally piece is moved to those positions through the
-	 * {@link #makeMove(Position, Position)} method, and then after finishing the
-	 * move, the check status of the king is checked by the
-	 * {@link #testCheck(Color)} and the test move is undone by
-	 * {@link #undoMove(Position, Position, Piece)}. If in one of the possible
-	 * moves, one of the allied pieces changes the king's check state, then there
-	 * will be no checkmate. If after analyzing the possible moves of each of the
-	 * pieces, and the check status of the king is not changed, then there will be a
+	 * takes the king of that color out of the check state, which is tested by the
+	 * {@link #hasAnyLegalMove(Color)} method, then that player of that color got a
 	 * checkmate.
 	 * 
 	 * @param color player color
 	 * @return a boolean that if true will indicate that there was a checkmate
 	 */
 	private boolean testCheckMate(Color color) {
+		ChessMetrics.increment(Counter.CHECKMATE_TEST);
 		if (!testCheck(color)) {
 			return false;
 		}
-		List<Piece> alliedPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color)
-				.collect(Collectors.toList());
-		for (Piece ally : alliedPieces) {
-			boolean[][] matrix = ally.possibleMoves();
-			for (int row = 0; row < board.getRows(); row++) {
-				for (int column = 0; column < board.getColumns(); column++) {
-					if (matrix[row][column]) { // matrix[row][column] == true
-						Position source = ((ChessPiece) ally).getChessPosition().toPosition();
-						Position target = new Position(row, column);
-						Piece capturedPiece = makeMove(source, target);
-						boolean testCheck = testCheck(color);
-						undoMove(source, target, capturedPiece);
-						if (!testCheck) {
-							return false;
-						}
+		return !hasAnyLegalMove(color);
+	}
+
+	/**
+	 * tests whether the player of the color passed as a parameter has at least one
+	 * move that doesn't leave his own king in check, by the
+	 * {@link #scanLegalMoves(Color, MoveList, int, boolean)} method, which stops as
+	 * soon as one of the moves leaves the king out of check. A player without any
+	 * legal move is checkmated if his king is in check, and stalemated otherwise.
+	 * 
+	 * @param color player color
+	 * @return a boolean that if true indicates that the player has a legal move
+	 */
+	private boolean hasAnyLegalMove(Color color) {
+		legalMoveScans++;
+		return scanLegalMoves(color, null, 1, true) > 0;
+	}
+
+	/**
+	 * collects the pieces of the color passed as a parameter into an array that is
+	 * reused by every scan of the legal moves, so the scans don't allocate a new
+	 * list each time. The pieces are copied because the moves tried by the scan
+	 * capture pieces and put them back, which changes the order of the list of
+	 * pieces on the board.
+	 * 
+	 * @param color player color
+	 * @return the number of pieces collected
+	 */
+	private int alliedPieces(Color color) {
+		if (alliedPieces.length < piecesOnTheBoard.size()) {
+			alliedPieces = new Piece[piecesOnTheBoard.size()];
+		}
+		int count = 0;
+		for (int i = 0; i < piecesOnTheBoard.size(); i++) {
+			Piece piece = piecesOnTheBoard.get(i);
+			if (((ChessPiece) piece).getColor() == color) {
+				alliedPieces[count++] = piece;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * scans the moves of the player of the color passed as a parameter that don't
+	 * leave his own king in check. All the pieces of that color are collected by
+	 * the {@link #alliedPieces(Color)} method, and the possible targets of each one
+	 * are read as a long by the
+	 * {@link chess.pieces.MoveGenerator#possibleTargets(ChessPiece)} method, so no
+	 * matrix is allocated. Each possible move is made by the
+	 * {@link #movePieces(Position, Position)} method, the king is tested by the
+	 * {@link #kingAttacked(Color)} method, and the move is undone by the
+	 * {@link #restorePieces(Position, Position, Piece)} method. The scan stops
+	 * once the limit of legal moves is found. The moves tried are added to the
+	 * counters of {@link chess.metrics.ChessMetrics} at once at the end, and only
+	 * if the scan is counted, so a scan made for the flight recorder event of a
+	 * move doesn't change the counters of the recording.
+	 * 
+	 * @param color   player color
+	 * @param list    the list that receives the legal moves, or null
+	 * @param limit   the number of legal moves after which the scan stops
+	 * @param counted whether the moves tried are added to the counters
+	 * @return the number of legal moves found, at most the limit
+	 */
+	private int scanLegalMoves(Color color, MoveList list, int limit, boolean counted) {
+		int allies = alliedPieces(color);
+		int count = 0;
+		int tried = 0;
+		for (int i = 0; i < allies && count < limit; i++) {
+			ChessPiece piece = (ChessPiece) alliedPieces[i];
+			Position source = piece.getPosition();
+			int sourceSquare = source.getRow() * 8 + source.getColumn();
+			boolean pawn = piece.getType() == PieceType.PAWN;
+			long targets = MoveGenerator.possibleTargets(piece);
+			while (targets != 0L && count < limit) {
+				int square = Long.numberOfTrailingZeros(targets);
+				targets &= targets - 1;
+				Position target = Position.of(square / 8, square % 8);
+				Piece capturedPiece = movePieces(source, target);
+				boolean legal = !kingAttacked(color);
+				restorePieces(source, target, capturedPiece);
+				tried++;
+				if (legal) {
+					count++;
+					if (list != null) {
+						list.add(sourceSquare, square, pawn && (square / 8 == 0 || square / 8 == 7));
 					}
 				}
 			}
+		}
+		if (counted) {
+			ChessMetrics.add(Counter.MAKE_MOVE, tried);
+			ChessMetrics.add(Counter.UNDO_MOVE, tried);
+			ChessMetrics.add(Counter.CHECK_TEST, tried);
+		}
+		return count;
+	}
 
+	/**
+	 * tests the rules that end a match in a draw, for the position reached after a
+	 * move, with the next player already being the current player. The match is
+	 * drawn by stalemate if the current player isn't in check and has no legal
+	 * move, by insufficient material if none of the players can checkmate anymore,
+	 * by the fifty-move rule if 100 half-moves were made without a capture or a
+	 * pawn move, and by threefold repetition if the same position occurred for the
+	 * third time.
+	 * 
+	 * @return the draw result, or {@link GameResult#IN_PROGRESS} if the match goes
+	 *         on
+	 */
+	private GameResult testDraw() {
+		if (testInsufficientMaterial()) {
+			return GameResult.INSUFFICIENT_MATERIAL;
+		}
+		if (!check && !hasAnyLegalMove(currentPlayer)) {
+			return GameResult.STALEMATE;
+		}
+		if (halfmoveClock >= 100) {
+			return GameResult.FIFTY_MOVE_RULE;
+		}
+		if (testThreefoldRepetition()) {
+			return GameResult.THREEFOLD_REPETITION;
+		}
+		return GameResult.IN_PROGRESS;
+	}
+
+	/**
+	 * tests whether neither player has enough material to checkmate. This happens
+	 * when there are no pawns, rooks or queens on the board, and either there is
+	 * at most one knight or bishop left, or all the remaining minor pieces are
+	 * bishops standing on squares of the same color. The test only reads the piece
+	 * counters kept up to date by the {@link #putPiece(Piece, Position)} and
+	 * {@link #takePiece(Position)} methods, so it takes constant time.
+	 * 
+	 * @return a boolean that if true indicates that the material is insufficient
+	 */
+	private boolean testInsufficientMaterial() {
+		for (int color = 0; color < 2; color++) {
+			int offset = color * 6;
+			if (pieceCounts[offset + PieceType.QUEEN.ordinal()] > 0 || pieceCounts[offset + PieceType.ROOK.ordinal()] > 0
+					|| pieceCounts[offset + PieceType.PAWN.ordinal()] > 0) {
+				return false;
+			}
+		}
+		int knights = pieceCounts[PieceType.KNIGHT.ordinal()] + pieceCounts[6 + PieceType.KNIGHT.ordinal()];
+		int bishops = pieceCounts[PieceType.BISHOP.ordinal()] + pieceCounts[6 + PieceType.BISHOP.ordinal()];
+		if (knights + bishops <= 1) {
+			return true;
+		}
+		return knights == 0 && (bishopsOnSquareColor[0] == 0 || bishopsOnSquareColor[1] == 0);
+	}
+
+	/**
+	 * tests whether the current position occurred for the third time. Only the
+	 * positions since the last capture or pawn move need to be compared, because
+	 * those moves can't be undone, and only the positions with the same player to
+	 * move, that is, every second position of the history.
+	 * 
+	 * @return a boolean that if true indicates a threefold repetition
+	 */
+	private boolean testThreefoldRepetition() {
+		long hash = positionHashes[plies];
+		int repetitions = 1;
+		int oldest = Math.max(0, plies - halfmoveClock);
+		for (int i = plies - 2; i >= oldest; i -= 2) {
+			if (positionHashes[i] == hash && ++repetitions == 3) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * adds the hash of the current position to the position history.
+	 */
+	private void recordPosition() {
+		plies++;
+		if (plies == positionHashes.length) {
+			positionHashes = Arrays.copyOf(positionHashes, positionHashes.length * 2);
+		}
+		positionHashes[plies] = getPositionHash();
+	}
+
+	/**
+	 * checks whether the king and the rook on the given squares haven't moved yet,
+	 * which is the castling right that is part of the position hash.
+	 */
+	private boolean canCastle(int row, int kingColumn, int rookColumn) {
+		ChessPiece king = (ChessPiece) board.piece(row, kingColumn);
+		ChessPiece rook = (ChessPiece) board.piece(row, rookColumn);
+		return king != null && king.getType() == PieceType.KING && king.getMoveCount() == 0 && rook != null
+				&& rook.getType() == PieceType.ROOK && rook.getMoveCount() == 0
+				&& rook.getColor() == king.getColor();
+	}
+
+	/**
+	 * checks whether there is an opponent pawn beside the pawn vulnerable to en
+	 * passant, that is, whether the en passant capture is really possible.
+	 */
+	private boolean isEnPassantCapturePossible() {
+		Position position = enPassantVulnerable.getPosition();
+		for (int column = position.getColumn() - 1; column <= position.getColumn() + 1; column += 2) {
+			if (column >= 0 && column < board.getColumns()) {
+				ChessPiece p = (ChessPiece) board.piece(position.getRow(), column);
+				if (p != null && p.getType() == PieceType.PAWN && p.getColor() != enPassantVulnerable.getColor()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Puts a piece on the board through the
+	 * {@link boardgame.Board#placePiece(Piece, Position)} method, updating the
+	 * hash of the pieces and the piece counters of the match. Every piece placed by
+	 * the match goes through this method, so the hash and the counters are always
+	 * up to date, and they are restored by undoing the moves, as well. The version
+	 * of the position is increased, which invalidates the moves cached by the
+	 * {@link #cachedMoves(Position)} method.
+	 * 
+	 * @param piece    chess piece
+	 * @param position board position
+	 */
+	private void putPiece(Piece piece, Position position) {
+		board.placePiece(piece, position);
+		positionVersion++;
+		ChessPiece chessPiece = (ChessPiece) piece;
+		piecesHash ^= Zobrist.piece(chessPiece, position.getRow(), position.getColumn());
+		countPiece(chessPiece, position, 1);
+	}
+
+	/**
+	 * Removes a piece from the board through the
+	 * {@link boardgame.Board#removePiece(Position)} method, updating the hash of
+	 * the pieces, the piece counters and the version of the position of the match.
+	 * 
+	 * @param position board position
+	 * @return the piece of the board that was removed, or null
+	 */
+	private Piece takePiece(Position position) {
+		Piece piece = board.removePiece(position);
+		positionVersion++;
+		if (piece != null) {
+			ChessPiece chessPiece = (ChessPiece) piece;
+			piecesHash ^= Zobrist.piece(chessPiece, position.getRow(), position.getColumn());
+			countPiece(chessPiece, position, -1);
+		}
+		return piece;
+	}
+
+	private void countPiece(ChessPiece piece, Position position, int amount) {
+		pieceCounts[(piece.getColor() == Color.WHITE ? 0 : 6) + piece.typeIndex()] += amount;
+		if (piece.getType() == PieceType.BISHOP) {
+			bishopsOnSquareColor[(position.getRow() + position.getColumn()) % 2] += amount;
 		}
-		return true;
 	}
 
 	/**
@@ -553,8 +1379,144 @@ public class ChessMatch {
 	 * @param piece  chess piece
 	 */
 	private void placeNewPiece(char column, int row, ChessPiece piece) {
-		board.placePiece(piece, new ChessPosition(column, row).toPosition());
+		putPiece(piece, ChessPosition.of(column, row).toPosition());
+		piecesOnTheBoard.add(piece);
+	}
+
+	/**
+	 * returns the list of chess pieces captured so far in the match. It's used by
+	 * {@link chess.MatchSnapshot} to write the captured pieces of a match.
+	 *
+	 * @return captured pieces list
+	 */
+	List<Piece> getCapturedPieces() {
+		return capturedPieces;
+	}
+
+	/**
+	 * Creates a chess piece of the type referred by the symbol passed as a
+	 * parameter, and puts it on the board at the given matrix position with the
+	 * given move counter. This method is the counterpart of the
+	 * {@link #placeNewPiece(char, int, ChessPiece)} method, used when a match is
+	 * rebuilt from a snapshot. If the symbol does not refer to any type of chess
+	 * piece, then an IllegalArgumentException will be thrown.
+	 *
+	 * @param type      the chess piece type symbol (K, Q, R, B, H or P)
+	 * @param color     piece color
+	 * @param row       matrix row
+	 * @param column    matrix column
+	 * @param moveCount number of moves already performed by the piece
+	 * @return the restored chess piece
+	 */
+	ChessPiece restorePiece(char type, Color color, int row, int column, int moveCount) {
+		ChessPiece piece = createPiece(type, color);
+		piece.setMoveCount(moveCount);
+		putPiece(piece, Position.of(row, column));
 		piecesOnTheBoard.add(piece);
+		return piece;
+	}
+
+	/**
+	 * Creates a chess piece of the type referred by the symbol passed as a
+	 * parameter and adds it to the captured pieces list, without placing it on the
+	 * board.
+	 *
+	 * @param type  the chess piece type symbol (K, Q, R, B, H or P)
+	 * @param color piece color
+	 */
+	void restoreCapturedPiece(char type, Color color) {
+		capturedPieces.add(createPiece(type, color));
+	}
+
+	/**
+	 * restores the state flags of a match that was rebuilt from a snapshot.
+	 *
+	 * @param check               whether the current player is in check
+	 * @param checkMate           whether the match is over by checkmate
+	 * @param enPassantVulnerable pawn vulnerable to en passant, or null
+	 * @param promoted            piece waiting for promotion replacement, or null
+	 */
+	void restoreState(boolean check, boolean checkMate, ChessPiece enPassantVulnerable, ChessPiece promoted) {
+		this.check = check;
+		this.checkMate = checkMate;
+		this.enPassantVulnerable = enPassantVulnerable;
+		this.promoted = promoted;
+		positionVersion++;
+	}
+
+	/**
+	 * restores the draw rule state of a match that was rebuilt from a snapshot:
+	 * its result, its half-move clock and the hashes of the positions since the
+	 * last capture or pawn move, the last one being the current position.
+	 *
+	 * @param result         match result
+	 * @param halfmoveClock  half-moves since the last capture or pawn move
+	 * @param positionHashes hashes of the positions since the last irreversible
+	 *                       move
+	 */
+	void restoreRules(GameResult result, int halfmoveClock, long[] positionHashes) {
+		this.result = result;
+		this.halfmoveClock = halfmoveClock;
+		this.positionHashes = Arrays.copyOf(positionHashes, Math.max(256, positionHashes.length * 2));
+		plies = positionHashes.length - 1;
+	}
+
+	/**
+	 * computes the check, the checkmate and the result of a match that was rebuilt
+	 * from a description that doesn't include them, such as a FEN record, after
+	 * its pieces, state and rules were restored. As in a match played move by
+	 * move, when the current player is checkmated, the winner becomes the current
+	 * player and the turn goes back to the winner's move.
+	 */
+	void restoreResult() {
+		check = testCheck(currentPlayer);
+		if (check && !hasAnyLegalMove(currentPlayer)) {
+			checkMate = true;
+			currentPlayer = opponent(currentPlayer);
+			turn--;
+			result = GameResult.CHECKMATE;
+		} else {
+			result = testDraw();
+		}
+	}
+
+	/**
+	 * returns the hashes of the positions since the last capture or pawn move,
+	 * which are the only ones needed to detect repetitions from now on.
+	 *
+	 * @return the hashes of the positions, the last one being the current position
+	 */
+	long[] getRepetitionHashes() {
+		int oldest = Math.max(0, plies - halfmoveClock);
+		return Arrays.copyOfRange(positionHashes, oldest, plies + 1);
+	}
+
+	/**
+	 * Will return a new piece of any type given its symbol and its color. Unlike
+	 * {@link #newPiece(String, Color)}, which only knows the pieces a pawn can be
+	 * promoted to, this method also creates kings and pawns.
+	 *
+	 * @param type  the chess piece type symbol (K, Q, R, B, H or P)
+	 * @param color piece color
+	 * @return a new chess piece
+	 */
+	private ChessPiece createPiece(char type, Color color) {
+		switch (type) {
+		case 'K':
+			return new King(board, color, this);
+		case 'Q':
+			return new Queen(board, color);
+		case 'R':
+			return new Rook(board, color);
+		case 'B':
+			return new Bishop(board, color);
+		case 'H':
+			return new Knight(board, color);
+		case 'P':
+			return new Pawn(board, color, this);
+		default:
+			throw new IllegalArgumentException("Unknown chess piece type: " + type);
+		}
 	}
 
 	/**
@@ -1,6 +1,7 @@
 package chess;
 
 import boardgame.Board;
+import boardgame.Mailbox;
 import boardgame.Piece;
 import boardgame.Position;
 
@@ -13,23 +14,41 @@ import boardgame.Position;
  */
 public abstract class ChessPiece extends Piece {
 
+	/**
+	 * symbols of the chess piece types, in the order of their type index
+	 */
+	static final String TYPE_SYMBOLS = "KQRBHP";
+
+	/**
+	 * bit of the mailbox codes of the black pieces
+	 */
+	private static final int BLACK_CODE = 8;
+
 	private Color color;
+	private PieceType type;
 	private int moveCount;
 
 	/**
-	 * creates a chess piece, which is associated with a board and has a color
+	 * creates a chess piece, which is associated with a board, has a color and is
+	 * of one of the types of chess pieces
 	 * 
 	 * @param board chessboard
 	 * @param color piece color
+	 * @param type  piece type
 	 */
-	public ChessPiece(Board board, Color color) {
+	protected ChessPiece(Board board, Color color, PieceType type) {
 		super(board);
 		this.color = color;
+		this.type = type;
 	}
 
 	public Color getColor() {
 		return color;
 	}
+
+	public PieceType getType() {
+		return type;
+	}
 	
 	public int getMoveCount() {
 		return moveCount;
@@ -43,6 +62,33 @@ public abstract class ChessPiece extends Piece {
 		moveCount--;
 	}
 
+	void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+
+	/**
+	 * returns the index of the type of this chess piece, that is, the position of
+	 * its symbol in {@link #TYPE_SYMBOLS}: 0 for king, 1 for queen, 2 for rook, 3
+	 * for bishop, 4 for knight and 5 for pawn, which is the ordinal of its
+	 * {@link chess.PieceType}.
+	 * 
+	 * @return the type index of the chess piece
+	 */
+	int typeIndex() {
+		return type.ordinal();
+	}
+
+	/**
+	 * returns the code of the chess piece in the mailbox of the board: the type
+	 * index plus one (from 1 for king to 6 for pawn), plus 8 for the black pieces.
+	 * 
+	 * @return the code of the chess piece
+	 */
+	@Override
+	public byte getCode() {
+		return (byte) (typeIndex() + 1 + (color == Color.BLACK ? BLACK_CODE : 0));
+	}
+
 	/**
 	 * returns the position of the chess piece in chess coordinate format. Thus, it
 	 * converts the position type through the static method
@@ -54,6 +100,14 @@ public abstract class ChessPiece extends Piece {
 		return ChessPosition.fromPosition(position);
 	}
 
+	/**
+	 * @return the position of the piece on the board, without converting it to
+	 *         the chess coordinate format
+	 */
+	Position getPosition() {
+		return position;
+	}
+
 	/**
 	 * This method is intended to check if there is an opposing piece in a desired
 	 * position. For this, a chess piece contained in the desired position will be
@@ -73,4 +127,129 @@ public abstract class ChessPiece extends Piece {
 		return p != null && p.getColor() != color;
 	}
 
+	/**
+	 * returns the possible moves of the piece as a set of target squares in a
+	 * long, where the bit row * 8 + column is set for each position marked as true
+	 * by the {@link boardgame.Piece#possibleMoves()} method. This implementation
+	 * reads the matrix, so it still allocates one; the pieces override it to read
+	 * the squares straight from the tables of {@link chess.pieces.AttackTables},
+	 * and fall back to it only when the board keeps a {@link boardgame.Mailbox}.
+	 * 
+	 * @return the target squares of the possible moves of the piece
+	 */
+	public long possibleTargets() {
+		boolean[][] matrix = possibleMoves();
+		long targets = 0L;
+		for (int row = 0; row < matrix.length; row++) {
+			for (int column = 0; column < matrix[row].length; column++) {
+				if (matrix[row][column]) {
+					targets |= 1L << (row * 8 + column);
+				}
+			}
+		}
+		return targets;
+	}
+
+	/**
+	 * removes, from the target squares passed as a parameter, the squares that
+	 * contain a piece of the same color. Only the occupied target squares are read
+	 * from the board.
+	 * 
+	 * @param targets the target squares, as the bits row * 8 + column of a long
+	 * @return the target squares that are empty or contain an opponent piece
+	 */
+	protected long withoutAllies(long targets) {
+		long occupied = targets & getBoard().getOccupancy();
+		while (occupied != 0L) {
+			int target = Long.numberOfTrailingZeros(occupied);
+			occupied &= occupied - 1;
+			if (((ChessPiece) getBoard().piece(target / 8, target % 8)).getColor() == color) {
+				targets &= ~(1L << target);
+			}
+		}
+		return targets;
+	}
+
+	/**
+	 * marks as possible moves, in the matrix passed as a parameter, the target
+	 * squares of the piece that don't contain a piece of the same color. The
+	 * targets are a set of squares in a long, as read from the tables of
+	 * {@link chess.pieces.AttackTables}, and each one is visited with
+	 * {@link Long#numberOfTrailingZeros(long)}, so only the target squares are
+	 * read from the board.
+	 * 
+	 * @param matrix  the possible moves of the piece
+	 * @param targets the target squares, as the bits row * 8 + column of a long
+	 */
+	protected void markMoves(boolean[][] matrix, long targets) {
+		while (targets != 0L) {
+			int target = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			ChessPiece p = (ChessPiece) getBoard().piece(target / 8, target % 8);
+			if (p == null || p.getColor() != color) {
+				matrix[target / 8][target % 8] = true;
+			}
+		}
+	}
+
+	/**
+	 * marks as possible moves, in the matrix passed as a parameter, the positions
+	 * reached by sliding along each of the directions passed as parameters,
+	 * walking the {@link boardgame.Mailbox} of the board: the empty cells are
+	 * marked, and the walk stops at the first occupied or sentinel cell, which is
+	 * also marked if it holds an opponent piece. The board must keep a mailbox.
+	 * 
+	 * @param matrix     the possible moves of the piece
+	 * @param directions the directions, as pairs of row and column steps
+	 */
+	protected void markSlides(boolean[][] matrix, int[][] directions) {
+		Mailbox mailbox = getBoard().getMailbox();
+		int from = mailbox.index(position.getRow(), position.getColumn());
+		for (int[] direction : directions) {
+			int offset = mailbox.offset(direction[0], direction[1]);
+			int index = from + offset;
+			byte code;
+			while ((code = mailbox.get(index)) == Mailbox.EMPTY) {
+				matrix[mailbox.row(index)][mailbox.column(index)] = true;
+				index += offset;
+			}
+			if (code != Mailbox.OFF_BOARD && isOpponentCode(code)) {
+				matrix[mailbox.row(index)][mailbox.column(index)] = true;
+			}
+		}
+	}
+
+	/**
+	 * marks as possible moves, in the matrix passed as a parameter, the positions
+	 * reached by a single step of each of the offsets passed as parameters, using
+	 * the {@link boardgame.Mailbox} of the board, if they are empty or hold an
+	 * opponent piece. The board must keep a mailbox.
+	 * 
+	 * @param matrix the possible moves of the piece
+	 * @param steps  the steps, as pairs of row and column offsets
+	 */
+	protected void markSteps(boolean[][] matrix, int[][] steps) {
+		Mailbox mailbox = getBoard().getMailbox();
+		int from = mailbox.index(position.getRow(), position.getColumn());
+		for (int[] step : steps) {
+			int index = from + mailbox.offset(step[0], step[1]);
+			byte code = mailbox.get(index);
+			if (code == Mailbox.EMPTY || (code != Mailbox.OFF_BOARD && isOpponentCode(code))) {
+				matrix[mailbox.row(index)][mailbox.column(index)] = true;
+			}
+		}
+	}
+
+	private boolean isOpponentCode(byte code) {
+		return (code & BLACK_CODE) != (color == Color.BLACK ? BLACK_CODE : 0);
+	}
+
+	/**
+	 * @return the square of the piece, row * 8 + column, as used by
+	 *         {@link chess.pieces.AttackTables}
+	 */
+	protected int square() {
+		return position.getRow() * 8 + position.getColumn();
+	}
+
 }
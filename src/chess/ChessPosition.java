@@ -9,14 +9,28 @@ import boardgame.Position;
  * position that was accessed by the indices of the dimensions of the array.
  * However, the chess position is accessed firstly by a column, which is
  * represented by a letter (from left to right, from a to h) and secondly by a
- * row, which are represented by numbers (from bottom to top, from 1 to 8 )
+ * row, which are represented by numbers (from bottom to top, from 1 to 8 ).
+ * A chess position is immutable, and the 64 positions from a1 to h8 are created
+ * once, so the {@link #of(char, int)}, {@link #fromSquare(int)} and
+ * {@link #parse(String)} methods, and the conversions done by the chess match,
+ * return these shared instances instead of allocating new ones. The squares
+ * used by the engine are numbered row * 8 + column of the board matrix, so a8
+ * is square 0 and h1 is square 63.
  * 
  * @author Joo Victor
  */
 public class ChessPosition {
 
-	private char column;
-	private int row;
+	private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			SQUARES[square] = new ChessPosition((char) ('a' + square % 8), 8 - square / 8);
+		}
+	}
+
+	private final char column;
+	private final int row;
 
 	/**
 	 * generates a position that contains a column and a row (the representation of
@@ -34,6 +48,50 @@ public class ChessPosition {
 		this.row = row;
 	}
 
+	/**
+	 * returns the shared instance of a chess position. If the column or the row
+	 * are out of the board, then a ChessException will be thrown, as in the
+	 * constructor.
+	 * 
+	 * @param column chess position column, from a to h
+	 * @param row    chess position row, from 1 to 8
+	 * @return the chess position
+	 */
+	public static ChessPosition of(char column, int row) {
+		if (column < 'a' || column > 'h' || row < 1 || row > 8) {
+			throw new ChessException("Error instantiating ChessPosition. Valid values are from a1 to h8");
+		}
+		return SQUARES[(8 - row) * 8 + (column - 'a')];
+	}
+
+	/**
+	 * returns the shared instance of the chess position of a square, without any
+	 * validation, for the internal paths where the square is known to be on the
+	 * board.
+	 * 
+	 * @param square a square, row * 8 + column of the board matrix
+	 * @return the chess position
+	 */
+	public static ChessPosition fromSquare(int square) {
+		return SQUARES[square];
+	}
+
+	/**
+	 * reads a chess position written as a column letter and a row digit, such as
+	 * "e4", by looking at the two characters, without creating substrings or
+	 * parsing numbers. If the text isn't a valid position, then a ChessException
+	 * will be thrown.
+	 * 
+	 * @param text the position, for example "e4"
+	 * @return the chess position
+	 */
+	public static ChessPosition parse(String text) {
+		if (text.length() != 2) {
+			throw new ChessException("Error reading ChessPosition. Valid values are from a1 to h8");
+		}
+		return of(text.charAt(0), text.charAt(1) - '0');
+	}
+
 	public char getColumn() {
 		return column;
 	}
@@ -42,6 +100,13 @@ public class ChessPosition {
 		return row;
 	}
 
+	/**
+	 * @return the square of the position, row * 8 + column of the board matrix
+	 */
+	public int getSquare() {
+		return (8 - row) * 8 + (column - 'a');
+	}
+
 	/**
 	 * Converts a ChessPosition to a Position. For example, we have that a
 	 * ChessPosition a8 (column, row) would correspond to a Position 0, 0 (row,
@@ -52,25 +117,27 @@ public class ChessPosition {
 	 * column. ChessPosition b8 corresponds to Position 0, 1. So we conclude that by
 	 * subtracting the unicode code of the ChessPosition Column from the unicode
 	 * code of the character a, we will obtain the index of the column of the
-	 * matrix.
+	 * matrix. The position is one of the shared instances returned by
+	 * {@link boardgame.Position#of(int, int)}, so nothing is allocated.
 	 * 
 	 * @return a ChessPosition converted to Position
 	 */
 	protected Position toPosition() {
-		return new Position(8 - row, column - 'a');
+		return Position.of(8 - row, column - 'a');
 	}
 
 	/**
 	 * Converts a Position to ChessPosition. It will perform the exact opposite
 	 * procedure from toPosition. The column ChessPosition will be determined by
 	 * ('a' + column Position) and the row ChessPosition will be determined by (8 -
-	 * row Position)
+	 * row Position). The position is one of the shared instances, and as the
+	 * positions of the pieces are always on the board, it isn't validated again
 	 * 
 	 * @param position board position
 	 * @return a Position converted to ChessPosition
 	 */
 	protected static ChessPosition fromPosition(Position position) {
-		return new ChessPosition((char) ('a' + position.getColumn()), 8 - position.getRow());
+		return SQUARES[position.getRow() * 8 + position.getColumn()];
 	}
 
 	/**
@@ -85,4 +152,21 @@ public class ChessPosition {
 		return "" + column + row;
 	}
 
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ChessPosition)) {
+			return false;
+		}
+		ChessPosition other = (ChessPosition) obj;
+		return column == other.column && row == other.row;
+	}
+
+	@Override
+	public int hashCode() {
+		return getSquare();
+	}
+
 }
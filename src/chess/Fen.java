@@ -0,0 +1,217 @@
+package chess;
+
+/**
+ * This class reads and writes chess positions in the Forsyth-Edwards Notation
+ * (FEN), the standard one-line text description of a position, used by the
+ * opening books, the test suites (EPD files) and the chess interfaces. A FEN
+ * record has six fields separated by spaces: the pieces of each rank, from the
+ * eighth to the first, with uppercase letters for the white pieces and digits
+ * for the empty squares; the player to move ("w" or "b"); the castling rights
+ * ("KQkq" or "-"); the en passant target square, which is the square the pawn
+ * that has just moved two squares passed over, or "-"; the half-move clock and
+ * the number of the full move. The last two fields are optional when reading,
+ * as in the EPD files. The knight is written "N", as in the standard, and not
+ * "H", as on the board of this game.
+ * <p>
+ * The match doesn't store the castling rights: a king or a rook can castle if
+ * it has never moved. So when a position is read, the kings and rooks that
+ * can't castle anymore, and the pawns that are not on their initial row, are
+ * restored as pieces that have already moved once.
+ *
+ * @author Joo Victor
+ */
+public final class Fen {
+
+	/**
+	 * FEN of the initial position of a match
+	 */
+	public static final String INITIAL_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	private static final String FEN_SYMBOLS = "KQRBNP";
+
+	private Fen() {
+	}
+
+	/**
+	 * creates a chess match from a position in FEN. If the text isn't a valid
+	 * position, then a ChessException will be thrown.
+	 *
+	 * @param fen the position in FEN
+	 * @return a chess match in the position, with no move history
+	 */
+	public static ChessMatch read(String fen) {
+		String[] fields = fen.trim().split("\\s+");
+		if (fields.length < 4) {
+			throw new ChessException("Invalid FEN, missing fields: " + fen);
+		}
+		String[] ranks = fields[0].split("/");
+		if (ranks.length != 8) {
+			throw new ChessException("Invalid FEN, expected 8 ranks: " + fen);
+		}
+		Color currentPlayer;
+		if (fields[1].equals("w")) {
+			currentPlayer = Color.WHITE;
+		} else if (fields[1].equals("b")) {
+			currentPlayer = Color.BLACK;
+		} else {
+			throw new ChessException("Invalid FEN, unknown player to move: " + fields[1]);
+		}
+		String castling = fields[2];
+		int halfmoveClock = fields.length > 4 ? parseNumber(fields[4], fen) : 0;
+		int fullmove = fields.length > 5 ? Math.max(1, parseNumber(fields[5], fen)) : 1;
+		int turn = 2 * (fullmove - 1) + (currentPlayer == Color.WHITE ? 1 : 2);
+
+		ChessMatch chessMatch = new ChessMatch(turn, currentPlayer);
+		int whiteKings = 0;
+		int blackKings = 0;
+		for (int row = 0; row < 8; row++) {
+			int column = 0;
+			for (char symbol : ranks[row].toCharArray()) {
+				if (symbol >= '1' && symbol <= '8') {
+					column += symbol - '0';
+					continue;
+				}
+				int type = FEN_SYMBOLS.indexOf(Character.toUpperCase(symbol));
+				if (type < 0 || column > 7) {
+					throw new ChessException("Invalid FEN, bad rank: " + ranks[row]);
+				}
+				Color color = Character.isUpperCase(symbol) ? Color.WHITE : Color.BLACK;
+				char pieceType = ChessPiece.TYPE_SYMBOLS.charAt(type);
+				if (pieceType == 'K') {
+					if (color == Color.WHITE) {
+						whiteKings++;
+					} else {
+						blackKings++;
+					}
+				}
+				int moveCount = hasMoved(pieceType, color, row, column, castling) ? 1 : 0;
+				chessMatch.restorePiece(pieceType, color, row, column, moveCount);
+				column++;
+			}
+			if (column != 8) {
+				throw new ChessException("Invalid FEN, bad rank: " + ranks[row]);
+			}
+		}
+		if (whiteKings != 1 || blackKings != 1) {
+			throw new ChessException("Invalid FEN, each player must have one king: " + fen);
+		}
+
+		ChessPiece enPassantVulnerable = null;
+		if (!fields[3].equals("-")) {
+			ChessPiece[][] pieces = chessMatch.getPieces();
+			int column = fields[3].charAt(0) - 'a';
+			int row = currentPlayer == Color.WHITE ? 3 : 4;
+			if (fields[3].length() != 2 || column < 0 || column > 7) {
+				throw new ChessException("Invalid FEN, bad en passant square: " + fields[3]);
+			}
+			ChessPiece pawn = pieces[row][column];
+			if (pawn != null && pawn.getType() == PieceType.PAWN && pawn.getColor() != currentPlayer) {
+				enPassantVulnerable = pawn;
+			}
+		}
+		chessMatch.restoreState(false, false, enPassantVulnerable, null);
+		chessMatch.restoreRules(GameResult.IN_PROGRESS, halfmoveClock,
+				new long[] { chessMatch.getPositionHash() });
+		chessMatch.restoreResult();
+		return chessMatch;
+	}
+
+	/**
+	 * writes the current position of a chess match in FEN.
+	 *
+	 * @param chessMatch chess match
+	 * @return the position in FEN
+	 */
+	public static String write(ChessMatch chessMatch) {
+		ChessPiece[][] pieces = chessMatch.getPieces();
+		StringBuilder fen = new StringBuilder(90);
+		for (int row = 0; row < 8; row++) {
+			int empty = 0;
+			for (int column = 0; column < 8; column++) {
+				ChessPiece piece = pieces[row][column];
+				if (piece == null) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					fen.append(empty);
+					empty = 0;
+				}
+				char symbol = FEN_SYMBOLS.charAt(piece.typeIndex());
+				fen.append(piece.getColor() == Color.WHITE ? symbol : Character.toLowerCase(symbol));
+			}
+			if (empty > 0) {
+				fen.append(empty);
+			}
+			if (row < 7) {
+				fen.append('/');
+			}
+		}
+
+		Color player = chessMatch.getCurrentPlayer();
+		if (chessMatch.getCheckMate()) {
+			player = player == Color.WHITE ? Color.BLACK : Color.WHITE;
+		}
+		fen.append(player == Color.WHITE ? " w " : " b ");
+
+		int length = fen.length();
+		appendCastling(fen, pieces, 7, 7, 'K');
+		appendCastling(fen, pieces, 7, 0, 'Q');
+		appendCastling(fen, pieces, 0, 7, 'k');
+		appendCastling(fen, pieces, 0, 0, 'q');
+		if (fen.length() == length) {
+			fen.append('-');
+		}
+
+		ChessPiece enPassantVulnerable = chessMatch.getEnPassantVulnerable();
+		if (enPassantVulnerable != null && enPassantVulnerable.getColor() != player) {
+			ChessPosition position = enPassantVulnerable.getChessPosition();
+			fen.append(' ').append(position.getColumn()).append(player == Color.WHITE ? 6 : 3);
+		} else {
+			fen.append(" -");
+		}
+		int turn = chessMatch.getTurn() + (chessMatch.getCheckMate() ? 1 : 0);
+		fen.append(' ').append(chessMatch.getHalfmoveClock()).append(' ').append((turn + 1) / 2);
+		return fen.toString();
+	}
+
+	/**
+	 * checks whether a piece read from a FEN record must be restored as a piece
+	 * that has already moved: a pawn that isn't on its initial row, and a king or
+	 * rook that has lost the castling rights it would give.
+	 */
+	private static boolean hasMoved(char type, Color color, int row, int column, String castling) {
+		int initialRow = color == Color.WHITE ? 7 : 0;
+		String kingSide = color == Color.WHITE ? "K" : "k";
+		String queenSide = color == Color.WHITE ? "Q" : "q";
+		switch (type) {
+		case 'P':
+			return row != (color == Color.WHITE ? 6 : 1);
+		case 'K':
+			return row != initialRow || column != 4 || (!castling.contains(kingSide) && !castling.contains(queenSide));
+		case 'R':
+			return row != initialRow || !((column == 7 && castling.contains(kingSide))
+					|| (column == 0 && castling.contains(queenSide)));
+		default:
+			return false;
+		}
+	}
+
+	private static void appendCastling(StringBuilder fen, ChessPiece[][] pieces, int row, int rookColumn,
+			char symbol) {
+		ChessPiece king = pieces[row][4];
+		ChessPiece rook = pieces[row][rookColumn];
+		if (king != null && king.getType() == PieceType.KING && king.getMoveCount() == 0 && rook != null
+				&& rook.getType() == PieceType.ROOK && rook.getMoveCount() == 0 && rook.getColor() == king.getColor()) {
+			fen.append(symbol);
+		}
+	}
+
+	private static int parseNumber(String field, String fen) {
+		try {
+			return Integer.parseInt(field);
+		} catch (NumberFormatException e) {
+			throw new ChessException("Invalid FEN, bad number: " + fen);
+		}
+	}
+}
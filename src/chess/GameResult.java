@@ -0,0 +1,43 @@
+package chess;
+
+/**
+ * this enumeration will represent the state of a chess match: whether it is
+ * still in progress, or how it ended. A match ends with a winner by checkmate
+ * or when a player runs out of time on the chess clock, all the other endings
+ * are draws
+ * 
+ * @author Joo Victor
+ */
+public enum GameResult {
+	IN_PROGRESS("in progress"),
+	CHECKMATE("checkmate"),
+	STALEMATE("stalemate"),
+	THREEFOLD_REPETITION("threefold repetition"),
+	FIFTY_MOVE_RULE("fifty-move rule"),
+	INSUFFICIENT_MATERIAL("insufficient material"),
+	TIME_FORFEIT("loss on time");
+
+	private String description;
+
+	private GameResult(String description) {
+		this.description = description;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return true if the match is over, whatever the reason
+	 */
+	public boolean isOver() {
+		return this != IN_PROGRESS;
+	}
+
+	/**
+	 * @return true if the match ended in a draw
+	 */
+	public boolean isDraw() {
+		return this != IN_PROGRESS && this != CHECKMATE && this != TIME_FORFEIT;
+	}
+}
@@ -0,0 +1,208 @@
+package chess;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import boardgame.Piece;
+
+/**
+ * This class converts a chess match to a compact binary snapshot and back. A
+ * snapshot holds only what is needed to continue a match from where it
+ * stopped: the turn, the current player, the check and checkmate states, the
+ * pieces on the board with their move counters, the captured pieces, and which
+ * pieces are vulnerable to en passant or waiting for promotion. Each piece is
+ * written as a single byte containing its type and color, so a snapshot of a
+ * full board takes little more than one hundred bytes. To keep applying the draw
+ * rules, the result, the half-move clock and the hashes of the positions since
+ * the last capture or pawn move are written as well. The move history is not
+ * part of a snapshot, so the moves performed before a match is written can't be
+ * undone in the match that is read back.
+ *
+ * @author Joo Victor
+ */
+public final class MatchSnapshot {
+
+	private static final int FORMAT_VERSION = 2;
+	private static final int NONE = -1;
+
+	private static final int WHITE_TO_MOVE = 1;
+	private static final int CHECK = 2;
+	private static final int CHECK_MATE = 4;
+
+	private MatchSnapshot() {
+	}
+
+	/**
+	 * Writes the snapshot of a chess match to a binary output. The squares of the
+	 * board are written as a single byte index (row * 8 + column), and each piece
+	 * is written as a byte that encodes its type symbol and its color, followed by
+	 * its move counter.
+	 *
+	 * @param chessMatch chess match
+	 * @param out        binary output
+	 * @throws IOException if the output can't be written
+	 */
+	public static void write(ChessMatch chessMatch, DataOutput out) throws IOException {
+		out.writeByte(FORMAT_VERSION);
+		out.writeInt(chessMatch.getTurn());
+		int flags = 0;
+		if (chessMatch.getCurrentPlayer() == Color.WHITE) {
+			flags |= WHITE_TO_MOVE;
+		}
+		if (chessMatch.getCheck()) {
+			flags |= CHECK;
+		}
+		if (chessMatch.getCheckMate()) {
+			flags |= CHECK_MATE;
+		}
+		out.writeByte(flags);
+
+		ChessPiece[][] pieces = chessMatch.getPieces();
+		out.writeByte(square(pieces, chessMatch.getEnPassantVulnerable()));
+		out.writeByte(square(pieces, chessMatch.getPromoted()));
+		out.writeByte(chessMatch.getResult().ordinal());
+		out.writeShort(chessMatch.getHalfmoveClock());
+		long[] hashes = chessMatch.getRepetitionHashes();
+		out.writeShort(hashes.length);
+		for (long hash : hashes) {
+			out.writeLong(hash);
+		}
+		int count = 0;
+		for (ChessPiece[] row : pieces) {
+			for (ChessPiece piece : row) {
+				if (piece != null) {
+					count++;
+				}
+			}
+		}
+		out.writeByte(count);
+		for (int row = 0; row < pieces.length; row++) {
+			for (int column = 0; column < pieces[row].length; column++) {
+				ChessPiece piece = pieces[row][column];
+				if (piece != null) {
+					out.writeByte(row * 8 + column);
+					out.writeByte(code(piece));
+					out.writeShort(piece.getMoveCount());
+				}
+			}
+		}
+
+		out.writeByte(chessMatch.getCapturedPieces().size());
+		for (Piece piece : chessMatch.getCapturedPieces()) {
+			out.writeByte(code((ChessPiece) piece));
+		}
+	}
+
+	/**
+	 * Reads a snapshot written by {@link #write(ChessMatch, DataOutput)} and
+	 * rebuilds the chess match it represents. Snapshots of the first format, which
+	 * had no draw rule state, are read as matches with a new half-move clock. If
+	 * the snapshot was written in an unknown format, an IOException will be
+	 * thrown.
+	 *
+	 * @param in binary input
+	 * @return the rebuilt chess match
+	 * @throws IOException if the input can't be read or isn't a valid snapshot
+	 */
+	public static ChessMatch read(DataInput in) throws IOException {
+		int version = in.readUnsignedByte();
+		if (version < 1 || version > FORMAT_VERSION) {
+			throw new IOException("Unknown snapshot format version: " + version);
+		}
+		int turn = in.readInt();
+		int flags = in.readUnsignedByte();
+		int enPassantSquare = in.readByte();
+		int promotedSquare = in.readByte();
+		GameResult result = GameResult.IN_PROGRESS;
+		int halfmoveClock = 0;
+		long[] hashes = null;
+		if (version >= 2) {
+			int resultIndex = in.readUnsignedByte();
+			if (resultIndex >= GameResult.values().length) {
+				throw new IOException("Invalid result in snapshot: " + resultIndex);
+			}
+			result = GameResult.values()[resultIndex];
+			halfmoveClock = in.readUnsignedShort();
+			hashes = new long[in.readUnsignedShort()];
+			for (int i = 0; i < hashes.length; i++) {
+				hashes[i] = in.readLong();
+			}
+		} else if ((flags & CHECK_MATE) != 0) {
+			result = GameResult.CHECKMATE;
+		}
+
+		Color currentPlayer = (flags & WHITE_TO_MOVE) != 0 ? Color.WHITE : Color.BLACK;
+		ChessMatch chessMatch = new ChessMatch(turn, currentPlayer);
+		ChessPiece enPassantVulnerable = null;
+		ChessPiece promoted = null;
+
+		int count = in.readUnsignedByte();
+		for (int i = 0; i < count; i++) {
+			int square = in.readUnsignedByte();
+			int code = in.readUnsignedByte();
+			int moveCount = in.readUnsignedShort();
+			ChessPiece piece = chessMatch.restorePiece(type(code), color(code), square / 8, square % 8, moveCount);
+			if (square == enPassantSquare) {
+				enPassantVulnerable = piece;
+			}
+			if (square == promotedSquare) {
+				promoted = piece;
+			}
+		}
+
+		int capturedCount = in.readUnsignedByte();
+		for (int i = 0; i < capturedCount; i++) {
+			int code = in.readUnsignedByte();
+			chessMatch.restoreCapturedPiece(type(code), color(code));
+		}
+
+		chessMatch.restoreState((flags & CHECK) != 0, (flags & CHECK_MATE) != 0, enPassantVulnerable, promoted);
+		if (hashes == null || hashes.length == 0) {
+			hashes = new long[] { chessMatch.getPositionHash() };
+		}
+		chessMatch.restoreRules(result, halfmoveClock, hashes);
+		return chessMatch;
+	}
+
+	/**
+	 * returns the square index (row * 8 + column) of a chess piece in the pieces
+	 * matrix, or -1 if the piece is null or is no longer on the board.
+	 */
+	private static int square(ChessPiece[][] pieces, ChessPiece piece) {
+		if (piece != null) {
+			for (int row = 0; row < pieces.length; row++) {
+				for (int column = 0; column < pieces[row].length; column++) {
+					if (pieces[row][column] == piece) {
+						return row * 8 + column;
+					}
+				}
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * encodes a chess piece as the index of its type symbol shifted left, with the
+	 * lowest bit set for white pieces.
+	 */
+	private static int code(ChessPiece piece) {
+		int type = piece.typeIndex();
+		if (type < 0) {
+			throw new IllegalArgumentException("Unknown chess piece type: " + piece);
+		}
+		return type << 1 | (piece.getColor() == Color.WHITE ? 1 : 0);
+	}
+
+	private static char type(int code) throws IOException {
+		int type = code >> 1;
+		if (type >= ChessPiece.TYPE_SYMBOLS.length()) {
+			throw new IOException("Invalid piece code in snapshot: " + code);
+		}
+		return ChessPiece.TYPE_SYMBOLS.charAt(type);
+	}
+
+	private static Color color(int code) {
+		return (code & 1) != 0 ? Color.WHITE : Color.BLACK;
+	}
+}
@@ -0,0 +1,100 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * This class is the move history of a chess match. It's a ring of move records
+ * with a fixed capacity: the ring doubles up to that capacity as the moves are
+ * pushed, and the slots are allocated only once, the first time they are used,
+ * and then reused, so pushing, undoing and redoing a move allocates no memory
+ * once the ring has grown, and always takes amortized constant time. When the
+ * ring is full, the oldest move is forgotten and can no longer be undone. The
+ * moves that were undone stay in the ring after the current move, and can be
+ * redone until a new move is pushed.
+ *
+ * @author Joo Victor
+ */
+class MoveHistory {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private MoveRecord[] records;
+	private int capacity;
+	private int first;
+	private int count;
+	private int available;
+
+	/**
+	 * creates an empty history that can hold the number of moves passed as a
+	 * parameter. The ring starts small and doubles as the moves are pushed, up to
+	 * that capacity, so the matches that never make many moves, such as the
+	 * copies used by the search, don't allocate the whole ring.
+	 *
+	 * @param capacity maximum number of moves that can be undone
+	 */
+	MoveHistory(int capacity) {
+		this.capacity = capacity;
+		records = new MoveRecord[Math.min(capacity, INITIAL_CAPACITY)];
+	}
+
+	boolean canUndo() {
+		return count > 0;
+	}
+
+	boolean canRedo() {
+		return available > count;
+	}
+
+	int size() {
+		return count;
+	}
+
+	/**
+	 * returns the record of a new move at the top of the history, discarding the
+	 * moves that could be redone.
+	 *
+	 * @return the record that must be filled with the new move
+	 */
+	MoveRecord push() {
+		if (count == records.length) {
+			if (records.length < capacity) {
+				// the ring only turns once it is full, so the records still start at 0
+				records = Arrays.copyOf(records, Math.min(capacity, records.length * 2));
+			} else {
+				first = (first + 1) % records.length;
+				count--;
+			}
+		}
+		int index = (first + count) % records.length;
+		if (records[index] == null) {
+			records[index] = new MoveRecord();
+		}
+		count++;
+		available = count;
+		return records[index];
+	}
+
+	/**
+	 * @return the record of the last move, which will be undone
+	 */
+	MoveRecord undo() {
+		count--;
+		return records[(first + count) % records.length];
+	}
+
+	/**
+	 * @return the record of the last undone move, which will be redone
+	 */
+	MoveRecord redo() {
+		MoveRecord record = records[(first + count) % records.length];
+		count++;
+		return record;
+	}
+
+	/**
+	 * @return the record of the last move, or null if there is none
+	 */
+	MoveRecord last() {
+		return count == 0 ? null : records[(first + count - 1) % records.length];
+	}
+}
@@ -0,0 +1,122 @@
+package chess;
+
+/**
+ * This class is a list of the legal moves of a chess match, filled by the
+ * {@link chess.ChessMatch#legalMoves(MoveList)} method. To be cheap enough for
+ * clients that ask for the moves of every position, such as bots, the moves
+ * are not objects but integers kept in an array that is reused each time the
+ * list is filled: the lowest 6 bits hold the index of the source square, the
+ * next 6 bits hold the index of the target square, where the index of a square
+ * is (row * 8 + column) of the board matrix, and the {@link #PROMOTION} bit is
+ * set when the move takes a pawn to the last row. The source and target squares
+ * are encoded in the same way as the moves of {@link chess.engine.Move}.
+ *
+ * @author Joo Victor
+ */
+public final class MoveList {
+
+	/**
+	 * the bit that marks a move that promotes a pawn
+	 */
+	public static final int PROMOTION = 1 << 12;
+
+	/**
+	 * the greatest number of legal moves of a chess position is 218, so a list of
+	 * this capacity never needs to grow
+	 */
+	private static final int CAPACITY = 256;
+
+	private int[] moves = new int[CAPACITY];
+	private int size;
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param index index of a move of the list
+	 * @return the move, as an integer with its source, target and promotion bit
+	 */
+	public int get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+		return moves[index];
+	}
+
+	/**
+	 * @param source source square index
+	 * @param target target square index
+	 * @return true if the list contains a move between the two squares
+	 */
+	public boolean contains(int source, int target) {
+		int move = source | target << 6;
+		for (int i = 0; i < size; i++) {
+			if ((moves[i] & ~PROMOTION) == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	void add(int source, int target, boolean promotion) {
+		moves[size++] = source | target << 6 | (promotion ? PROMOTION : 0);
+	}
+
+	public static int source(int move) {
+		return move & 63;
+	}
+
+	public static int target(int move) {
+		return move >>> 6 & 63;
+	}
+
+	public static boolean isPromotion(int move) {
+		return (move & PROMOTION) != 0;
+	}
+
+	/**
+	 * @param move a move of the list
+	 * @return the source position of the move in chess coordinates
+	 */
+	public static ChessPosition sourcePosition(int move) {
+		return ChessPosition.fromSquare(source(move));
+	}
+
+	/**
+	 * @param move a move of the list
+	 * @return the target position of the move in chess coordinates
+	 */
+	public static ChessPosition targetPosition(int move) {
+		return ChessPosition.fromSquare(target(move));
+	}
+
+	/**
+	 * Outputs the moves of the list in coordinate notation, for example
+	 * "[e2e4, g1f3]", where a promotion is followed by the letter q.
+	 *
+	 * @return a string that shows the moves of the list
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(sourcePosition(moves[i])).append(targetPosition(moves[i]));
+			if (isPromotion(moves[i])) {
+				sb.append('q');
+			}
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,229 @@
+package chess;
+
+import boardgame.Position;
+
+/**
+ * This class records everything that is needed to undo and redo a chess move
+ * performed by {@link chess.ChessMatch#performChessMove(ChessPosition, ChessPosition)}:
+ * the source and target of the move, the moved and captured pieces, the pawn
+ * that was promoted together with the piece that replaced it, and the state of
+ * the match (turn, current player, check, checkmate, en passant vulnerable and
+ * promoted piece) before and after the move. The records are kept and reused by
+ * the move history of the match, so a record must not be stored by the caller,
+ * because its contents change when the history slot is reused.
+ *
+ * @author Joo Victor
+ */
+public class MoveRecord {
+
+	private int sourceRow;
+	private int sourceColumn;
+	private int targetRow;
+	private int targetColumn;
+	private ChessPiece movedPiece;
+	private ChessPiece capturedPiece;
+	private ChessPiece promotedPawn;
+	private ChessPiece promotionPiece;
+
+	private int turnBefore;
+	private Color playerBefore;
+	private boolean checkBefore;
+	private boolean checkMateBefore;
+	private ChessPiece enPassantVulnerableBefore;
+	private ChessPiece promotedBefore;
+	private int halfmoveClockBefore;
+	private GameResult resultBefore;
+
+	private int turnAfter;
+	private Color playerAfter;
+	private boolean checkAfter;
+	private boolean checkMateAfter;
+	private ChessPiece enPassantVulnerableAfter;
+	private ChessPiece promotedAfter;
+	private int halfmoveClockAfter;
+	private GameResult resultAfter;
+
+	MoveRecord() {
+	}
+
+	/**
+	 * @return the source position of the move in chess coordinates
+	 */
+	public ChessPosition getSource() {
+		return ChessPosition.fromSquare(sourceRow * 8 + sourceColumn);
+	}
+
+	/**
+	 * @return the target position of the move in chess coordinates
+	 */
+	public ChessPosition getTarget() {
+		return ChessPosition.fromSquare(targetRow * 8 + targetColumn);
+	}
+
+	public ChessPiece getMovedPiece() {
+		return movedPiece;
+	}
+
+	public ChessPiece getCapturedPiece() {
+		return capturedPiece;
+	}
+
+	/**
+	 * @return the piece that replaced the promoted pawn, or null if the move
+	 *         wasn't a promotion
+	 */
+	public ChessPiece getPromotionPiece() {
+		return promotionPiece;
+	}
+
+	/**
+	 * records the move itself. The promotion is cleared, and is recorded later by
+	 * {@link #recordPromotion(ChessPiece, ChessPiece)} if it happens.
+	 */
+	void recordMove(Position source, Position target, ChessPiece movedPiece, ChessPiece capturedPiece) {
+		sourceRow = source.getRow();
+		sourceColumn = source.getColumn();
+		targetRow = target.getRow();
+		targetColumn = target.getColumn();
+		this.movedPiece = movedPiece;
+		this.capturedPiece = capturedPiece;
+		promotedPawn = null;
+		promotionPiece = null;
+	}
+
+	void recordPromotion(ChessPiece promotedPawn, ChessPiece promotionPiece) {
+		this.promotedPawn = promotedPawn;
+		this.promotionPiece = promotionPiece;
+	}
+
+	void recordStateBefore(int turn, Color player, boolean check, boolean checkMate, ChessPiece enPassantVulnerable,
+			ChessPiece promoted, int halfmoveClock, GameResult result) {
+		turnBefore = turn;
+		playerBefore = player;
+		checkBefore = check;
+		checkMateBefore = checkMate;
+		enPassantVulnerableBefore = enPassantVulnerable;
+		promotedBefore = promoted;
+		halfmoveClockBefore = halfmoveClock;
+		resultBefore = result;
+	}
+
+	void recordStateAfter(int turn, Color player, boolean check, boolean checkMate, ChessPiece enPassantVulnerable,
+			ChessPiece promoted, int halfmoveClock, GameResult result) {
+		turnAfter = turn;
+		playerAfter = player;
+		checkAfter = check;
+		checkMateAfter = checkMate;
+		enPassantVulnerableAfter = enPassantVulnerable;
+		promotedAfter = promoted;
+		halfmoveClockAfter = halfmoveClock;
+		resultAfter = result;
+	}
+
+	/**
+	 * checks whether this record is the promotion of the piece passed as a
+	 * parameter, either because it is the promoted pawn or the piece that
+	 * currently replaces it.
+	 */
+	boolean isPromotionOf(ChessPiece piece) {
+		return piece != null && (piece == promotedPawn || piece == promotionPiece);
+	}
+
+	void replacePromotionPiece(ChessPiece promotionPiece) {
+		this.promotionPiece = promotionPiece;
+	}
+
+	int getSourceRow() {
+		return sourceRow;
+	}
+
+	int getSourceColumn() {
+		return sourceColumn;
+	}
+
+	int getTargetRow() {
+		return targetRow;
+	}
+
+	int getTargetColumn() {
+		return targetColumn;
+	}
+
+	ChessPiece getPromotedPawn() {
+		return promotedPawn;
+	}
+
+	int getTurnBefore() {
+		return turnBefore;
+	}
+
+	Color getPlayerBefore() {
+		return playerBefore;
+	}
+
+	boolean getCheckBefore() {
+		return checkBefore;
+	}
+
+	boolean getCheckMateBefore() {
+		return checkMateBefore;
+	}
+
+	ChessPiece getEnPassantVulnerableBefore() {
+		return enPassantVulnerableBefore;
+	}
+
+	ChessPiece getPromotedBefore() {
+		return promotedBefore;
+	}
+
+	int getHalfmoveClockBefore() {
+		return halfmoveClockBefore;
+	}
+
+	GameResult getResultBefore() {
+		return resultBefore;
+	}
+
+	int getTurnAfter() {
+		return turnAfter;
+	}
+
+	Color getPlayerAfter() {
+		return playerAfter;
+	}
+
+	boolean getCheckAfter() {
+		return checkAfter;
+	}
+
+	boolean getCheckMateAfter() {
+		return checkMateAfter;
+	}
+
+	ChessPiece getEnPassantVulnerableAfter() {
+		return enPassantVulnerableAfter;
+	}
+
+	ChessPiece getPromotedAfter() {
+		return promotedAfter;
+	}
+
+	int getHalfmoveClockAfter() {
+		return halfmoveClockAfter;
+	}
+
+	GameResult getResultAfter() {
+		return resultAfter;
+	}
+
+	/**
+	 * Outputs the move in source-target format, for example "e2e4".
+	 *
+	 * @return a string that shows the source and target of the move
+	 */
+	@Override
+	public String toString() {
+		return "" + (char) ('a' + sourceColumn) + (8 - sourceRow) + (char) ('a' + targetColumn) + (8 - targetRow);
+	}
+}
@@ -0,0 +1,34 @@
+package chess;
+
+/**
+ * this enumeration will represent the type of a chess piece. Every chess piece
+ * carries its type, so the code that treats the types of pieces differently
+ * can switch on the type, which the compiler turns into a jump table, instead
+ * of testing the class of the piece with a chain of instanceof tests. The order
+ * of the types is the order of their symbols in the board of this game, so the
+ * ordinal of a type is the index used by the hashes and the snapshots of the
+ * match
+ * 
+ * @author Joo Victor
+ */
+public enum PieceType {
+	KING('K'),
+	QUEEN('Q'),
+	ROOK('R'),
+	BISHOP('B'),
+	KNIGHT('H'),
+	PAWN('P');
+
+	private char symbol;
+
+	private PieceType(char symbol) {
+		this.symbol = symbol;
+	}
+
+	/**
+	 * @return the symbol of the type on the board, with H for the knight
+	 */
+	public char getSymbol() {
+		return symbol;
+	}
+}
@@ -0,0 +1,55 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the random keys used to compute the hash of a chess
+ * position (Zobrist hashing). There is one key for each type and color of piece
+ * on each square of the board, one key for the player to move, one for each
+ * castling right and one for each column where an en passant capture is
+ * possible. The hash of a position is the exclusive or of the keys of
+ * everything that is present in it, so it can be updated incrementally when a
+ * piece is placed or removed. The keys are generated from a fixed seed, so the
+ * hash of a position is the same in every run of the program.
+ * 
+ * @author Joo Victor
+ */
+final class Zobrist {
+
+	private static final long SEED = 0x5EED_C4E55L;
+
+	private static final long[] PIECE_SQUARE = new long[2 * 6 * 64];
+	static final long BLACK_TO_MOVE;
+	static final long[] CASTLING = new long[4];
+	static final long[] EN_PASSANT_COLUMN = new long[8];
+
+	static {
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (int i = 0; i < PIECE_SQUARE.length; i++) {
+			PIECE_SQUARE[i] = random.nextLong();
+		}
+		BLACK_TO_MOVE = random.nextLong();
+		for (int i = 0; i < CASTLING.length; i++) {
+			CASTLING[i] = random.nextLong();
+		}
+		for (int i = 0; i < EN_PASSANT_COLUMN.length; i++) {
+			EN_PASSANT_COLUMN[i] = random.nextLong();
+		}
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * returns the key of a chess piece on a square of the board.
+	 * 
+	 * @param piece  chess piece
+	 * @param row    matrix row
+	 * @param column matrix column
+	 * @return the key of the piece on the square
+	 */
+	static long piece(ChessPiece piece, int row, int column) {
+		int color = piece.getColor() == Color.WHITE ? 0 : 1;
+		return PIECE_SQUARE[((color * 6 + piece.typeIndex()) << 6) + row * 8 + column];
+	}
+}
@@ -0,0 +1,63 @@
+package chess.engine;
+
+/**
+ * This class holds one line of a multi-PV analysis: its rank among the lines
+ * of the analysis, starting at 1 for the best one, its score in centipawns from
+ * the point of view of the player to move, and its principal variation, the
+ * sequence of moves expected from both players, read from the transposition
+ * table, whose first move is the move of the line.
+ * 
+ * @author Joo Victor
+ */
+public class AnalysisLine {
+
+	private int rank;
+	private int score;
+	private int[] moves;
+
+	public AnalysisLine(int rank, int score, int[] moves) {
+		this.rank = rank;
+		this.score = score;
+		this.moves = moves.clone();
+	}
+
+	public int getRank() {
+		return rank;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return the first move of the line, or {@link chess.engine.Move#NONE} if
+	 *         the line has no moves
+	 */
+	public int getMove() {
+		return moves.length > 0 ? moves[0] : Move.NONE;
+	}
+
+	/**
+	 * @return the moves of the principal variation of the line
+	 */
+	public int[] getMoves() {
+		return moves.clone();
+	}
+
+	/**
+	 * @return true if the score of the line is a mate score
+	 */
+	public boolean isMateScore() {
+		return Math.abs(score) >= Engine.MATE - SearchLimits.MAX_DEPTH * 2;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("multipv ").append(rank).append(" score ").append(score).append(" pv");
+		for (int move : moves) {
+			sb.append(' ').append(Move.toString(move));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,23 @@
+package chess.engine;
+
+/**
+ * This interface receives the progress of a multi-PV analysis of the engine,
+ * see {@link chess.engine.Engine#analyse(chess.ChessMatch, int, SearchLimits,
+ * AnalysisListener)}: it is notified each time all the lines of a depth are
+ * completed, with the lines found at that depth. It is called from the thread
+ * that performs the analysis, so it must return quickly. To stop the analysis,
+ * for example when the time it may spend is over, the listener can call the
+ * {@link chess.engine.Engine#stop()} method, and the analysis returns the
+ * result it was given.
+ * 
+ * @author Joo Victor
+ */
+public interface AnalysisListener {
+
+	/**
+	 * is called when all the lines of a depth of the analysis are completed.
+	 * 
+	 * @param result the lines, counters and times of the completed depth
+	 */
+	void depthCompleted(AnalysisResult result);
+}
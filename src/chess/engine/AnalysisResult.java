@@ -0,0 +1,67 @@
+package chess.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds the result of a depth of a multi-PV analysis of the engine:
+ * the depth completed, the lines found at that depth, the best one first, the
+ * number of nodes searched since the start of the analysis, the time spent on
+ * that depth alone and the time spent since the start of the analysis.
+ * 
+ * @author Joo Victor
+ */
+public class AnalysisResult {
+
+	private int depth;
+	private List<AnalysisLine> lines;
+	private long nodes;
+	private long depthTimeMillis;
+	private long timeMillis;
+
+	public AnalysisResult(int depth, List<AnalysisLine> lines, long nodes, long depthTimeMillis, long timeMillis) {
+		this.depth = depth;
+		this.lines = Collections.unmodifiableList(lines);
+		this.nodes = nodes;
+		this.depthTimeMillis = depthTimeMillis;
+		this.timeMillis = timeMillis;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public List<AnalysisLine> getLines() {
+		return lines;
+	}
+
+	/**
+	 * @return the best line of the analysis, or null if there are no lines
+	 */
+	public AnalysisLine getBestLine() {
+		return lines.isEmpty() ? null : lines.get(0);
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getDepthTimeMillis() {
+		return depthTimeMillis;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("depth ").append(depth).append(" nodes ").append(nodes).append(" depthtime ")
+				.append(depthTimeMillis).append(" time ").append(timeMillis);
+		for (AnalysisLine line : lines) {
+			sb.append(System.lineSeparator()).append(line);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,677 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.GameResult;
+import chess.PieceType;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
+import chess.metrics.SearchIterationEvent;
+import chess.pieces.MoveGenerator;
+
+/**
+ * This class is the chess engine. It finds the best move of the current
+ * position of a chess match with an alpha-beta search (negamax), repeated with
+ * increasing depths (iterative deepening) until one of the search limits is
+ * reached. The positions at the end of the search are resolved by a search of
+ * the captures only (quiescence search), so that the evaluation is not made in
+ * the middle of an exchange of pieces. The results are kept in a
+ * {@link chess.engine.TranspositionTable}, which also provides the best move of
+ * the previous iteration to be searched first. The search is performed on a
+ * copy of the chess match, so the match passed to the engine is never changed,
+ * and the search can be stopped at any time from another thread by the
+ * {@link #stop()} method.
+ * <p>
+ * Each iteration is recorded as a {@link chess.metrics.SearchIterationEvent}
+ * by the JDK Flight Recorder, when a recording is running.
+ * <p>
+ * Besides the best move, the engine can analyse the best lines of a position
+ * (multi-PV analysis), each one searched with the moves of the better lines
+ * left out at the root, and report them each time a depth is completed.
+ *
+ * @author Joo Victor
+ */
+public class Engine {
+
+	public static final int MATE = 30000;
+	private static final int INFINITY = 32000;
+	private static final int MAX_MOVES = 256;
+	private static final int MAX_PLY = SearchLimits.MAX_DEPTH + 32;
+	private static final int TIME_CHECK_MASK = 63;
+
+	private TranspositionTable table;
+	private Evaluator evaluator = new Evaluator();
+	private TimeManager timeManager = new TimeManager();
+	private SearchListener listener;
+	private int startDepth = 1;
+
+	private volatile boolean stopped;
+	private volatile boolean searching;
+	private volatile Color searchPlayer;
+	private volatile int searchTurn;
+	private long nodeLimit;
+	private long nodes;
+	private long tableProbes;
+	private long tableHits;
+	private int rootMove;
+	private int[] excludedMoves = new int[MAX_MOVES];
+	private int excludedCount;
+
+	private int[][] moves = new int[MAX_PLY][MAX_MOVES];
+	private int[][] moveScores = new int[MAX_PLY][MAX_MOVES];
+
+	/**
+	 * creates an engine with a transposition table of 16 megabytes.
+	 */
+	public Engine() {
+		this(16);
+	}
+
+	/**
+	 * creates an engine with a transposition table of the size passed as a
+	 * parameter.
+	 *
+	 * @param hashMegabytes size of the transposition table in megabytes
+	 */
+	public Engine(int hashMegabytes) {
+		this(new TranspositionTable(hashMegabytes));
+	}
+
+	/**
+	 * creates an engine that uses the transposition table passed as a parameter,
+	 * which may be shared with other engines searching in other threads.
+	 *
+	 * @param table transposition table
+	 */
+	public Engine(TranspositionTable table) {
+		this.table = table;
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	public TimeManager getTimeManager() {
+		return timeManager;
+	}
+
+	public Evaluator getEvaluator() {
+		return evaluator;
+	}
+
+	/**
+	 * replaces the evaluation of the positions, for example by a subclass of
+	 * {@link chess.engine.Evaluator} to be compared with the original one in a
+	 * tournament.
+	 *
+	 * @param evaluator evaluation of the positions
+	 */
+	public void setEvaluator(Evaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+
+	public SearchListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * @param listener listener notified after each iteration of the search, or
+	 *                 null
+	 */
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * sets the depth of the first iteration of the search. Starting the helper
+	 * engines of a parallel search at different depths makes them search different
+	 * parts of the tree at the same time.
+	 *
+	 * @param startDepth depth of the first iteration
+	 */
+	public void setStartDepth(int startDepth) {
+		this.startDepth = Math.max(1, Math.min(startDepth, SearchLimits.MAX_DEPTH));
+	}
+
+	/**
+	 * @return the number of nodes searched so far by the current or last search
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * clears the node counter before a search, so that the counters read by other
+	 * threads never include the nodes of the previous search.
+	 */
+	void resetNodes() {
+		nodes = 0;
+	}
+
+	/**
+	 * stops the search in progress as soon as possible. The search returns the
+	 * best move found so far.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * @return true while a search is in progress
+	 */
+	public boolean isSearching() {
+		return searching;
+	}
+
+	/**
+	 * gives new limits to the search in progress, counted from the start time
+	 * passed as a parameter, which allows an infinite search, such as a ponder
+	 * search, to become a timed one.
+	 *
+	 * @param limits     the new search limits
+	 * @param startNanos the value of {@link System#nanoTime()} from which the time
+	 *                   limits are counted
+	 */
+	public void ponderHit(SearchLimits limits, long startNanos) {
+		timeManager.start(limits, searchPlayer, searchTurn, startNanos);
+	}
+
+	/**
+	 * Searches the best move for the current player of a chess match, within the
+	 * limits passed as a parameter. The search is performed on a copy of the match.
+	 * If the match is already over, the result will have no best move.
+	 *
+	 * @param chessMatch chess match
+	 * @param limits     search limits
+	 * @return the result of the search
+	 */
+	public SearchResult search(ChessMatch chessMatch, SearchLimits limits) {
+		long start = System.nanoTime();
+		ChessMatch position = startSearch(chessMatch, limits, start);
+		try {
+			int bestMove = Move.NONE;
+			int bestScore = 0;
+			int completedDepth = 0;
+			if (!position.getResult().isOver()) {
+				for (int depth = Math.min(startDepth, limits.getDepth()); depth <= limits.getDepth(); depth++) {
+					SearchIterationEvent event = new SearchIterationEvent();
+					event.begin();
+					long iterationStart = System.nanoTime();
+					long iterationNodes = nodes;
+					long iterationProbes = tableProbes;
+					long iterationHits = tableHits;
+					rootMove = Move.NONE;
+					int score = search(position, depth, -INFINITY, INFINITY, 0);
+					event.end();
+					if (event.shouldCommit()) {
+						commitIteration(event, depth, score, nodes - iterationNodes, tableProbes - iterationProbes,
+								tableHits - iterationHits, System.nanoTime() - iterationStart);
+					}
+					if (stopped) {
+						break;
+					}
+					bestMove = rootMove;
+					bestScore = score;
+					completedDepth = depth;
+					if (listener != null) {
+						listener.iterationCompleted(new SearchResult(bestMove, ponderMove(position, bestMove), score,
+								depth, nodes, (System.nanoTime() - start) / 1_000_000));
+					}
+					if (Math.abs(score) >= MATE - depth
+							|| !timeManager.continueIterating(bestMove, System.nanoTime())) {
+						break;
+					}
+				}
+				if (bestMove == Move.NONE) {
+					bestMove = firstLegalMove(position);
+				}
+			}
+			int ponderMove = ponderMove(position, bestMove);
+			ChessMetrics.add(Counter.NODES, nodes & TIME_CHECK_MASK);
+			long end = System.nanoTime();
+			timeManager.finish(end);
+			long elapsed = (end - start) / 1_000_000;
+			return new SearchResult(bestMove, ponderMove, bestScore, completedDepth, nodes, elapsed);
+		} finally {
+			searching = false;
+		}
+	}
+
+	/**
+	 * Analyses the best lines of the current player of a chess match, within the
+	 * limits passed as a parameter (multi-PV analysis). At each depth of the
+	 * iterative deepening, the position is searched once for each line: the
+	 * first search finds the best move, and each of the next ones leaves out, at
+	 * the root, the moves of the lines already found, so it finds the best of the
+	 * remaining moves. All the searches share the transposition table of the
+	 * engine, so each line is ordered by what the others found. When all the
+	 * lines of a depth are completed, they are sorted by score and given to the
+	 * listener, so the caller receives the analysis as it deepens, instead of
+	 * waiting for the end. The analysis is performed on a copy of the match and
+	 * can be cancelled from another thread, or from the listener itself, by the
+	 * {@link #stop()} method; a depth interrupted this way is discarded. As in the
+	 * search of the best move, the analysis also ends when the best line is a mate
+	 * found within the depth, or when the time manager has no time left. The
+	 * number of lines is limited by the number of legal moves of the position,
+	 * and if the match is already over, the result will have no lines.
+	 *
+	 * @param chessMatch chess match
+	 * @param lines      number of lines to be analysed
+	 * @param limits     search limits
+	 * @param listener   listener notified after each depth, or null
+	 * @return the result of the last depth completed
+	 */
+	public AnalysisResult analyse(ChessMatch chessMatch, int lines, SearchLimits limits,
+			AnalysisListener listener) {
+		if (lines < 1) {
+			throw new IllegalArgumentException("Invalid number of lines: " + lines);
+		}
+		long start = System.nanoTime();
+		ChessMatch position = startSearch(chessMatch, limits, start);
+		try {
+			AnalysisResult result = new AnalysisResult(0, new ArrayList<>(), 0, 0, 0);
+			int lineCount = Math.min(lines, position.legalMoves().size());
+			int[] scores = new int[lineCount];
+			int[][] variations = new int[lineCount][];
+			for (int depth = Math.min(startDepth, limits.getDepth()); depth <= limits.getDepth()
+					&& lineCount > 0; depth++) {
+				long depthStart = System.nanoTime();
+				excludedCount = 0;
+				while (excludedCount < lineCount) {
+					rootMove = Move.NONE;
+					int score = search(position, depth, -INFINITY, INFINITY, 0);
+					if (stopped) {
+						break;
+					}
+					// the variation is read now, before the next lines replace its entries of the table
+					scores[excludedCount] = score;
+					variations[excludedCount] = principalVariation(position, rootMove, depth);
+					excludedMoves[excludedCount++] = rootMove;
+				}
+				excludedCount = 0;
+				if (stopped) {
+					break;
+				}
+				List<AnalysisLine> found = new ArrayList<>(lineCount);
+				for (int i = 0; i < lineCount; i++) {
+					int best = i;
+					for (int j = i + 1; j < lineCount; j++) {
+						if (scores[j] > scores[best]) {
+							best = j;
+						}
+					}
+					int score = scores[best];
+					int[] variation = variations[best];
+					scores[best] = scores[i];
+					variations[best] = variations[i];
+					scores[i] = score;
+					variations[i] = variation;
+					found.add(new AnalysisLine(i + 1, score, variation));
+				}
+				long now = System.nanoTime();
+				result = new AnalysisResult(depth, found, nodes, (now - depthStart) / 1_000_000,
+						(now - start) / 1_000_000);
+				if (listener != null) {
+					listener.depthCompleted(result);
+				}
+				if (stopped || Math.abs(scores[0]) >= MATE - depth
+						|| !timeManager.continueIterating(variations[0][0], System.nanoTime())) {
+					break;
+				}
+			}
+			ChessMetrics.add(Counter.NODES, nodes & TIME_CHECK_MASK);
+			timeManager.finish(System.nanoTime());
+			return result;
+		} finally {
+			excludedCount = 0;
+			searching = false;
+		}
+	}
+
+	/**
+	 * prepares the engine for a search or an analysis of a copy of the match
+	 * passed as a parameter, and returns that copy.
+	 */
+	private ChessMatch startSearch(ChessMatch chessMatch, SearchLimits limits, long start) {
+		ChessMatch position = chessMatch.copy();
+		stopped = false;
+		nodes = 0;
+		nodeLimit = limits.getNodes();
+		searchPlayer = position.getCurrentPlayer();
+		searchTurn = position.getTurn();
+		timeManager.start(limits, searchPlayer, searchTurn, start);
+		searching = true;
+		return position;
+	}
+
+	/**
+	 * fills and commits the flight recorder event of an iteration of the search.
+	 * It is only called when the event is recorded, so the iterations cost nothing
+	 * more when no recording is running.
+	 */
+	private void commitIteration(SearchIterationEvent event, int depth, int score, long iterationNodes,
+			long iterationProbes, long iterationHits, long iterationNanos) {
+		event.setDepth(depth);
+		event.setCompleted(!stopped);
+		event.setNodes(iterationNodes);
+		event.setTotalNodes(nodes);
+		event.setNodesPerSecond(iterationNanos > 0 ? iterationNodes * 1_000_000_000L / iterationNanos : 0);
+		event.setTableHitRate(iterationProbes > 0 ? (double) iterationHits / iterationProbes : 0);
+		event.setScore(stopped ? 0 : score);
+		event.setBestMove(stopped || rootMove == Move.NONE ? null : Move.toString(rootMove));
+		event.commit();
+	}
+
+	/**
+	 * the alpha-beta search (in its negamax form, where the score of a position is
+	 * always from the point of view of the player to move). Each legal move of the
+	 * position is performed on the match, the resulting position is searched with
+	 * one less depth, and the move is undone by {@link chess.ChessMatch#undo()}.
+	 * When a move ends the match, the score is a mate score, which is higher for
+	 * shorter mates, or zero for a draw.
+	 */
+	private int search(ChessMatch position, int depth, int alpha, int beta, int ply) {
+		if (depth <= 0 || ply >= MAX_PLY - 1) {
+			return quiesce(position, alpha, beta, ply);
+		}
+		countNode();
+
+		long hash = position.getPositionHash();
+		long entry = table.probe(hash);
+		tableProbes++;
+		if (entry != 0L) {
+			tableHits++;
+		}
+		int hashMove = TranspositionTable.move(entry);
+		if (entry != 0L && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+			int score = fromTable(TranspositionTable.score(entry), ply);
+			int bound = TranspositionTable.bound(entry);
+			if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+					|| (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+				return score;
+			}
+		}
+
+		int count = generateMoves(position, moves[ply], false);
+		orderMoves(position, ply, count, hashMove);
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = Move.NONE;
+		for (int i = 0; i < count; i++) {
+			int move = nextMove(ply, i, count);
+			if (ply == 0 && isExcluded(move)) {
+				continue;
+			}
+			if (!position.performMove(Move.source(move), Move.target(move))) {
+				continue;
+			}
+			int score = -childScore(position, depth - 1, -beta, -alpha, ply + 1);
+			position.undo();
+			if (stopped) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				if (ply == 0) {
+					rootMove = move;
+				}
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+
+		if (bestMove == Move.NONE) {
+			return position.getCheck() ? -MATE + ply : 0;
+		}
+		if (ply == 0 && excludedCount > 0) {
+			// the score is not the score of the position, as some moves were left out
+			return bestScore;
+		}
+		int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+				: bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+		table.store(hash, bestMove, toTable(bestScore, ply), depth, bound);
+		return bestScore;
+	}
+
+	/**
+	 * tests whether a root move was left out of the search, because it is the
+	 * move of a line already found by the multi-PV analysis.
+	 */
+	private boolean isExcluded(int move) {
+		for (int i = 0; i < excludedCount; i++) {
+			if (excludedMoves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * the search of the captures only, performed at the end of the main search.
+	 * The player to move can always choose not to capture (stand pat), so the
+	 * evaluation of the position is a lower bound of its score.
+	 */
+	private int quiesce(ChessMatch position, int alpha, int beta, int ply) {
+		countNode();
+		int standPat = evaluator.evaluate(position);
+		if (standPat >= beta || ply >= MAX_PLY - 1) {
+			return standPat;
+		}
+		if (standPat > alpha) {
+			alpha = standPat;
+		}
+
+		int count = generateMoves(position, moves[ply], true);
+		orderMoves(position, ply, count, Move.NONE);
+		for (int i = 0; i < count; i++) {
+			int move = nextMove(ply, i, count);
+			if (!position.performMove(Move.source(move), Move.target(move))) {
+				continue;
+			}
+			int score = -childScore(position, 0, -beta, -alpha, ply + 1);
+			position.undo();
+			if (stopped) {
+				return 0;
+			}
+			if (score > alpha) {
+				alpha = score;
+				if (alpha >= beta) {
+					break;
+				}
+			}
+		}
+		return alpha;
+	}
+
+	/**
+	 * returns the score of the position reached by a move, from the point of view
+	 * of the player to move in that position. If the move ended the match, the
+	 * player to move was checkmated or the match is drawn.
+	 */
+	private int childScore(ChessMatch position, int depth, int alpha, int beta, int ply) {
+		GameResult result = position.getResult();
+		if (result == GameResult.CHECKMATE) {
+			return -MATE + ply;
+		}
+		if (result.isDraw()) {
+			return 0;
+		}
+		return depth > 0 ? search(position, depth, alpha, beta, ply) : quiesce(position, alpha, beta, ply);
+	}
+
+	/**
+	 * generates the moves of the current player, using the possible moves of each
+	 * of the player's pieces, read as longs of target squares. The moves may still
+	 * leave the player's own king in check, in which case the
+	 * {@link chess.ChessMatch#performMove(int, int)} method undoes them and
+	 * returns false, without throwing an exception.
+	 */
+	private int generateMoves(ChessMatch position, int[] list, boolean capturesOnly) {
+		Color player = position.getCurrentPlayer();
+		int count = 0;
+		long occupied = position.getOccupancy();
+		while (occupied != 0L) {
+			int square = Long.numberOfTrailingZeros(occupied);
+			occupied &= occupied - 1;
+			ChessPiece piece = position.getPiece(square);
+			if (piece.getColor() != player) {
+				continue;
+			}
+			int column = square % 8;
+			boolean pawn = piece.getType() == PieceType.PAWN;
+			long targets = MoveGenerator.possibleTargets(piece);
+			while (targets != 0L) {
+				int target = Long.numberOfTrailingZeros(targets);
+				targets &= targets - 1;
+				int targetRow = target / 8;
+				boolean capture = (position.getOccupancy() & (1L << target)) != 0L
+						|| (pawn && target % 8 != column);
+				boolean promotion = pawn && (targetRow == 0 || targetRow == 7);
+				if (!capturesOnly || capture || promotion) {
+					list[count++] = Move.of(square, target);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * gives each move a score that estimates how good it is: the move from the
+	 * transposition table comes first, then the captures, the most valuable
+	 * victims first and, among them, the least valuable attackers first.
+	 */
+	private void orderMoves(ChessMatch position, int ply, int count, int hashMove) {
+		int[] list = moves[ply];
+		int[] scores = moveScores[ply];
+		for (int i = 0; i < count; i++) {
+			int move = list[i];
+			int source = Move.source(move);
+			int target = Move.target(move);
+			ChessPiece victim = position.getPiece(target);
+			if (move == hashMove) {
+				scores[i] = 1_000_000;
+			} else if (victim != null) {
+				ChessPiece attacker = position.getPiece(source);
+				scores[i] = 10_000 + Evaluator.value(victim) * 10 - Evaluator.value(attacker) / 10;
+			} else {
+				scores[i] = 0;
+			}
+		}
+	}
+
+	/**
+	 * selects the move with the highest score among the moves not searched yet,
+	 * moving it to the position passed as a parameter.
+	 */
+	private int nextMove(int ply, int index, int count) {
+		int[] list = moves[ply];
+		int[] scores = moveScores[ply];
+		int best = index;
+		for (int i = index + 1; i < count; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		int move = list[best];
+		list[best] = list[index];
+		list[index] = move;
+		int score = scores[best];
+		scores[best] = scores[index];
+		scores[index] = score;
+		return move;
+	}
+
+	/**
+	 * counts a node and checks whether the node limit has been reached. Reading the
+	 * time isn't free, so the hard deadline is checked only once every 64 nodes,
+	 * and the nodes are added to the shared node counter of
+	 * {@link chess.metrics.ChessMetrics} at the same time, 64 at once.
+	 */
+	private void countNode() {
+		nodes++;
+		if ((nodes & TIME_CHECK_MASK) == 0) {
+			ChessMetrics.add(Counter.NODES, TIME_CHECK_MASK + 1);
+			if (timeManager.isHardDeadlineReached(System.nanoTime())) {
+				stopped = true;
+			}
+		}
+		if (nodes >= nodeLimit) {
+			stopped = true;
+		}
+	}
+
+	/**
+	 * returns the first legal move of the position, which is played when the
+	 * search is stopped before the first iteration is completed.
+	 */
+	private int firstLegalMove(ChessMatch position) {
+		int count = generateMoves(position, moves[0], false);
+		for (int i = 0; i < count; i++) {
+			if (position.performMove(Move.source(moves[0][i]), Move.target(moves[0][i]))) {
+				position.undo();
+				return moves[0][i];
+			}
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * finds the expected reply to the best move, which is the best move stored in
+	 * the transposition table for the position reached after the best move.
+	 */
+	private int ponderMove(ChessMatch position, int bestMove) {
+		if (bestMove == Move.NONE || !Move.perform(position, bestMove)) {
+			return Move.NONE;
+		}
+		int ponderMove = position.getResult().isOver() ? Move.NONE
+				: TranspositionTable.move(table.probe(position.getPositionHash()));
+		position.undo();
+		return ponderMove;
+	}
+
+	/**
+	 * finds the principal variation that starts with the move passed as a
+	 * parameter: the move is performed, then the best move stored in the
+	 * transposition table for each position reached, until the table has no
+	 * legal move for the position, the match ends or the line reaches the maximum
+	 * length. The moves are undone at the end.
+	 */
+	private int[] principalVariation(ChessMatch position, int firstMove, int maxLength) {
+		int[] line = new int[maxLength];
+		int length = 0;
+		int move = firstMove;
+		while (move != Move.NONE && length < maxLength && Move.perform(position, move)) {
+			line[length++] = move;
+			move = position.getResult().isOver() ? Move.NONE
+					: TranspositionTable.move(table.probe(position.getPositionHash()));
+		}
+		for (int i = 0; i < length; i++) {
+			position.undo();
+		}
+		return Arrays.copyOf(line, length);
+	}
+
+	/**
+	 * mate scores are stored in the transposition table relative to the position,
+	 * and not to the root of the search, because the same position can be reached
+	 * at different distances from the root.
+	 */
+	private static int toTable(int score, int ply) {
+		return score >= MATE - MAX_PLY ? score + ply : score <= -MATE + MAX_PLY ? score - ply : score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		return score >= MATE - MAX_PLY ? score - ply : score <= -MATE + MAX_PLY ? score + ply : score;
+	}
+}
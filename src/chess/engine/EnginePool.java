@@ -0,0 +1,83 @@
+package chess.engine;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * This class runs independent searches in parallel, such as the positions of a
+ * test suite or the games of a PGN file: a fixed pool of threads where each
+ * thread creates its own engine, with its own transposition table, the first
+ * time it runs a task, and keeps it for the following tasks. Unlike the
+ * {@link chess.engine.ParallelSearch}, which searches one position with all
+ * its threads, each task is searched by a single engine, and the threads
+ * don't share any state; a task that clears the transposition table of its
+ * engine first has a result that doesn't depend on the number of threads. The
+ * pool must be closed to stop its threads.
+ *
+ * @author Joo Victor
+ */
+public class EnginePool implements AutoCloseable {
+
+	private ExecutorService executor;
+	private ThreadLocal<Engine> engines;
+
+	/**
+	 * creates a pool with the number of threads and the size of the
+	 * transposition table of each engine passed as parameters.
+	 *
+	 * @param threads       number of threads, each one with its own engine
+	 * @param hashMegabytes size of the transposition table of each engine in
+	 *                      megabytes
+	 */
+	public EnginePool(int threads, int hashMegabytes) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		executor = Executors.newFixedThreadPool(threads);
+		engines = ThreadLocal.withInitial(() -> new Engine(hashMegabytes));
+	}
+
+	/**
+	 * submits a task, which is run by the next free thread with the engine of
+	 * that thread.
+	 *
+	 * @param <T>  type of the result of the task
+	 * @param task the task, which receives the engine of its thread
+	 * @return the future result of the task, read by {@link #result(Future)}
+	 */
+	public <T> Future<T> submit(Function<Engine, T> task) {
+		return executor.submit(() -> task.apply(engines.get()));
+	}
+
+	/**
+	 * waits for the result of a task. If the task threw a RuntimeException, such
+	 * as a ChessException, the same exception is thrown again in the calling
+	 * thread, and any other failure is thrown as an IllegalStateException.
+	 *
+	 * @param <T>    type of the result of the task
+	 * @param future the future returned by {@link #submit(Function)}
+	 * @return the result of the task
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+	public static <T> T result(Future<T> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * stops the threads of the pool, interrupting the tasks still running.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,218 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.PieceType;
+
+/**
+ * This class evaluates a chess position, returning a score in centipawns (a
+ * hundredth of a pawn) from the point of view of the player to move. The score
+ * is the sum of the values of the pieces of the player, minus the sum of the
+ * values of the pieces of the opponent. The value of a piece is its material
+ * value plus a bonus or penalty given by a piece-square table, which rewards the
+ * squares where that type of piece is usually stronger, such as the center for
+ * the knights and the advanced ranks for the pawns.
+ * 
+ * The material values and the tables are the parameters of the evaluator, an
+ * array of {@link #PARAMETERS} integers, so they can be replaced by weights
+ * learned from data, as the ones found by the {@link chess.tuning.TexelTuner}.
+ * The evaluator created without parameters uses the default weights below,
+ * while the static {@link #value(ChessPiece)} method, used to order the
+ * captures of the search, always returns the default material values.
+ * 
+ * @author Joo Victor
+ */
+public class Evaluator {
+
+	/**
+	 * the number of parameters of the evaluator: the 64 squares of the
+	 * piece-square table of each type of piece, in the order of
+	 * {@link chess.PieceType}, followed by the material values of the six types
+	 */
+	public static final int PARAMETERS = 6 * 64 + 6;
+
+	/**
+	 * the index of the material value of the first type of piece in the
+	 * parameters of the evaluator
+	 */
+	public static final int MATERIAL = 6 * 64;
+
+	private static final int[] PAWN_TABLE = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			50, 50, 50, 50, 50, 50, 50, 50,
+			10, 10, 20, 30, 30, 20, 10, 10,
+			5, 5, 10, 25, 25, 10, 5, 5,
+			0, 0, 0, 20, 20, 0, 0, 0,
+			5, -5, -10, 0, 0, -10, -5, 5,
+			5, 10, 10, -20, -20, 10, 10, 5,
+			0, 0, 0, 0, 0, 0, 0, 0 };
+
+	private static final int[] KNIGHT_TABLE = {
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20, 0, 0, 0, 0, -20, -40,
+			-30, 0, 10, 15, 15, 10, 0, -30,
+			-30, 5, 15, 20, 20, 15, 5, -30,
+			-30, 0, 15, 20, 20, 15, 0, -30,
+			-30, 5, 10, 15, 15, 10, 5, -30,
+			-40, -20, 0, 5, 5, 0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50 };
+
+	private static final int[] BISHOP_TABLE = {
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10, 0, 0, 0, 0, 0, 0, -10,
+			-10, 0, 5, 10, 10, 5, 0, -10,
+			-10, 5, 5, 10, 10, 5, 5, -10,
+			-10, 0, 10, 10, 10, 10, 0, -10,
+			-10, 10, 10, 10, 10, 10, 10, -10,
+			-10, 5, 0, 0, 0, 0, 5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20 };
+
+	private static final int[] ROOK_TABLE = {
+			0, 0, 0, 0, 0, 0, 0, 0,
+			5, 10, 10, 10, 10, 10, 10, 5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			-5, 0, 0, 0, 0, 0, 0, -5,
+			0, 0, 0, 5, 5, 0, 0, 0 };
+
+	private static final int[] QUEEN_TABLE = {
+			-20, -10, -10, -5, -5, -10, -10, -20,
+			-10, 0, 0, 0, 0, 0, 0, -10,
+			-10, 0, 5, 5, 5, 5, 0, -10,
+			-5, 0, 5, 5, 5, 5, 0, -5,
+			0, 0, 5, 5, 5, 5, 0, -5,
+			-10, 5, 5, 5, 5, 5, 0, -10,
+			-10, 0, 5, 0, 0, 0, 0, -10,
+			-20, -10, -10, -5, -5, -10, -10, -20 };
+
+	private static final int[] KING_TABLE = {
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			20, 20, 0, 0, 0, 0, 20, 20,
+			20, 30, 10, 0, 0, 10, 30, 20 };
+
+	private final int[] parameters;
+
+	/**
+	 * creates an evaluator with the default weights.
+	 */
+	public Evaluator() {
+		this(defaultParameters());
+	}
+
+	/**
+	 * creates an evaluator with the weights passed as a parameter. The piece-square
+	 * table of a type of piece starts at the index of the type times 64, and its
+	 * material value is at the index {@link #MATERIAL} plus the index of the type.
+	 * 
+	 * @param parameters the {@link #PARAMETERS} weights of the evaluator
+	 */
+	public Evaluator(int[] parameters) {
+		if (parameters.length != PARAMETERS) {
+			throw new IllegalArgumentException(
+					"The evaluator needs " + PARAMETERS + " parameters, not " + parameters.length);
+		}
+		this.parameters = parameters.clone();
+	}
+
+	/**
+	 * @return a copy of the weights of the evaluator
+	 */
+	public int[] getParameters() {
+		return parameters.clone();
+	}
+
+	/**
+	 * @return the default weights of the evaluator, the hand written material
+	 *         values and piece-square tables of this class
+	 */
+	public static int[] defaultParameters() {
+		int[] parameters = new int[PARAMETERS];
+		for (PieceType type : PieceType.values()) {
+			System.arraycopy(table(type), 0, parameters, type.ordinal() * 64, 64);
+			parameters[MATERIAL + type.ordinal()] = value(type);
+		}
+		return parameters;
+	}
+
+	/**
+	 * returns the material value of a chess piece in centipawns, given its
+	 * type. The king has no material value, as it can't be captured.
+	 * 
+	 * @param piece chess piece
+	 * @return the material value of the piece
+	 */
+	public static int value(ChessPiece piece) {
+		return value(piece.getType());
+	}
+
+	private static int value(PieceType type) {
+		switch (type) {
+		case PAWN:
+			return 100;
+		case KNIGHT:
+			return 320;
+		case BISHOP:
+			return 330;
+		case ROOK:
+			return 500;
+		case QUEEN:
+			return 900;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * evaluates the current position of a chess match.
+	 * 
+	 * @param chessMatch chess match
+	 * @return the score of the position from the point of view of the player to
+	 *         move
+	 */
+	public int evaluate(ChessMatch chessMatch) {
+		int score = 0;
+		long occupied = chessMatch.getOccupancy();
+		while (occupied != 0L) {
+			int square = Long.numberOfTrailingZeros(occupied);
+			occupied &= occupied - 1;
+			ChessPiece piece = chessMatch.getPiece(square);
+			int type = piece.getType().ordinal();
+			if (piece.getColor() == Color.WHITE) {
+				score += parameters[MATERIAL + type] + parameters[type * 64 + square];
+			} else {
+				score -= parameters[MATERIAL + type] + parameters[type * 64 + (7 - square / 8) * 8 + square % 8];
+			}
+		}
+		return chessMatch.getCurrentPlayer() == Color.WHITE ? score : -score;
+	}
+
+	/**
+	 * returns the default piece-square table of a type of piece. The tables are
+	 * written from the point of view of the white player, with the eighth rank in
+	 * the first row, so for the black pieces the rows are mirrored.
+	 */
+	private static int[] table(PieceType type) {
+		switch (type) {
+		case PAWN:
+			return PAWN_TABLE;
+		case KNIGHT:
+			return KNIGHT_TABLE;
+		case BISHOP:
+			return BISHOP_TABLE;
+		case ROOK:
+			return ROOK_TABLE;
+		case QUEEN:
+			return QUEEN_TABLE;
+		default:
+			return KING_TABLE;
+		}
+	}
+}
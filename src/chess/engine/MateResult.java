@@ -0,0 +1,77 @@
+package chess.engine;
+
+/**
+ * This class holds the answer of the {@link chess.engine.MateSolver} to a
+ * "mate in at most N moves" query: the status of the proof, the proven line,
+ * from the first move of the attacker to the checkmate, with the longest
+ * defence at each move of the defender, and the counters of the search.
+ *
+ * @author Joo Victor
+ */
+public class MateResult {
+
+	private MateStatus status;
+	private int[] line;
+	private long nodes;
+	private int maxTreeSize;
+	private long timeMillis;
+
+	public MateResult(MateStatus status, int[] line, long nodes, int maxTreeSize, long timeMillis) {
+		this.status = status;
+		this.line = line.clone();
+		this.nodes = nodes;
+		this.maxTreeSize = maxTreeSize;
+		this.timeMillis = timeMillis;
+	}
+
+	public MateStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the proven line, as moves of {@link chess.engine.Move}, or an empty
+	 *         array if the mate was not proven
+	 */
+	public int[] getLine() {
+		return line.clone();
+	}
+
+	/**
+	 * @return the number of moves of the attacker in the proven line, or 0 if the
+	 *         mate was not proven
+	 */
+	public int getMateIn() {
+		return (line.length + 1) / 2;
+	}
+
+	/**
+	 * @return the number of nodes of the search tree that were expanded
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return the largest number of nodes kept in memory at the same time
+	 */
+	public int getMaxTreeSize() {
+		return maxTreeSize;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(status.getDescription());
+		if (status == MateStatus.PROVEN) {
+			sb.append(" in ").append(getMateIn()).append(" pv");
+			for (int move : line) {
+				sb.append(' ').append(Move.toString(move));
+			}
+		}
+		sb.append(" nodes ").append(nodes).append(" time ").append(timeMillis);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,451 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+import chess.ChessMatch;
+import chess.GameResult;
+import chess.MoveList;
+
+/**
+ * This class proves forced mates with a proof-number search, which suits this
+ * problem better than the alpha-beta search of the {@link chess.engine.Engine}:
+ * instead of searching every move to a fixed depth, it grows a tree of the
+ * position, always expanding the most-proving node, the leaf that would prove
+ * or disprove the mate with the least effort. Every node has a proof number,
+ * the smallest number of leaves that must be proven to prove the node, and a
+ * disproof number, the smallest number of leaves that must be disproven to
+ * disprove it. At a node of the attacker, the player to move at the root, the
+ * proof number is the smallest one of its children and the disproof number is
+ * the sum of theirs, and at a node of the defender it is the other way round.
+ * A new leaf starts with the number of legal moves of its player, so the
+ * positions where the defender has few replies, such as the checks, are
+ * expanded first, which is what lets the search follow long forced lines.
+ * <p>
+ * The query is "mate in at most N moves": a move of the attacker that doesn't
+ * give checkmate when no more moves are left disproves its node, as does any
+ * end of the match that isn't a checkmate given by the attacker, such as a
+ * stalemate or a draw by repetition. The promotions are always to a queen, as
+ * in the rest of the engine.
+ * <p>
+ * The nodes are kept in arrays of primitives with a fixed capacity, linked to
+ * their parents, first children and next siblings, and the moves of the tree
+ * are performed and undone on a copy of the match as the search goes down and
+ * up. When a node is solved, its subtree is collected at once: a proven node
+ * keeps only the child of the proven line (the fastest mate of the attacker
+ * and the longest defence of the defender), and a disproven node keeps no
+ * child. If the tree still fills the store, the children of the unsolved
+ * nodes whose children are all leaves are collected too, so those nodes become
+ * leaves again, keeping their proof and disproof numbers, and are expanded
+ * again if the search needs them; only when that isn't enough the search stops
+ * with an unknown result.
+ * <p>
+ * The same position is often reached by different orders of the same moves,
+ * so the solved nodes are also kept in a table indexed by the hash of their
+ * positions, with the number of moves left: a position proven with a mate in
+ * some plies is a mate for any search with at least those plies left, and a
+ * position disproven with some plies left is disproven for any search with at
+ * most those plies left, so a new leaf found in the table is solved without
+ * being expanded. Only the proofs of the nodes of the attacker are kept, so
+ * the rest of a line proven by the table is found by solving again the
+ * position where the table was used, which is quick with the table already
+ * filled. The table, like the tree, doesn't know the moves played before a
+ * position, so a draw by repetition in one line may be taken for another.
+ *
+ * @author Joo Victor
+ */
+public class MateSolver {
+
+	private static final int INFINITY = 1_000_000_000;
+	private static final int NONE = -1;
+
+	/**
+	 * the proof number of the nodes of the free list
+	 */
+	private static final int FREE = -1;
+
+	private int capacity = 1 << 20;
+	private long moveTimeMillis;
+	private volatile boolean stopped;
+
+	private int[] proof;
+	private int[] disproof;
+	private int[] parent;
+	private int[] firstChild;
+	private int[] nextSibling;
+	private int[] moves;
+	private int[] distance;
+	private int freeList;
+	private int highWater;
+	private int used;
+	private int maxUsed;
+	private long expanded;
+
+	/**
+	 * the solved positions: the proven ones with the number of plies of their
+	 * mate plus one, and the disproven ones with minus the number of plies left
+	 * plus one
+	 */
+	private long[] tableKeys;
+	private int[] tableValues;
+
+	private MoveList nodeMoves = new MoveList();
+	private MoveList childMoves = new MoveList();
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @param capacity the largest number of nodes kept in memory, each one taking
+	 *                 28 bytes, plus the same number of entries of the table of
+	 *                 solved positions, taking 12 bytes each
+	 */
+	public void setCapacity(int capacity) {
+		if (capacity < 1024) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		this.capacity = capacity;
+		this.proof = null;
+	}
+
+	public long getMoveTimeMillis() {
+		return moveTimeMillis;
+	}
+
+	/**
+	 * @param moveTimeMillis the longest time of a query in milliseconds, or 0 for
+	 *                       no limit
+	 */
+	public void setMoveTimeMillis(long moveTimeMillis) {
+		if (moveTimeMillis < 0) {
+			throw new IllegalArgumentException("Invalid time: " + moveTimeMillis);
+		}
+		this.moveTimeMillis = moveTimeMillis;
+	}
+
+	/**
+	 * stops the query in progress as soon as possible, which then returns an
+	 * unknown result.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * finds whether the current player of a chess match can force a checkmate in
+	 * at most the number of moves passed as a parameter. The search is performed
+	 * on a copy of the match.
+	 *
+	 * @param chessMatch chess match
+	 * @param maxMoves   the largest number of moves of the attacker
+	 * @return the status of the proof and the proven line
+	 */
+	public MateResult solve(ChessMatch chessMatch, int maxMoves) {
+		if (maxMoves < 1) {
+			throw new IllegalArgumentException("Invalid number of moves: " + maxMoves);
+		}
+		long start = System.nanoTime();
+		stopped = false;
+		clear();
+		Arrays.fill(tableKeys, 0L);
+		expanded = 0;
+		maxUsed = 0;
+		int[] line = solve(chessMatch, maxMoves, start + moveTimeMillis * 1_000_000);
+		MateStatus status = line == null ? MateStatus.UNKNOWN
+				: line.length == 0 ? MateStatus.DISPROVEN : MateStatus.PROVEN;
+		return new MateResult(status, line == null ? new int[0] : line, expanded, maxUsed,
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * searches the tree of a position until its root is solved.
+	 *
+	 * @return the proven line, an empty array if the mate was disproven, or null
+	 *         if the search was stopped
+	 */
+	private int[] solve(ChessMatch chessMatch, int maxMoves, long deadline) {
+		clear();
+		ChessMatch position = chessMatch.copy();
+		int maxPlies = 2 * maxMoves - 1;
+
+		int root = newNode(NONE, Move.NONE);
+		if (position.getResult().isOver()) {
+			disprove(root);
+		}
+		boolean full = false;
+		while (proof[root] != 0 && disproof[root] != 0 && !full && !stopped
+				&& (moveTimeMillis == 0 || (expanded & 63) != 0 || System.nanoTime() < deadline)) {
+			int node = root;
+			int depth = 0;
+			while (firstChild[node] != NONE) {
+				node = select(node, depth % 2 == 0);
+				position.performMove(Move.source(moves[node]), Move.target(moves[node]));
+				depth++;
+			}
+			full = !expand(node, depth, maxPlies, position);
+			while (true) {
+				update(node, depth % 2 == 0, position.getPositionHash(), maxPlies - depth);
+				if (node == root) {
+					break;
+				}
+				position.undo();
+				node = parent[node];
+				depth--;
+			}
+		}
+
+		if (disproof[root] == 0) {
+			return new int[0];
+		}
+		if (proof[root] != 0) {
+			return null;
+		}
+		int[] line = new int[distance[root]];
+		int length = 0;
+		for (int node = firstChild[root]; node != NONE; node = firstChild[node]) {
+			line[length++] = moves[node];
+			position.performMove(Move.source(moves[node]), Move.target(moves[node]));
+		}
+		if (length < line.length) {
+			// the line goes on from a position proven by the table
+			int[] rest = solve(position, (line.length - length + 1) / 2, deadline);
+			if (rest == null || rest.length == 0) {
+				// stopped, or the entries of the line were replaced in the table
+				return Arrays.copyOf(line, length);
+			}
+			// the mate found again may be shorter than the one of the table
+			line = Arrays.copyOf(line, length + rest.length);
+			System.arraycopy(rest, 0, line, length, rest.length);
+		}
+		return line;
+	}
+
+	/**
+	 * creates the children of a leaf, one for each legal move, with the proof
+	 * and disproof numbers of their positions. The generation stops at the first
+	 * child that solves the leaf.
+	 *
+	 * @return false if the store has no room for the children, even after
+	 *         collecting the frontier of the tree
+	 */
+	private boolean expand(int node, int depth, int maxPlies, ChessMatch position) {
+		boolean attacker = depth % 2 == 0;
+		int pliesLeft = maxPlies - depth;
+		position.legalMoves(nodeMoves);
+		if (capacity - used < nodeMoves.size()) {
+			collectFrontier(parent[node]);
+			if (capacity - used < nodeMoves.size()) {
+				return false;
+			}
+		}
+		expanded++;
+		int last = NONE;
+		for (int i = 0; i < nodeMoves.size(); i++) {
+			int move = Move.of(MoveList.source(nodeMoves.get(i)), MoveList.target(nodeMoves.get(i)));
+			int child = newNode(node, move);
+			if (last == NONE) {
+				firstChild[node] = child;
+			} else {
+				nextSibling[last] = child;
+			}
+			last = child;
+
+			position.performMove(Move.source(move), Move.target(move));
+			GameResult result = position.getResult();
+			if (attacker && result == GameResult.CHECKMATE) {
+				proof[child] = 0;
+				disproof[child] = INFINITY;
+			} else if (result.isOver() || (attacker && pliesLeft == 1)) {
+				disprove(child);
+			} else if (!probe(child, position.getPositionHash(), pliesLeft - 1)) {
+				position.legalMoves(childMoves);
+				proof[child] = attacker ? childMoves.size() : 1;
+				disproof[child] = attacker ? 1 : childMoves.size();
+			}
+			position.undo();
+			if (attacker ? proof[child] == 0 : disproof[child] == 0) {
+				break;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the child of a node to follow to the most-proving node: the one
+	 *         with the smallest proof number at a node of the attacker, or with
+	 *         the smallest disproof number at a node of the defender
+	 */
+	private int select(int node, boolean attacker) {
+		int best = NONE;
+		int bestNumber = Integer.MAX_VALUE;
+		for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+			int number = attacker ? proof[child] : disproof[child];
+			if (number < bestNumber) {
+				best = child;
+				bestNumber = number;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * computes the proof and disproof numbers of a node from its children, and
+	 * collects the children that are no longer needed when the node is solved.
+	 */
+	private void update(int node, boolean attacker, long hash, int pliesLeft) {
+		if (firstChild[node] == NONE) {
+			return;
+		}
+		int minimum = INFINITY;
+		int sum = 0;
+		for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+			minimum = Math.min(minimum, attacker ? proof[child] : disproof[child]);
+			sum = Math.min(INFINITY, sum + (attacker ? disproof[child] : proof[child]));
+		}
+		proof[node] = attacker ? minimum : sum;
+		disproof[node] = attacker ? sum : minimum;
+
+		if (proof[node] == 0) {
+			int kept = NONE;
+			for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+				if (proof[child] == 0 && (kept == NONE
+						|| (attacker ? distance[child] < distance[kept] : distance[child] > distance[kept]))) {
+					kept = child;
+				}
+			}
+			distance[node] = distance[kept] + 1;
+			freeChildren(node, kept);
+			if (attacker) {
+				store(hash, distance[node] + 1);
+			}
+		} else if (disproof[node] == 0) {
+			freeChildren(node, NONE);
+			store(hash, -(pliesLeft + 1));
+		}
+	}
+
+	/**
+	 * solves a new leaf if its position is in the table with a result that is
+	 * valid for the plies left.
+	 *
+	 * @return true if the leaf was solved
+	 */
+	private boolean probe(int node, long hash, int pliesLeft) {
+		int index = (int) hash & (tableKeys.length - 1);
+		if (tableKeys[index] != hash) {
+			return false;
+		}
+		int value = tableValues[index];
+		if (value > 0 && value - 1 <= pliesLeft) {
+			proof[node] = 0;
+			disproof[node] = INFINITY;
+			distance[node] = value - 1;
+			return true;
+		}
+		if (value < 0 && pliesLeft <= -value - 1) {
+			disprove(node);
+			return true;
+		}
+		return false;
+	}
+
+	private void store(long hash, int value) {
+		int index = (int) hash & (tableKeys.length - 1);
+		tableKeys[index] = hash;
+		tableValues[index] = value;
+	}
+
+	private void disprove(int node) {
+		proof[node] = INFINITY;
+		disproof[node] = 0;
+	}
+
+	/**
+	 * collects the children of the unsolved nodes whose children are all
+	 * leaves, except the node passed as a parameter, the parent of the leaf
+	 * being expanded.
+	 */
+	private void collectFrontier(int keep) {
+		for (int node = 0; node < highWater; node++) {
+			if (node == keep || proof[node] == FREE || firstChild[node] == NONE || proof[node] == 0
+					|| disproof[node] == 0) {
+				continue;
+			}
+			boolean frontier = true;
+			for (int child = firstChild[node]; child != NONE && frontier; child = nextSibling[child]) {
+				frontier = firstChild[child] == NONE;
+			}
+			if (frontier) {
+				freeChildren(node, NONE);
+			}
+		}
+	}
+
+	/**
+	 * frees the subtrees of the children of a node, except the child to be kept,
+	 * which becomes its only child.
+	 */
+	private void freeChildren(int node, int kept) {
+		int child = firstChild[node];
+		while (child != NONE) {
+			int next = nextSibling[child];
+			if (child != kept) {
+				free(child);
+			}
+			child = next;
+		}
+		firstChild[node] = kept;
+		if (kept != NONE) {
+			nextSibling[kept] = NONE;
+		}
+	}
+
+	private void free(int node) {
+		freeChildren(node, NONE);
+		proof[node] = FREE;
+		nextSibling[node] = freeList;
+		freeList = node;
+		used--;
+	}
+
+	private int newNode(int parentNode, int move) {
+		int node;
+		if (freeList != NONE) {
+			node = freeList;
+			freeList = nextSibling[node];
+		} else {
+			node = highWater++;
+		}
+		used++;
+		maxUsed = Math.max(maxUsed, used);
+		parent[node] = parentNode;
+		moves[node] = move;
+		firstChild[node] = NONE;
+		nextSibling[node] = NONE;
+		proof[node] = 1;
+		disproof[node] = 1;
+		distance[node] = 0;
+		return node;
+	}
+
+	/**
+	 * empties the store of nodes before a search, allocating its arrays and the
+	 * table on the first one.
+	 */
+	private void clear() {
+		if (proof == null) {
+			proof = new int[capacity];
+			disproof = new int[capacity];
+			parent = new int[capacity];
+			firstChild = new int[capacity];
+			nextSibling = new int[capacity];
+			moves = new int[capacity];
+			distance = new int[capacity];
+			tableKeys = new long[Integer.highestOneBit(capacity)];
+			tableValues = new int[tableKeys.length];
+		}
+		freeList = NONE;
+		highWater = 0;
+		used = 0;
+	}
+}
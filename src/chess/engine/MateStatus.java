@@ -0,0 +1,24 @@
+package chess.engine;
+
+/**
+ * this enumeration will represent the answer of the mate solver to a "mate in
+ * at most N moves" query: whether the mate was proven, disproven, or neither,
+ * because the solver ran out of time or of memory
+ *
+ * @author Joo Victor
+ */
+public enum MateStatus {
+	PROVEN("mate proven"),
+	DISPROVEN("no mate within the moves"),
+	UNKNOWN("unknown, the search was stopped");
+
+	private String description;
+
+	private MateStatus(String description) {
+		this.description = description;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+}
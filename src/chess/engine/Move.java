@@ -0,0 +1,147 @@
+package chess.engine;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.MoveList;
+
+/**
+ * This class contains the operations on the moves used by the engine. To save
+ * memory during the search, a move is not an object but an integer: the lowest
+ * 6 bits hold the index of the source square and the next 6 bits hold the index
+ * of the target square, where the index of a square is (row * 8 + column) of
+ * the board matrix. The value {@link #NONE} represents the absence of a move.
+ * 
+ * @author Joo Victor
+ */
+public final class Move {
+
+	public static final int NONE = 0;
+
+	private Move() {
+	}
+
+	/**
+	 * creates a move given the indexes of its source and target squares.
+	 * 
+	 * @param source source square index
+	 * @param target target square index
+	 * @return the move
+	 */
+	public static int of(int source, int target) {
+		return source | target << 6;
+	}
+
+	public static int source(int move) {
+		return move & 63;
+	}
+
+	public static int target(int move) {
+		return move >>> 6 & 63;
+	}
+
+	/**
+	 * @param move a move
+	 * @return the source position of the move in chess coordinates
+	 */
+	public static ChessPosition sourcePosition(int move) {
+		return position(source(move));
+	}
+
+	/**
+	 * @param move a move
+	 * @return the target position of the move in chess coordinates
+	 */
+	public static ChessPosition targetPosition(int move) {
+		return position(target(move));
+	}
+
+	/**
+	 * converts the index of a square to a chess position.
+	 * 
+	 * @param square square index
+	 * @return the chess position of the square
+	 */
+	public static ChessPosition position(int square) {
+		return ChessPosition.fromSquare(square);
+	}
+
+	/**
+	 * converts a move written in coordinate notation, such as "e2e4", to a move.
+	 * If the text isn't a valid move, then a ChessException will be thrown.
+	 * 
+	 * @param text the move in coordinate notation
+	 * @return the move
+	 */
+	public static int parse(String text) {
+		if (text.length() < 4) {
+			throw new ChessException("Invalid move: " + text);
+		}
+		return of(square(text.charAt(0), text.charAt(1)), square(text.charAt(2), text.charAt(3)));
+	}
+
+	private static int square(char column, char row) {
+		if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+			throw new ChessException("Invalid square: " + column + row);
+		}
+		return ('8' - row) * 8 + (column - 'a');
+	}
+
+	/**
+	 * performs a move on a chess match through the
+	 * {@link chess.ChessMatch#performChessMove(ChessPosition, ChessPosition)}
+	 * method, which validates it, so this is the path for the moves that may not
+	 * be possible in the position, such as the moves read from a user or from the
+	 * transposition table. The moves generated by the engine are performed by the
+	 * {@link chess.ChessMatch#performMove(int, int)} method instead, which
+	 * doesn't validate them nor throw an exception. If the move is not legal, the
+	 * match is left unchanged and false is returned.
+	 * 
+	 * @param chessMatch chess match
+	 * @param move       a move
+	 * @return true if the move was performed
+	 */
+	public static boolean perform(ChessMatch chessMatch, int move) {
+		try {
+			chessMatch.performChessMove(sourcePosition(move), targetPosition(move));
+			return true;
+		} catch (ChessException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * finds the legal move of a chess match with the same source and target
+	 * squares as a move of the engine. The move found is encoded as in
+	 * {@link chess.MoveList}, with the promotion bit set when the move takes a
+	 * pawn to the last row, so it can be written in SAN by
+	 * {@link chess.pgn.San#format(ChessMatch, int, char)}.
+	 * 
+	 * @param chessMatch chess match
+	 * @param move       a move
+	 * @return the legal move with the squares of the move, or the move itself if
+	 *         the match has no such legal move
+	 */
+	public static int legalMove(ChessMatch chessMatch, int move) {
+		MoveList moves = chessMatch.legalMoves();
+		for (int i = 0; i < moves.size(); i++) {
+			if (MoveList.source(moves.get(i)) == source(move) && MoveList.target(moves.get(i)) == target(move)) {
+				return moves.get(i);
+			}
+		}
+		return move;
+	}
+
+	/**
+	 * Outputs the move in coordinate notation, for example "e2e4".
+	 * 
+	 * @param move a move
+	 * @return a string that shows the source and target of the move
+	 */
+	public static String toString(int move) {
+		if (move == NONE) {
+			return "0000";
+		}
+		return sourcePosition(move).toString() + targetPosition(move);
+	}
+}
@@ -0,0 +1,179 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessMatch;
+
+/**
+ * This class searches a position with several threads at the same time, in the
+ * simplest way that scales (known as lazy SMP): each thread has its own engine
+ * and searches the whole position on its own, but all the engines share the
+ * same transposition table, so each one profits from the positions already
+ * searched by the others. To make the threads search different parts of the
+ * tree, half of the helper engines start their iterative deepening one ply
+ * deeper. The main engine searches in the calling thread and decides when the
+ * search ends, respecting the search limits; when it ends, the helpers are
+ * stopped and the result of the main engine is returned. The transposition
+ * table can be shared without locks because its entries are checked with the
+ * XOR of their key and data (see {@link chess.engine.TranspositionTable}).
+ *
+ * @author Joo Victor
+ */
+public class ParallelSearch {
+
+	private TranspositionTable table;
+	private List<Engine> engines = new ArrayList<>();
+	private ExecutorService executor;
+
+	/**
+	 * creates a parallel search with the number of threads and the size of the
+	 * transposition table passed as parameters.
+	 *
+	 * @param threads       number of threads, including the calling thread
+	 * @param hashMegabytes size of the transposition table in megabytes
+	 */
+	public ParallelSearch(int threads, int hashMegabytes) {
+		table = new TranspositionTable(hashMegabytes);
+		setThreads(threads);
+	}
+
+	public int getThreads() {
+		return engines.size();
+	}
+
+	/**
+	 * changes the number of threads. It must not be called during a search.
+	 *
+	 * @param threads number of threads, including the calling thread
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		engines.clear();
+		for (int i = 0; i < threads; i++) {
+			Engine engine = new Engine(table);
+			engine.setStartDepth(1 + i % 2);
+			engines.add(engine);
+		}
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(threads - 1, runnable -> {
+				Thread thread = new Thread(runnable, "search-helper");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * replaces the transposition table by an empty one of the size passed as a
+	 * parameter. It must not be called during a search.
+	 *
+	 * @param hashMegabytes size of the transposition table in megabytes
+	 */
+	public void setHashSize(int hashMegabytes) {
+		table = new TranspositionTable(hashMegabytes);
+		setThreads(engines.size());
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the engine that searches in the calling thread and decides the
+	 *         result
+	 */
+	public Engine getMainEngine() {
+		return engines.get(0);
+	}
+
+	/**
+	 * @return the number of nodes searched by all the threads in the current or
+	 *         last search
+	 */
+	public long getNodes() {
+		long nodes = 0;
+		for (Engine engine : engines) {
+			nodes += engine.getNodes();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Searches the best move of the current position of the match with all the
+	 * threads, within the limits passed as a parameter. The limits are respected
+	 * by the main engine; the helpers search until the main engine is done.
+	 *
+	 * @param chessMatch chess match
+	 * @param limits     search limits
+	 * @param listener   listener of the iterations of the main engine, or null
+	 * @return the result of the main engine
+	 */
+	public SearchResult search(ChessMatch chessMatch, SearchLimits limits, SearchListener listener) {
+		for (Engine engine : engines) {
+			engine.resetNodes();
+		}
+		List<Future<SearchResult>> helpers = new ArrayList<>();
+		for (int i = 1; i < engines.size(); i++) {
+			Engine helper = engines.get(i);
+			helpers.add(executor.submit(() -> helper.search(chessMatch, SearchLimits.depth(limits.getDepth()))));
+		}
+		Engine main = getMainEngine();
+		main.setListener(listener);
+		try {
+			return main.search(chessMatch, limits);
+		} finally {
+			for (int i = 0; i < helpers.size(); i++) {
+				Future<SearchResult> helper = helpers.get(i);
+				while (!helper.isDone()) {
+					engines.get(i + 1).stop();
+					Thread.onSpinWait();
+				}
+			}
+		}
+	}
+
+	/**
+	 * stops the search in progress as soon as possible.
+	 */
+	public void stop() {
+		getMainEngine().stop();
+	}
+
+	/**
+	 * gives time limits to the search in progress (see
+	 * {@link chess.engine.Engine#ponderHit(SearchLimits, long)}).
+	 *
+	 * @param limits     the new search limits
+	 * @param startNanos the value of {@link System#nanoTime()} from which the time
+	 *                   limits are counted
+	 */
+	public void ponderHit(SearchLimits limits, long startNanos) {
+		getMainEngine().ponderHit(limits, startNanos);
+	}
+
+	/**
+	 * clears the transposition table, to start a new game.
+	 */
+	public void clearHash() {
+		table.clear();
+	}
+
+	/**
+	 * stops the helper threads.
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package chess.engine;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.ChessMatch;
+
+/**
+ * This class lets the engine think during the opponent's time (pondering).
+ * After the engine plays its move, it assumes that the opponent will play the
+ * expected reply (the ponder move of the search result), and starts an infinite
+ * search of the position after that reply in a background thread, while the
+ * opponent is still thinking. When the opponent moves, there are two cases. If
+ * the opponent played the expected reply (a ponder hit), the position is the
+ * one being searched, so the search continues, now with the time limit of the
+ * engine counted from the moment the pondering started, and its result is
+ * usually available much sooner than a new search would be. Otherwise (a ponder
+ * miss), the pondering is stopped and a new search of the actual position is
+ * started. The positions are compared by their hash (see
+ * {@link chess.ChessMatch#getPositionHash()}).
+ *
+ * @author Joo Victor
+ */
+public class Ponderer {
+
+	private Engine engine;
+	private ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ponder");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private Future<SearchResult> pondering;
+	private long ponderHash;
+	private long ponderStart;
+	private int ponderHits;
+	private int ponderMisses;
+
+	/**
+	 * creates a ponderer that uses the engine passed as a parameter for both the
+	 * pondering and the normal searches. The engine must not be used by anything
+	 * else while the ponderer is in use.
+	 *
+	 * @param engine chess engine
+	 */
+	public Ponderer(Engine engine) {
+		this.engine = engine;
+	}
+
+	public int getPonderHits() {
+		return ponderHits;
+	}
+
+	public int getPonderMisses() {
+		return ponderMisses;
+	}
+
+	/**
+	 * @return true if the engine is pondering
+	 */
+	public boolean isPondering() {
+		return pondering != null;
+	}
+
+	/**
+	 * starts pondering the position reached by the expected move of the opponent.
+	 * The match passed as a parameter is not changed: the expected move is
+	 * performed on a copy. If there is no expected move, or it can't be performed,
+	 * nothing happens.
+	 *
+	 * @param chessMatch   chess match, with the opponent to move
+	 * @param expectedMove the expected move of the opponent
+	 */
+	public void startPondering(ChessMatch chessMatch, int expectedMove) {
+		stopPondering();
+		if (expectedMove == Move.NONE) {
+			return;
+		}
+		ChessMatch expected = chessMatch.copy();
+		if (!Move.perform(expected, expectedMove) || expected.getResult().isOver()) {
+			return;
+		}
+		ponderHash = expected.getPositionHash();
+		ponderStart = System.nanoTime();
+		pondering = executor.submit(() -> engine.search(expected, SearchLimits.infinite()));
+	}
+
+	/**
+	 * Searches the best move of the current position of the match. If the engine
+	 * is pondering this same position, the pondering becomes the search, with the
+	 * time limit counted from the start of the pondering. Otherwise, the pondering
+	 * is stopped and a new search is performed.
+	 *
+	 * @param chessMatch chess match
+	 * @param limits     search limits
+	 * @return the result of the search
+	 */
+	public SearchResult search(ChessMatch chessMatch, SearchLimits limits) {
+		if (pondering != null && chessMatch.getPositionHash() == ponderHash) {
+			ponderHits++;
+			Future<SearchResult> future = pondering;
+			pondering = null;
+			waitUntilSearching(future);
+			engine.ponderHit(limits, ponderStart);
+			SearchResult result = await(future);
+			if (result.getBestMove() != Move.NONE) {
+				return result;
+			}
+		} else if (pondering != null) {
+			ponderMisses++;
+			stopPondering();
+		}
+		return engine.search(chessMatch, limits);
+	}
+
+	/**
+	 * stops the pondering, if any, and waits for it to finish.
+	 */
+	public void stopPondering() {
+		if (pondering == null) {
+			return;
+		}
+		Future<SearchResult> future = pondering;
+		pondering = null;
+		while (!future.isDone()) {
+			engine.stop();
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * stops the pondering and the background thread.
+	 */
+	public void shutdown() {
+		stopPondering();
+		executor.shutdown();
+	}
+
+	/**
+	 * the search sets its deadlines when it starts, so the new ones are only set
+	 * after the pondering search has actually started.
+	 */
+	private void waitUntilSearching(Future<SearchResult> future) {
+		while (!engine.isSearching() && !future.isDone()) {
+			Thread.onSpinWait();
+		}
+	}
+
+	private static SearchResult await(Future<SearchResult> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the search", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("The search failed", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package chess.engine;
+
+import chess.ChessClock;
+import chess.Color;
+
+/**
+ * This class holds the limits of a search of the engine: the maximum depth, the
+ * maximum number of nodes and the maximum time. The time can be given either as
+ * a fixed time for the move, or as the state of the chess clocks (remaining
+ * time and increment of each player, and optionally the number of moves until
+ * the next time control), from which the {@link chess.engine.TimeManager}
+ * computes the time of the move. The search stops as soon as one of the limits
+ * is reached. A search without any limit (infinite) only stops when the engine
+ * is told to stop.
+ * 
+ * @author Joo Victor
+ */
+public class SearchLimits {
+
+	public static final int MAX_DEPTH = 64;
+
+	private int depth = MAX_DEPTH;
+	private long nodes = Long.MAX_VALUE;
+	private long moveTimeMillis = Long.MAX_VALUE;
+	private long whiteTimeMillis = Long.MAX_VALUE;
+	private long blackTimeMillis = Long.MAX_VALUE;
+	private long whiteIncrementMillis;
+	private long blackIncrementMillis;
+	private int movesToGo;
+
+	/**
+	 * @return limits that never stop the search by themselves
+	 */
+	public static SearchLimits infinite() {
+		return new SearchLimits();
+	}
+
+	/**
+	 * @param depth maximum depth in half-moves
+	 * @return limits that stop the search at the given depth
+	 */
+	public static SearchLimits depth(int depth) {
+		SearchLimits limits = new SearchLimits();
+		limits.setDepth(depth);
+		return limits;
+	}
+
+	/**
+	 * @param moveTimeMillis maximum time in milliseconds
+	 * @return limits that stop the search after the given time
+	 */
+	public static SearchLimits moveTime(long moveTimeMillis) {
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTimeMillis(moveTimeMillis);
+		return limits;
+	}
+
+	/**
+	 * @param nodes maximum number of nodes
+	 * @return limits that stop the search after the given number of nodes, which
+	 *         gives the same search on any computer
+	 */
+	public static SearchLimits nodes(long nodes) {
+		if (nodes < 1) {
+			throw new IllegalArgumentException("Invalid number of nodes: " + nodes);
+		}
+		SearchLimits limits = new SearchLimits();
+		limits.setNodes(nodes);
+		return limits;
+	}
+
+	/**
+	 * @param clock chess clock of the match
+	 * @return limits given by the remaining times and the increment of the clock
+	 */
+	public static SearchLimits clock(ChessClock clock) {
+		SearchLimits limits = new SearchLimits();
+		limits.setWhiteTimeMillis(clock.getRemainingMillis(Color.WHITE));
+		limits.setBlackTimeMillis(clock.getRemainingMillis(Color.BLACK));
+		limits.setWhiteIncrementMillis(clock.getIncrementMillis());
+		limits.setBlackIncrementMillis(clock.getIncrementMillis());
+		return limits;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public void setNodes(long nodes) {
+		this.nodes = nodes;
+	}
+
+	public long getMoveTimeMillis() {
+		return moveTimeMillis;
+	}
+
+	public void setMoveTimeMillis(long moveTimeMillis) {
+		this.moveTimeMillis = moveTimeMillis;
+	}
+
+	public long getWhiteTimeMillis() {
+		return whiteTimeMillis;
+	}
+
+	public void setWhiteTimeMillis(long whiteTimeMillis) {
+		this.whiteTimeMillis = whiteTimeMillis;
+	}
+
+	public long getBlackTimeMillis() {
+		return blackTimeMillis;
+	}
+
+	public void setBlackTimeMillis(long blackTimeMillis) {
+		this.blackTimeMillis = blackTimeMillis;
+	}
+
+	public long getWhiteIncrementMillis() {
+		return whiteIncrementMillis;
+	}
+
+	public void setWhiteIncrementMillis(long whiteIncrementMillis) {
+		this.whiteIncrementMillis = whiteIncrementMillis;
+	}
+
+	public long getBlackIncrementMillis() {
+		return blackIncrementMillis;
+	}
+
+	public void setBlackIncrementMillis(long blackIncrementMillis) {
+		this.blackIncrementMillis = blackIncrementMillis;
+	}
+
+	/**
+	 * @return the number of moves until the next time control, or 0 if all the
+	 *         remaining moves must be played with the remaining time
+	 */
+	public int getMovesToGo() {
+		return movesToGo;
+	}
+
+	public void setMovesToGo(int movesToGo) {
+		this.movesToGo = movesToGo;
+	}
+
+	/**
+	 * @param player a player
+	 * @return the remaining time of the player's clock, or Long.MAX_VALUE if it
+	 *         isn't known
+	 */
+	public long getTimeMillis(Color player) {
+		return player == Color.WHITE ? whiteTimeMillis : blackTimeMillis;
+	}
+
+	/**
+	 * @param player a player
+	 * @return the increment of the player's clock
+	 */
+	public long getIncrementMillis(Color player) {
+		return player == Color.WHITE ? whiteIncrementMillis : blackIncrementMillis;
+	}
+
+	/**
+	 * @return true if the search has no time limit
+	 */
+	public boolean isInfinite() {
+		return moveTimeMillis == Long.MAX_VALUE && whiteTimeMillis == Long.MAX_VALUE
+				&& blackTimeMillis == Long.MAX_VALUE;
+	}
+}
@@ -0,0 +1,19 @@
+package chess.engine;
+
+/**
+ * This interface receives the progress of a search of the engine: it is
+ * notified each time an iteration of the iterative deepening is completed,
+ * with the result of that iteration. It is called from the thread that
+ * performs the search, so it must return quickly.
+ * 
+ * @author Joo Victor
+ */
+public interface SearchListener {
+
+	/**
+	 * is called when an iteration of the search is completed.
+	 * 
+	 * @param result the best move, score and counters of the completed iteration
+	 */
+	void iterationCompleted(SearchResult result);
+}
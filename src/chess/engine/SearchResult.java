@@ -0,0 +1,74 @@
+package chess.engine;
+
+/**
+ * This class holds the result of a search of the engine: the best move found,
+ * the move expected as the opponent's reply (the ponder move), the score of
+ * the best move in centipawns from the point of view of the player to move, the
+ * depth completed, the number of nodes searched and the time spent.
+ * 
+ * @author Joo Victor
+ */
+public class SearchResult {
+
+	private int bestMove;
+	private int ponderMove;
+	private int score;
+	private int depth;
+	private long nodes;
+	private long timeMillis;
+
+	public SearchResult(int bestMove, int ponderMove, int score, int depth, long nodes, long timeMillis) {
+		this.bestMove = bestMove;
+		this.ponderMove = ponderMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.timeMillis = timeMillis;
+	}
+
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	public int getPonderMove() {
+		return ponderMove;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	/**
+	 * @return the number of nodes searched per second
+	 */
+	public long getNodesPerSecond() {
+		return timeMillis == 0 ? nodes * 1000 : nodes * 1000 / timeMillis;
+	}
+
+	/**
+	 * checks whether the score is a forced checkmate, for either player.
+	 * 
+	 * @return true if the score is a mate score
+	 */
+	public boolean isMateScore() {
+		return Math.abs(score) >= Engine.MATE - SearchLimits.MAX_DEPTH * 2;
+	}
+
+	@Override
+	public String toString() {
+		return "bestmove " + Move.toString(bestMove) + " ponder " + Move.toString(ponderMove) + " score " + score
+				+ " depth " + depth + " nodes " + nodes + " time " + timeMillis;
+	}
+}
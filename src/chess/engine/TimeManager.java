@@ -0,0 +1,216 @@
+package chess.engine;
+
+import chess.Color;
+
+/**
+ * This class decides how long the engine thinks about a move. From the search
+ * limits it computes two deadlines. The soft deadline is the time the engine
+ * intends to use: it is checked only between two iterations of the iterative
+ * deepening, and no new iteration is started after it. The hard deadline is the
+ * time the engine must never exceed: it is checked during the search, every few
+ * nodes, and the search is stopped as soon as it is reached. When the search
+ * is given a fixed time for the move, both deadlines are that time. When it is
+ * given the chess clocks, the soft time is the remaining time divided by the
+ * number of moves still to play, plus most of the increment, and the hard time
+ * is a few times the soft time, but never more than a part of the remaining
+ * time. A safety margin (the move overhead) is subtracted from the remaining
+ * time, to account for the delay between the end of the search and the moment
+ * the clock is pressed. Besides, when the best move stays the same for several
+ * iterations, the engine is confident of it and stops before the soft deadline,
+ * and when the best move has just changed, it thinks a little longer.
+ * <p>
+ * After each timed search, the time manager records whether the hard deadline
+ * was overshot and by how much, so the move overhead can be tuned.
+ *
+ * @author Joo Victor
+ */
+public class TimeManager {
+
+	private static final int MIN_MOVES_TO_GO = 20;
+	private static final int MAX_MOVES_TO_GO = 50;
+	private static final int HARD_TO_SOFT_RATIO = 3;
+
+	private long moveOverheadMillis = 30;
+
+	private volatile long startNanos;
+	private volatile long softDeadline = Long.MAX_VALUE;
+	private volatile long hardDeadline = Long.MAX_VALUE;
+	private boolean clockMode;
+	private int lastBestMove;
+	private int stableIterations;
+
+	private long searches;
+	private long overshoots;
+	private long totalOvershootNanos;
+	private long maxOvershootNanos;
+	private long minSlackNanos = Long.MAX_VALUE;
+
+	public long getMoveOverheadMillis() {
+		return moveOverheadMillis;
+	}
+
+	public void setMoveOverheadMillis(long moveOverheadMillis) {
+		this.moveOverheadMillis = Math.max(0, moveOverheadMillis);
+	}
+
+	public long getSoftDeadline() {
+		return softDeadline;
+	}
+
+	/**
+	 * @return the value of {@link System#nanoTime()} when the search must stop, or
+	 *         Long.MAX_VALUE if it has no time limit
+	 */
+	public long getHardDeadline() {
+		return hardDeadline;
+	}
+
+	/**
+	 * computes the deadlines of a search. It may be called again during the search,
+	 * from another thread, to give a time limit to a search that had none, which
+	 * is what happens when a ponder search becomes the real one.
+	 *
+	 * @param limits     search limits
+	 * @param player     the player to move
+	 * @param turn       the turn of the match
+	 * @param startNanos the value of {@link System#nanoTime()} when the search
+	 *                   started
+	 */
+	public void start(SearchLimits limits, Color player, int turn, long startNanos) {
+		this.startNanos = startNanos;
+		lastBestMove = Move.NONE;
+		stableIterations = 0;
+		long remaining = limits.getTimeMillis(player);
+		clockMode = false;
+		if (limits.getMoveTimeMillis() != Long.MAX_VALUE) {
+			long budget = Math.max(1, limits.getMoveTimeMillis() - moveOverheadMillis);
+			softDeadline = startNanos + toNanos(budget);
+			hardDeadline = softDeadline;
+		} else if (remaining != Long.MAX_VALUE) {
+			clockMode = true;
+			long available = Math.max(1, remaining - moveOverheadMillis);
+			int movesToGo = limits.getMovesToGo() > 0 ? limits.getMovesToGo()
+					: Math.max(MIN_MOVES_TO_GO, MAX_MOVES_TO_GO - (turn + 1) / 2 / 2);
+			long soft = Math.min(available / movesToGo + limits.getIncrementMillis(player) * 3 / 4, available / 2);
+			long hard = Math.min(soft * HARD_TO_SOFT_RATIO, available * 2 / 3);
+			softDeadline = startNanos + toNanos(Math.max(1, soft));
+			hardDeadline = startNanos + toNanos(Math.max(1, hard));
+		} else {
+			softDeadline = Long.MAX_VALUE;
+			hardDeadline = Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * @param nowNanos the current value of {@link System#nanoTime()}
+	 * @return true if the hard deadline has been reached
+	 */
+	public boolean isHardDeadlineReached(long nowNanos) {
+		return nowNanos >= hardDeadline;
+	}
+
+	/**
+	 * decides, after an iteration of the iterative deepening, whether the next one
+	 * is started. It isn't if the soft deadline was reached. With the clocks, the
+	 * soft time is scaled by the stability of the best move: it is reduced when
+	 * the best move didn't change for several iterations, and increased when it
+	 * just changed.
+	 *
+	 * @param bestMove the best move of the completed iteration
+	 * @param nowNanos the current value of {@link System#nanoTime()}
+	 * @return true if the next iteration must be started
+	 */
+	public boolean continueIterating(int bestMove, long nowNanos) {
+		boolean changed = lastBestMove != Move.NONE && bestMove != lastBestMove;
+		stableIterations = bestMove == lastBestMove ? stableIterations + 1 : 0;
+		lastBestMove = bestMove;
+		long soft = softDeadline;
+		if (soft == Long.MAX_VALUE) {
+			return true;
+		}
+		if (!clockMode) {
+			return nowNanos < soft;
+		}
+		int percent = stableIterations >= 6 ? 40 : stableIterations >= 3 ? 70 : changed ? 130 : 100;
+		long budget = (soft - startNanos) / 100 * percent;
+		return nowNanos - startNanos < Math.min(budget, hardDeadline - startNanos);
+	}
+
+	/**
+	 * records the end of a search. If the search had a time limit, the time by
+	 * which it overshot the hard deadline, or the time that was still left before
+	 * it, is added to the statistics.
+	 *
+	 * @param endNanos the value of {@link System#nanoTime()} when the search ended
+	 */
+	public void finish(long endNanos) {
+		long hard = hardDeadline;
+		if (hard == Long.MAX_VALUE) {
+			return;
+		}
+		searches++;
+		long overshoot = endNanos - hard;
+		if (overshoot > 0) {
+			overshoots++;
+			totalOvershootNanos += overshoot;
+			maxOvershootNanos = Math.max(maxOvershootNanos, overshoot);
+		} else {
+			minSlackNanos = Math.min(minSlackNanos, -overshoot);
+		}
+	}
+
+	/**
+	 * @return the number of searches with a time limit
+	 */
+	public long getSearches() {
+		return searches;
+	}
+
+	/**
+	 * @return the number of searches that ended after their hard deadline
+	 */
+	public long getOvershoots() {
+		return overshoots;
+	}
+
+	public long getMaxOvershootNanos() {
+		return maxOvershootNanos;
+	}
+
+	/**
+	 * @return the average time by which the searches that overshot their hard
+	 *         deadline exceeded it
+	 */
+	public long getAverageOvershootNanos() {
+		return overshoots == 0 ? 0 : totalOvershootNanos / overshoots;
+	}
+
+	/**
+	 * @return the smallest time left before the hard deadline by a search that
+	 *         didn't overshoot it, or Long.MAX_VALUE if there was none
+	 */
+	public long getMinSlackNanos() {
+		return minSlackNanos;
+	}
+
+	/**
+	 * clears the overshoot statistics.
+	 */
+	public void resetStatistics() {
+		searches = 0;
+		overshoots = 0;
+		totalOvershootNanos = 0;
+		maxOvershootNanos = 0;
+		minSlackNanos = Long.MAX_VALUE;
+	}
+
+	@Override
+	public String toString() {
+		return "searches " + searches + " overshoots " + overshoots + " max " + maxOvershootNanos / 1000
+				+ "us avg " + getAverageOvershootNanos() / 1000 + "us";
+	}
+
+	private static long toNanos(long millis) {
+		return Math.min(millis, Long.MAX_VALUE / 4_000_000) * 1_000_000;
+	}
+}
@@ -0,0 +1,122 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * This class is the transposition table of the engine: a hash table that keeps
+ * the results of the positions already searched, indexed by the hash of the
+ * position, so that a position reached again by a different order of moves
+ * doesn't need to be searched again. Each entry is stored in two longs, the
+ * result data and the hash of the position mixed with the data by an exclusive
+ * or. This way, an entry that was half written by one thread while being read
+ * by another fails the hash check and is simply ignored, so the table can be
+ * shared by several search threads without locks.
+ * 
+ * @author Joo Victor
+ */
+public class TranspositionTable {
+
+	public static final int EXACT = 1;
+	public static final int LOWER_BOUND = 2;
+	public static final int UPPER_BOUND = 3;
+
+	private static final int ENTRY_BYTES = 16;
+
+	private long[] keys;
+	private long[] data;
+	private int mask;
+
+	/**
+	 * creates a transposition table that uses about the number of megabytes passed
+	 * as a parameter. The number of entries is rounded down to a power of two.
+	 * 
+	 * @param megabytes size of the table in megabytes
+	 */
+	public TranspositionTable(int megabytes) {
+		long entries = Math.max(1, (long) megabytes) * 1024 * 1024 / ENTRY_BYTES;
+		int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+		keys = new long[size];
+		data = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * @return the number of entries of the table
+	 */
+	public int size() {
+		return keys.length;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, 0L);
+		Arrays.fill(data, 0L);
+	}
+
+	/**
+	 * returns the data stored for a position, or zero if the position isn't in the
+	 * table. The fields of the data are read by the static methods of this class.
+	 * 
+	 * @param hash position hash
+	 * @return the entry data, or zero
+	 */
+	public long probe(long hash) {
+		int index = (int) hash & mask;
+		long entry = data[index];
+		return (keys[index] ^ entry) == hash ? entry : 0L;
+	}
+
+	/**
+	 * stores the result of a position. An entry of another position in the same
+	 * slot is always replaced, while an entry of the same position is only replaced
+	 * by a result at least as deep, unless it's an exact result.
+	 * 
+	 * @param hash  position hash
+	 * @param move  best move
+	 * @param score score of the position
+	 * @param depth depth searched
+	 * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+	 */
+	public void store(long hash, int move, int score, int depth, int bound) {
+		int index = (int) hash & mask;
+		long previous = data[index];
+		if ((keys[index] ^ previous) == hash && depth(previous) > depth && bound != EXACT) {
+			return;
+		}
+		long entry = (move & 0xFFFFL) | (score & 0xFFFFL) << 16 | (depth & 0xFFL) << 32 | (long) bound << 40;
+		data[index] = entry;
+		keys[index] = hash ^ entry;
+	}
+
+	/**
+	 * estimates how full the table is, in permill, by sampling its first thousand
+	 * entries.
+	 * 
+	 * @return the occupation of the table in permill
+	 */
+	public int hashfull() {
+		int sample = Math.min(1000, data.length);
+		int used = 0;
+		for (int i = 0; i < sample; i++) {
+			if (data[i] != 0L) {
+				used++;
+			}
+		}
+		return used * 1000 / sample;
+	}
+
+	public static int move(long entry) {
+		return (int) (entry & 0xFFFF);
+	}
+
+	public static int score(long entry) {
+		return (short) (entry >>> 16);
+	}
+
+	public static int depth(long entry) {
+		return (int) (entry >>> 32 & 0xFF);
+	}
+
+	public static int bound(long entry) {
+		return (int) (entry >>> 40 & 0x3);
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * This package contains the chess engine, the computer player of the game. It
+ * searches the moves of a chess match to find the best one, and evaluates the
+ * positions it reaches.
+ * 
+ * @author Joo Victor
+ */
+package chess.engine;
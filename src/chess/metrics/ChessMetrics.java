@@ -0,0 +1,143 @@
+package chess.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class counts the operations of the chess matches and of the engine, in
+ * all the threads of the program. Each counter is a {@link LongAdder}, which
+ * keeps several cells and lets each thread add to its own cell, so threads
+ * counting at the same time don't compete for the same memory, and counting
+ * costs about as much as incrementing a field. The cells are only added up
+ * when a counter is read, which is rare.
+ * <p>
+ * The counters are enabled by default. They are disabled by starting the
+ * program with the system property "chess.metrics.disabled" set to true. The
+ * switch is a static final field, so the JIT compiler treats it as a constant
+ * and, when the counters are disabled, removes the counting code entirely.
+ * <p>
+ * The counters can be read by JMX, after {@link #registerMBean()} is called,
+ * or as snapshots, taken on demand by {@link #snapshot()} or periodically by
+ * {@link #startSnapshots(long, Consumer)}.
+ *
+ * @author Joo Victor
+ */
+public final class ChessMetrics {
+
+	/**
+	 * true if the counters are enabled
+	 */
+	public static final boolean ENABLED = !Boolean.getBoolean("chess.metrics.disabled");
+
+	/**
+	 * name of the MBean of the counters in the platform MBean server
+	 */
+	public static final String OBJECT_NAME = "chess:type=ChessMetrics";
+
+	private static final Counter[] COUNTERS = Counter.values();
+	private static final LongAdder[] ADDERS = new LongAdder[COUNTERS.length];
+
+	static {
+		for (int i = 0; i < ADDERS.length; i++) {
+			ADDERS[i] = new LongAdder();
+		}
+	}
+
+	private ChessMetrics() {
+	}
+
+	/**
+	 * counts one operation.
+	 *
+	 * @param counter the counter of the operation
+	 */
+	public static void increment(Counter counter) {
+		if (ENABLED) {
+			ADDERS[counter.ordinal()].increment();
+		}
+	}
+
+	/**
+	 * counts several operations at once.
+	 *
+	 * @param counter the counter of the operations
+	 * @param count   number of operations
+	 */
+	public static void add(Counter counter, long count) {
+		if (ENABLED) {
+			ADDERS[counter.ordinal()].add(count);
+		}
+	}
+
+	/**
+	 * @param counter a counter
+	 * @return the current value of the counter
+	 */
+	public static long get(Counter counter) {
+		return ADDERS[counter.ordinal()].sum();
+	}
+
+	/**
+	 * @return the current values of all the counters
+	 */
+	public static MetricsSnapshot snapshot() {
+		long[] values = new long[COUNTERS.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = ADDERS[i].sum();
+		}
+		return new MetricsSnapshot(values, System.nanoTime());
+	}
+
+	/**
+	 * sets all the counters to zero. The operations counted by other threads
+	 * during the reset may be lost.
+	 */
+	public static void reset() {
+		for (LongAdder adder : ADDERS) {
+			adder.reset();
+		}
+	}
+
+	/**
+	 * registers the MBean of the counters in the platform MBean server, if it
+	 * isn't registered yet.
+	 */
+	public static synchronized void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new ChessMetricsBean(), name);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Error registering the metrics MBean", e);
+		}
+	}
+
+	/**
+	 * takes a snapshot of the counters periodically, in a background thread, and
+	 * passes it to the consumer.
+	 *
+	 * @param periodMillis time between two snapshots in milliseconds
+	 * @param consumer     receives each snapshot
+	 * @return the executor of the snapshots, which must be shut down to stop them
+	 */
+	public static ScheduledExecutorService startSnapshots(long periodMillis, Consumer<MetricsSnapshot> consumer) {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "metrics-snapshots");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleAtFixedRate(() -> consumer.accept(snapshot()), periodMillis, periodMillis,
+				TimeUnit.MILLISECONDS);
+		return executor;
+	}
+}
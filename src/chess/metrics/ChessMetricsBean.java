@@ -0,0 +1,74 @@
+package chess.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class implements the management interface of the counters, reading
+ * them from {@link chess.metrics.ChessMetrics}. It remembers the previous
+ * snapshot read for the rate of nodes per second.
+ * 
+ * @author Joo Victor
+ */
+class ChessMetricsBean implements ChessMetricsMXBean {
+
+	private MetricsSnapshot previous = ChessMetrics.snapshot();
+
+	@Override
+	public boolean isEnabled() {
+		return ChessMetrics.ENABLED;
+	}
+
+	@Override
+	public Map<String, Long> getCounters() {
+		Map<String, Long> counters = new LinkedHashMap<>();
+		for (Counter counter : Counter.values()) {
+			counters.put(counter.name(), ChessMetrics.get(counter));
+		}
+		return counters;
+	}
+
+	@Override
+	public long getPossibleMovesCalls() {
+		return ChessMetrics.snapshot().getPossibleMovesCalls();
+	}
+
+	@Override
+	public long getMakeMoveCalls() {
+		return ChessMetrics.get(Counter.MAKE_MOVE);
+	}
+
+	@Override
+	public long getUndoMoveCalls() {
+		return ChessMetrics.get(Counter.UNDO_MOVE);
+	}
+
+	@Override
+	public long getCheckTests() {
+		return ChessMetrics.get(Counter.CHECK_TEST);
+	}
+
+	@Override
+	public long getCheckMateTests() {
+		return ChessMetrics.get(Counter.CHECKMATE_TEST);
+	}
+
+	@Override
+	public long getNodes() {
+		return ChessMetrics.get(Counter.NODES);
+	}
+
+	@Override
+	public synchronized long getNodesPerSecond() {
+		MetricsSnapshot current = ChessMetrics.snapshot();
+		long nodesPerSecond = current.perSecond(Counter.NODES, previous);
+		previous = current;
+		return nodesPerSecond;
+	}
+
+	@Override
+	public synchronized void reset() {
+		ChessMetrics.reset();
+		previous = ChessMetrics.snapshot();
+	}
+}
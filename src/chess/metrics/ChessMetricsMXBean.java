@@ -0,0 +1,47 @@
+package chess.metrics;
+
+import java.util.Map;
+
+/**
+ * This interface is the management interface of the counters of
+ * {@link chess.metrics.ChessMetrics}, registered in the platform MBean server
+ * under the name {@value chess.metrics.ChessMetrics#OBJECT_NAME}, so the
+ * counters can be watched with JConsole, VisualVM or any other JMX client.
+ * 
+ * @author Joo Victor
+ */
+public interface ChessMetricsMXBean {
+
+	/**
+	 * @return true if the counters are enabled
+	 */
+	boolean isEnabled();
+
+	/**
+	 * @return the value of each counter, by the name of the counter
+	 */
+	Map<String, Long> getCounters();
+
+	long getPossibleMovesCalls();
+
+	long getMakeMoveCalls();
+
+	long getUndoMoveCalls();
+
+	long getCheckTests();
+
+	long getCheckMateTests();
+
+	long getNodes();
+
+	/**
+	 * @return the nodes searched per second since the previous call of this
+	 *         method
+	 */
+	long getNodesPerSecond();
+
+	/**
+	 * sets all the counters to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,73 @@
+package chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * This class is the JDK Flight Recorder event of a move performed by
+ * {@link chess.ChessMatch#performChessMove(chess.ChessPosition, chess.ChessPosition)}
+ * or by {@link chess.ChessMatch#performMove(int, int)}.
+ * Its duration is the time of the whole move, including the check test of the
+ * opponent and the scan of the opponent's legal moves that tests checkmate or
+ * stalemate, so a recording shows which moves were slow and why, next to the
+ * garbage collections and the thread scheduling of the same moment. The engine
+ * performs thousands of moves per second during its search, so by default
+ * only the moves that take at least one millisecond are recorded; the
+ * threshold can be lowered in the settings of the recording. When no recording
+ * is running, the event costs almost nothing.
+ * 
+ * @author Joo Victor
+ */
+@Name("chess.ChessMove")
+@Label("Chess Move")
+@Category({ "Chess", "Match" })
+@Description("A move performed on a chess match")
+@StackTrace(false)
+@Threshold("1 ms")
+public class ChessMoveEvent extends Event {
+
+	@Label("Move")
+	@Description("Source and target of the move, for example e2e4")
+	private String move;
+
+	@Label("Legal Moves")
+	@Description("Number of legal moves of the player to move after the move")
+	private int legalMoves;
+
+	@Label("Check")
+	@Description("Whether the move put the opponent in check")
+	private boolean check;
+
+	@Label("Checkmate Scan")
+	@Description("Whether the legal moves of the opponent were scanned to test checkmate")
+	private boolean checkMateScan;
+
+	@Label("Stalemate Scan")
+	@Description("Whether the legal moves of the opponent were scanned to test stalemate")
+	private boolean stalemateScan;
+
+	public void setMove(String move) {
+		this.move = move;
+	}
+
+	public void setLegalMoves(int legalMoves) {
+		this.legalMoves = legalMoves;
+	}
+
+	public void setCheck(boolean check) {
+		this.check = check;
+	}
+
+	public void setCheckMateScan(boolean checkMateScan) {
+		this.checkMateScan = checkMateScan;
+	}
+
+	public void setStalemateScan(boolean stalemateScan) {
+		this.stalemateScan = stalemateScan;
+	}
+}
@@ -0,0 +1,31 @@
+package chess.metrics;
+
+/**
+ * this enumeration will represent the operations counted by
+ * {@link chess.metrics.ChessMetrics}
+ * 
+ * @author Joo Victor
+ */
+public enum Counter {
+	POSSIBLE_MOVES_KING("possible moves of kings"),
+	POSSIBLE_MOVES_QUEEN("possible moves of queens"),
+	POSSIBLE_MOVES_ROOK("possible moves of rooks"),
+	POSSIBLE_MOVES_BISHOP("possible moves of bishops"),
+	POSSIBLE_MOVES_KNIGHT("possible moves of knights"),
+	POSSIBLE_MOVES_PAWN("possible moves of pawns"),
+	MAKE_MOVE("moves made"),
+	UNDO_MOVE("moves undone"),
+	CHECK_TEST("check tests"),
+	CHECKMATE_TEST("checkmate tests"),
+	NODES("nodes searched");
+
+	private String description;
+
+	private Counter(String description) {
+		this.description = description;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+}
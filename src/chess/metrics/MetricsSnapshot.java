@@ -0,0 +1,87 @@
+package chess.metrics;
+
+/**
+ * This class holds the values of all the counters of
+ * {@link chess.metrics.ChessMetrics} at a moment in time. The difference
+ * between two snapshots gives the number of operations performed between them,
+ * and so their rate per second. A snapshot never changes after it is taken.
+ * 
+ * @author Joo Victor
+ */
+public final class MetricsSnapshot {
+
+	private final long[] values;
+	private final long timeNanos;
+
+	MetricsSnapshot(long[] values, long timeNanos) {
+		this.values = values;
+		this.timeNanos = timeNanos;
+	}
+
+	/**
+	 * @return the value of {@link System#nanoTime()} when the snapshot was taken
+	 */
+	public long getTimeNanos() {
+		return timeNanos;
+	}
+
+	/**
+	 * @param counter a counter
+	 * @return the value of the counter in the snapshot
+	 */
+	public long get(Counter counter) {
+		return values[counter.ordinal()];
+	}
+
+	/**
+	 * @return the sum of the possible moves calls of all piece types
+	 */
+	public long getPossibleMovesCalls() {
+		long calls = 0;
+		for (int i = Counter.POSSIBLE_MOVES_KING.ordinal(); i <= Counter.POSSIBLE_MOVES_PAWN.ordinal(); i++) {
+			calls += values[i];
+		}
+		return calls;
+	}
+
+	/**
+	 * returns the snapshot of the operations performed between a previous snapshot
+	 * and this one.
+	 * 
+	 * @param previous a snapshot taken before this one
+	 * @return the difference between the two snapshots, timed as this one
+	 */
+	public MetricsSnapshot minus(MetricsSnapshot previous) {
+		long[] difference = new long[values.length];
+		for (int i = 0; i < values.length; i++) {
+			difference[i] = values[i] - previous.values[i];
+		}
+		return new MetricsSnapshot(difference, timeNanos);
+	}
+
+	/**
+	 * returns the rate of a counter, per second, between a previous snapshot and
+	 * this one.
+	 * 
+	 * @param counter  a counter
+	 * @param previous a snapshot taken before this one
+	 * @return the number of operations per second
+	 */
+	public long perSecond(Counter counter, MetricsSnapshot previous) {
+		long nanos = timeNanos - previous.timeNanos;
+		long operations = get(counter) - previous.get(counter);
+		return nanos <= 0 ? 0 : (long) (operations * 1e9 / nanos);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(256);
+		for (Counter counter : Counter.values()) {
+			if (text.length() > 0) {
+				text.append(", ");
+			}
+			text.append(counter.getDescription()).append(": ").append(values[counter.ordinal()]);
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,90 @@
+package chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class is the JDK Flight Recorder event of an iteration of the iterative
+ * deepening of the engine. Its duration is the time of the iteration, and it
+ * records the depth, the nodes searched, the speed of the search and the rate
+ * of transposition table probes that found their position, so a recording
+ * shows how the time of each engine move was spent. There are only a few
+ * iterations per move, so all of them are recorded.
+ * 
+ * @author Joo Victor
+ */
+@Name("chess.SearchIteration")
+@Label("Search Iteration")
+@Category({ "Chess", "Engine" })
+@Description("An iteration of the iterative deepening search of the engine")
+@StackTrace(false)
+public class SearchIterationEvent extends Event {
+
+	@Label("Depth")
+	private int depth;
+
+	@Label("Completed")
+	@Description("Whether the iteration was completed, or stopped by a limit of the search")
+	private boolean completed;
+
+	@Label("Nodes")
+	@Description("Nodes searched in the iteration")
+	private long nodes;
+
+	@Label("Total Nodes")
+	@Description("Nodes searched since the start of the search")
+	private long totalNodes;
+
+	@Label("Nodes per Second")
+	@Description("Speed of the search in the iteration")
+	private long nodesPerSecond;
+
+	@Label("Table Hit Rate")
+	@Description("Fraction of the transposition table probes of the iteration that found their position")
+	@Percentage
+	private double tableHitRate;
+
+	@Label("Score")
+	@Description("Score of the best move in centipawns")
+	private int score;
+
+	@Label("Best Move")
+	private String bestMove;
+
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	public void setCompleted(boolean completed) {
+		this.completed = completed;
+	}
+
+	public void setNodes(long nodes) {
+		this.nodes = nodes;
+	}
+
+	public void setTotalNodes(long totalNodes) {
+		this.totalNodes = totalNodes;
+	}
+
+	public void setNodesPerSecond(long nodesPerSecond) {
+		this.nodesPerSecond = nodesPerSecond;
+	}
+
+	public void setTableHitRate(double tableHitRate) {
+		this.tableHitRate = tableHitRate;
+	}
+
+	public void setScore(int score) {
+		this.score = score;
+	}
+
+	public void setBestMove(String bestMove) {
+		this.bestMove = bestMove;
+	}
+}
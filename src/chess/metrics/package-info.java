@@ -0,0 +1,11 @@
+/**
+ * This package contains the instrumentation of the chess match and of the
+ * engine: counters of the operations that take most of the time, such as the
+ * generation of possible moves, the moves made and undone and the check tests,
+ * and of the nodes searched, which can be read through JMX or as periodic
+ * snapshots, and the events of the moves and of the search iterations recorded
+ * by the JDK Flight Recorder.
+ * 
+ * @author Joo Victor
+ */
+package chess.metrics;
@@ -0,0 +1,308 @@
+package chess.pgn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.GameResult;
+import chess.engine.Engine;
+import chess.engine.EnginePool;
+import chess.engine.SearchLimits;
+
+/**
+ * This class annotates the games of a PGN file with the evaluations of the
+ * engine. Every position of each game is searched with a fixed budget of nodes
+ * or of time, and each move gets a comment with the evaluation of the position
+ * it reached, in pawns from the point of view of the white player, as in
+ * {[%eval 0.35]} or {[%eval #-3]}, and a NAG when it lost too much of the
+ * evaluation: $6 (?!) for an inaccuracy, $2 (?) for a mistake and $4 (??) for a
+ * blunder. The games are annotated in parallel, one game per thread at a time,
+ * each thread with its own engine, and the positions of a game are searched
+ * from the last one to the first, so the transposition table already holds the
+ * positions that follow each move when it is searched. The annotated games are
+ * written in the order of the input file.
+ * <p>
+ * The annotation can be interrupted and started again: after each game is
+ * written, the number of games and of bytes written so far are saved in a
+ * progress file next to the output file, and when the annotation starts with
+ * that file present, the output is cut back to the saved length and the games
+ * already written are skipped. The progress file is deleted at the end.
+ *
+ * @author Joo Victor
+ */
+public class PgnAnnotator {
+
+	/**
+	 * losses of evaluation, in centipawns, from which a move is marked as an
+	 * inaccuracy, a mistake or a blunder
+	 */
+	private static final int INACCURACY = 50;
+	private static final int MISTAKE = 100;
+	private static final int BLUNDER = 300;
+
+	/**
+	 * the evaluations are limited to ten pawns when the losses are computed, so
+	 * a mate and a winning material advantage are not too far apart
+	 */
+	private static final int EVALUATION_LIMIT = 1000;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int hashMegabytes = 16;
+	private SearchLimits limits = SearchLimits.nodes(100_000);
+	private PrintStream log;
+
+	private AtomicLong positions = new AtomicLong();
+	private long elapsedNanos;
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	public void setHashMegabytes(int hashMegabytes) {
+		this.hashMegabytes = hashMegabytes;
+	}
+
+	public SearchLimits getLimits() {
+		return limits;
+	}
+
+	/**
+	 * @param limits the limits of the search of each position, 100000 nodes by
+	 *               default; a number of nodes, as given by
+	 *               {@link chess.engine.SearchLimits#nodes(long)}, gives the same
+	 *               annotations on any computer
+	 */
+	public void setLimits(SearchLimits limits) {
+		this.limits = limits;
+	}
+
+	public void setLog(PrintStream log) {
+		this.log = log;
+	}
+
+	/**
+	 * @return the number of positions searched so far
+	 */
+	public long getPositions() {
+		return positions.get();
+	}
+
+	/**
+	 * @return the number of positions searched per second of wall time
+	 */
+	public double getPositionsPerSecond() {
+		return elapsedNanos == 0 ? 0 : positions.get() * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * annotates the games of a PGN file into another PGN file, resuming an
+	 * interrupted annotation if the progress file of the output exists. A game
+	 * with an illegal move is written with the moves before it annotated and
+	 * the remaining ones left out, with a comment on the illegal move, which is
+	 * a comment on the whole game when the illegal move is the first one.
+	 *
+	 * @param input  PGN file with the games
+	 * @param output PGN file that receives the annotated games
+	 * @return the number of games annotated by this call
+	 * @throws IOException          if a file can't be read or written
+	 * @throws InterruptedException if the thread is interrupted, in which case
+	 *                              the annotation can be resumed later
+	 */
+	public int annotate(Path input, Path output) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		Path progressFile = output.resolveSibling(output.getFileName() + ".progress");
+		long[] progress = readProgress(progressFile);
+		long gamesWritten = progress[0];
+		int annotated = 0;
+		try (EnginePool pool = new EnginePool(threads, hashMegabytes);
+				PgnReader reader = new PgnReader(Files.newBufferedReader(input, StandardCharsets.ISO_8859_1));
+				FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			channel.truncate(progress[1]);
+			channel.position(progress[1]);
+			Writer writer = Channels.newWriter(channel, StandardCharsets.ISO_8859_1.newEncoder(), -1);
+			for (long i = 0; i < gamesWritten && reader.read() != null; i++) {
+				// already annotated by an interrupted run
+			}
+			Deque<Future<PgnGame>> pending = new ArrayDeque<>();
+			PgnGame game;
+			while ((game = reader.read()) != null) {
+				PgnGame next = game;
+				pending.add(pool.submit(engine -> annotate(next, engine)));
+				if (pending.size() >= threads * 2) {
+					writeGame(pending.poll(), writer, channel, ++gamesWritten, progressFile, start);
+					annotated++;
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeGame(pending.poll(), writer, channel, ++gamesWritten, progressFile, start);
+				annotated++;
+			}
+		} finally {
+			elapsedNanos = System.nanoTime() - start;
+		}
+		Files.deleteIfExists(progressFile);
+		return annotated;
+	}
+
+	/**
+	 * annotates a game with the engine passed as a parameter, searching its
+	 * positions from the last one to the first.
+	 *
+	 * @param game   chess game
+	 * @param engine engine used for all the positions of the game
+	 * @return the annotated game
+	 */
+	public PgnGame annotate(PgnGame game, Engine engine) {
+		PgnGame annotated = new PgnGame();
+		for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+			annotated.setTag(tag.getKey(), tag.getValue());
+		}
+		annotated.setResult(game.getResult());
+
+		ChessMatch chessMatch = game.startPosition();
+		List<ChessMatch> matches = new ArrayList<>();
+		matches.add(chessMatch.copy());
+		String illegalMove = null;
+		for (String san : game.getMoves()) {
+			try {
+				int move = San.parse(chessMatch, san);
+				annotated.addMove(San.format(chessMatch, move, San.promotion(san)));
+				San.perform(chessMatch, san);
+			} catch (ChessException e) {
+				illegalMove = san;
+				break;
+			}
+			matches.add(chessMatch.copy());
+		}
+
+		engine.getTable().clear();
+		int[] evaluations = new int[matches.size()];
+		for (int i = matches.size() - 1; i >= 0; i--) {
+			evaluations[i] = evaluate(matches.get(i), engine);
+			positions.incrementAndGet();
+		}
+
+		for (int ply = 0; ply < annotated.getMoves().size(); ply++) {
+			ChessMatch after = matches.get(ply + 1);
+			if (!after.getResult().isOver()) {
+				annotated.setComment(ply, "[%eval " + evaluationText(evaluations[ply + 1]) + "]");
+			}
+			int sign = matches.get(ply).getCurrentPlayer() == Color.WHITE ? 1 : -1;
+			int loss = sign * (limit(evaluations[ply]) - limit(evaluations[ply + 1]));
+			annotated.setNag(ply, loss >= BLUNDER ? 4 : loss >= MISTAKE ? 2 : loss >= INACCURACY ? 6 : 0);
+		}
+		if (illegalMove != null) {
+			if (annotated.getMoves().isEmpty()) {
+				annotated.setGameComment("illegal move " + illegalMove);
+			} else {
+				int last = annotated.getMoves().size() - 1;
+				String comment = annotated.getComment(last);
+				annotated.setComment(last, (comment != null ? comment + " " : "") + "illegal move " + illegalMove);
+			}
+		}
+		return annotated;
+	}
+
+	/**
+	 * evaluates a position in centipawns from the point of view of the white
+	 * player. On checkmate, the current player of the match is the winner.
+	 */
+	private int evaluate(ChessMatch chessMatch, Engine engine) {
+		int sign = chessMatch.getCurrentPlayer() == Color.WHITE ? 1 : -1;
+		GameResult result = chessMatch.getResult();
+		if (result == GameResult.CHECKMATE) {
+			return sign * Engine.MATE;
+		}
+		if (result.isOver()) {
+			return 0;
+		}
+		return sign * engine.search(chessMatch, limits).getScore();
+	}
+
+	private static int limit(int evaluation) {
+		return Math.max(-EVALUATION_LIMIT, Math.min(evaluation, EVALUATION_LIMIT));
+	}
+
+	/**
+	 * writes an evaluation as in the %eval commands of PGN comments: in pawns with
+	 * two decimals, or the number of moves of a mate after a '#', negative when
+	 * the black player mates.
+	 */
+	private static String evaluationText(int evaluation) {
+		int distance = Engine.MATE - Math.abs(evaluation);
+		if (distance <= SearchLimits.MAX_DEPTH * 2) {
+			return "#" + (evaluation < 0 ? "-" : "") + (distance + 1) / 2;
+		}
+		return String.format(Locale.ROOT, "%.2f", evaluation / 100.0);
+	}
+
+	/**
+	 * waits for the next game, in the order of the input file, writes it and
+	 * saves the progress of the annotation.
+	 */
+	private void writeGame(Future<PgnGame> future, Writer writer, FileChannel channel, long gamesWritten,
+			Path progressFile, long start) throws IOException, InterruptedException {
+		PgnGame game = EnginePool.result(future);
+		PgnWriter.write(game, writer);
+		writer.flush();
+		channel.force(false);
+		writeProgress(progressFile, gamesWritten, channel.position());
+		elapsedNanos = System.nanoTime() - start;
+		if (log != null) {
+			log.println(String.format(Locale.ROOT, "Game %d: %d moves, %d positions, %.0f positions/s", gamesWritten,
+					game.getMoves().size(), positions.get(), getPositionsPerSecond()));
+		}
+	}
+
+	/**
+	 * @return the number of games and of bytes written by an interrupted
+	 *         annotation, or zeros if there is no progress file
+	 */
+	private static long[] readProgress(Path progressFile) throws IOException {
+		if (!Files.exists(progressFile)) {
+			return new long[2];
+		}
+		try (BufferedReader reader = Files.newBufferedReader(progressFile, StandardCharsets.ISO_8859_1)) {
+			String[] fields = reader.readLine().trim().split("\\s+");
+			return new long[] { Long.parseLong(fields[0]), Long.parseLong(fields[1]) };
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid progress file: " + progressFile, e);
+		}
+	}
+
+	/**
+	 * saves the progress to a temporary file that then replaces the progress
+	 * file, so an interruption never leaves a progress file half written.
+	 */
+	private static void writeProgress(Path progressFile, long games, long bytes) throws IOException {
+		Path temporaryFile = progressFile.resolveSibling(progressFile.getFileName() + ".tmp");
+		Files.write(temporaryFile, (games + " " + bytes + "\n").getBytes(StandardCharsets.ISO_8859_1));
+		Files.move(temporaryFile, progressFile, StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -0,0 +1,121 @@
+package chess.pgn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.Fen;
+
+/**
+ * This class is a chess game read from or written to a PGN file: its tags, such
+ * as the players and the event, its moves in SAN, the comment and the numeric
+ * annotation glyph (NAG) of each move, such as $2 for a mistake, a comment on
+ * the whole game, written before the first move, and its result. The variations of the file are not kept.
+ *
+ * @author Joo Victor
+ */
+public class PgnGame {
+
+	public static final String UNKNOWN_RESULT = "*";
+
+	private Map<String, String> tags = new LinkedHashMap<>();
+	private List<String> moves = new ArrayList<>();
+	private List<String> comments = new ArrayList<>();
+	private List<Integer> nags = new ArrayList<>();
+	private String gameComment;
+	private String result = UNKNOWN_RESULT;
+
+	/**
+	 * @param name name of a tag
+	 * @return the value of the tag, or null if the game doesn't have it
+	 */
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	public void setTag(String name, String value) {
+		tags.put(name, value);
+	}
+
+	/**
+	 * @return the tags of the game, in the order they were added
+	 */
+	public Map<String, String> getTags() {
+		return Collections.unmodifiableMap(tags);
+	}
+
+	/**
+	 * @return the moves of the game in SAN
+	 */
+	public List<String> getMoves() {
+		return Collections.unmodifiableList(moves);
+	}
+
+	/**
+	 * adds a move to the end of the game, without comment or NAG.
+	 *
+	 * @param san the move in SAN
+	 */
+	public void addMove(String san) {
+		moves.add(san);
+		comments.add(null);
+		nags.add(0);
+	}
+
+	/**
+	 * @param ply index of a move of the game, starting at 0
+	 * @return the comment written after the move, or null
+	 */
+	public String getComment(int ply) {
+		return comments.get(ply);
+	}
+
+	public void setComment(int ply, String comment) {
+		comments.set(ply, comment);
+	}
+
+	/**
+	 * @param ply index of a move of the game, starting at 0
+	 * @return the NAG of the move, or 0 if the move has none
+	 */
+	public int getNag(int ply) {
+		return nags.get(ply);
+	}
+
+	public void setNag(int ply, int nag) {
+		nags.set(ply, nag);
+	}
+
+	/**
+	 * @return the comment written before the first move, or null
+	 */
+	public String getGameComment() {
+		return gameComment;
+	}
+
+	public void setGameComment(String gameComment) {
+		this.gameComment = gameComment;
+	}
+
+	public String getResult() {
+		return result;
+	}
+
+	public void setResult(String result) {
+		this.result = result;
+	}
+
+	/**
+	 * creates the chess match in the position where the game starts: the position
+	 * of the FEN tag, if the game has one, or the initial position otherwise.
+	 *
+	 * @return a match at the start position of the game
+	 */
+	public ChessMatch startPosition() {
+		String fen = tags.get("FEN");
+		return fen != null ? Fen.read(fen) : new ChessMatch();
+	}
+}
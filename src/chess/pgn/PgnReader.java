@@ -0,0 +1,159 @@
+package chess.pgn;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * This class reads the games of a PGN file one at a time, so a file with many
+ * games is never kept in memory at once. The tag pairs of each game, such as
+ * [White "Name"], are read into the tags of a {@link chess.pgn.PgnGame}, and
+ * the move text into its moves in SAN. The move numbers, the comments between
+ * braces or after a semicolon, the NAGs and the variations between parentheses
+ * are skipped, and a game ends at its result (1-0, 0-1, 1/2-1/2 or *) or at
+ * the tags of the next game.
+ *
+ * @author Joo Victor
+ */
+public class PgnReader implements Closeable {
+
+	private BufferedReader reader;
+	private String pendingLine;
+	private boolean inComment;
+	private int variationDepth;
+
+	public PgnReader(Reader reader) {
+		this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+	}
+
+	/**
+	 * reads the next game of the file.
+	 *
+	 * @return the next game, or null if there are no more games
+	 * @throws IOException if the file can't be read
+	 */
+	public PgnGame read() throws IOException {
+		PgnGame game = null;
+		boolean inMoves = false;
+		inComment = false;
+		variationDepth = 0;
+		String line;
+		while ((line = nextLine()) != null) {
+			String trimmed = line.trim();
+			if (!inComment && trimmed.startsWith("[")) {
+				if (inMoves) {
+					// the tags of the next game, after a game without result
+					pendingLine = line;
+					break;
+				}
+				if (game == null) {
+					game = new PgnGame();
+				}
+				readTag(game, trimmed);
+			} else if (!inComment && (trimmed.isEmpty() || trimmed.startsWith("%"))) {
+				continue;
+			} else {
+				if (game == null) {
+					game = new PgnGame();
+				}
+				inMoves = true;
+				if (readMoves(game, line)) {
+					break;
+				}
+			}
+		}
+		return game;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private String nextLine() throws IOException {
+		if (pendingLine != null) {
+			String line = pendingLine;
+			pendingLine = null;
+			return line;
+		}
+		return reader.readLine();
+	}
+
+	/**
+	 * reads a tag pair, such as [Event "Casual game"], where the backslash
+	 * escapes a quote or another backslash in the value.
+	 */
+	private static void readTag(PgnGame game, String line) {
+		int space = line.indexOf(' ');
+		int firstQuote = line.indexOf('"');
+		int lastQuote = line.lastIndexOf('"');
+		if (space < 0 || firstQuote < 0 || lastQuote <= firstQuote) {
+			return;
+		}
+		String value = line.substring(firstQuote + 1, lastQuote).replace("\\\"", "\"").replace("\\\\", "\\");
+		game.setTag(line.substring(1, space).trim(), value);
+	}
+
+	/**
+	 * reads the moves of a line of the move text, keeping the state of the
+	 * comments and the variations that go on to the next line.
+	 *
+	 * @return true if the line contains the result of the game, which ends it
+	 */
+	private boolean readMoves(PgnGame game, String line) {
+		int i = 0;
+		while (i < line.length()) {
+			char c = line.charAt(i);
+			if (inComment) {
+				inComment = c != '}';
+				i++;
+			} else if (c == '{') {
+				inComment = true;
+				i++;
+			} else if (c == ';') {
+				return false;
+			} else if (c == '(' || c == ')') {
+				variationDepth += c == '(' ? 1 : -1;
+				i++;
+			} else if (Character.isWhitespace(c)) {
+				i++;
+			} else {
+				int start = i;
+				while (i < line.length() && !Character.isWhitespace(line.charAt(i))
+						&& "{}();".indexOf(line.charAt(i)) < 0) {
+					i++;
+				}
+				if (variationDepth == 0 && readToken(game, line.substring(start, i))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the token is the result of the game
+	 */
+	private static boolean readToken(PgnGame game, String token) {
+		if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+			game.setResult(token);
+			return true;
+		}
+		if (token.startsWith("$")) {
+			return false;
+		}
+		if (!token.startsWith("0-0")) {
+			// move numbers, as in "12." and "12...", possibly joined to the move
+			int start = 0;
+			while (start < token.length() && (Character.isDigit(token.charAt(start)) || token.charAt(start) == '.')) {
+				start++;
+			}
+			token = token.substring(start);
+		}
+		if (!token.isEmpty()) {
+			game.addMove(token);
+		}
+		return false;
+	}
+}
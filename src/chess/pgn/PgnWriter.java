@@ -0,0 +1,77 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.util.Map;
+
+import chess.ChessMatch;
+
+/**
+ * This class writes chess games in the PGN format: the tag pairs, one per
+ * line, an empty line, and the move text, with the comment of the game, the
+ * move numbers, the NAG and the comment of each move, and the result, wrapped
+ * in lines of at most 79 characters, as recommended by the PGN standard.
+ *
+ * @author Joo Victor
+ */
+public final class PgnWriter {
+
+	private static final int LINE_LENGTH = 79;
+
+	private PgnWriter() {
+	}
+
+	/**
+	 * writes a game in the PGN format, followed by an empty line. The numbers of
+	 * the moves start at the full move of the start position of the game.
+	 *
+	 * @param game chess game
+	 * @param out  where the game is written
+	 * @throws IOException if the game can't be written
+	 */
+	public static void write(PgnGame game, Appendable out) throws IOException {
+		for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+			out.append('[').append(tag.getKey()).append(" \"")
+					.append(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+		}
+		out.append('\n');
+
+		ChessMatch start = game.startPosition();
+		int turn = start.getTurn();
+		StringBuilder line = new StringBuilder();
+		boolean numberNeeded = true;
+		if (game.getGameComment() != null) {
+			append(out, line, "{" + game.getGameComment().replace('}', ')') + "}");
+		}
+		for (int ply = 0; ply < game.getMoves().size(); ply++, turn++) {
+			boolean white = turn % 2 == 1;
+			if (white || numberNeeded) {
+				append(out, line, (turn + 1) / 2 + (white ? "." : "..."));
+			}
+			append(out, line, game.getMoves().get(ply));
+			if (game.getNag(ply) != 0) {
+				append(out, line, "$" + game.getNag(ply));
+			}
+			numberNeeded = game.getComment(ply) != null;
+			if (numberNeeded) {
+				append(out, line, "{" + game.getComment(ply).replace('}', ')') + "}");
+			}
+		}
+		append(out, line, game.getResult());
+		out.append(line).append("\n\n");
+	}
+
+	/**
+	 * appends a token to the line of move text, writing the line first if the
+	 * token doesn't fit in it.
+	 */
+	private static void append(Appendable out, StringBuilder line, String token) throws IOException {
+		if (line.length() > 0 && line.length() + 1 + token.length() > LINE_LENGTH) {
+			out.append(line).append('\n');
+			line.setLength(0);
+		}
+		if (line.length() > 0) {
+			line.append(' ');
+		}
+		line.append(token);
+	}
+}
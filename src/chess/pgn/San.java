@@ -0,0 +1,264 @@
+package chess.pgn;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.MoveList;
+import chess.PieceType;
+
+/**
+ * This class converts the moves of a chess match from and to the standard
+ * algebraic notation (SAN) used by PGN files, for example "Nf3", "exd5",
+ * "Raxe1+", "e8=Q#" and "O-O". The moves are the integers of
+ * {@link chess.MoveList}, and a move written in SAN is found among the legal
+ * moves of the match returned by the
+ * {@link chess.ChessMatch#legalMoves(MoveList)} method, so a text that isn't
+ * a legal move of the position is refused with a ChessException. In SAN the
+ * knight is the letter N, while in this game it is the letter H.
+ *
+ * @author Joo Victor
+ */
+public final class San {
+
+	private static final String PIECE_LETTERS = "KQRBN";
+
+	private San() {
+	}
+
+	/**
+	 * finds the legal move of the current player of a chess match that is written
+	 * in SAN by the text passed as a parameter. The check, mate and annotation
+	 * symbols at the end of the text (+, #, ! and ?) are ignored, and so is a
+	 * missing promotion piece. If the text doesn't describe exactly one legal
+	 * move, then a ChessException will be thrown.
+	 *
+	 * @param chessMatch chess match
+	 * @param san        the move in SAN
+	 * @return the move, as an integer of {@link chess.MoveList}
+	 */
+	public static int parse(ChessMatch chessMatch, String san) {
+		String text = strip(san);
+		MoveList moves = new MoveList();
+		chessMatch.legalMoves(moves);
+		if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+			int direction = text.length() == 3 ? 2 : -2;
+			for (int i = 0; i < moves.size(); i++) {
+				int move = moves.get(i);
+				if (chessMatch.getPiece(MoveList.source(move)).getType() == PieceType.KING
+						&& MoveList.target(move) - MoveList.source(move) == direction) {
+					return move;
+				}
+			}
+			throw new ChessException("Illegal move: " + san);
+		}
+
+		PieceType type = PieceType.PAWN;
+		int start = 0;
+		if (!text.isEmpty() && PIECE_LETTERS.indexOf(text.charAt(0)) >= 0) {
+			type = pieceType(text.charAt(0));
+			start = 1;
+		}
+		char promotion = promotion(san);
+		if (promotion != 0) {
+			int equals = text.indexOf('=');
+			text = text.substring(0, equals >= 0 ? equals : text.length() - 1);
+		}
+		if (text.length() - start < 2) {
+			throw new ChessException("Invalid move: " + san);
+		}
+		int target = square(text.charAt(text.length() - 2), text.charAt(text.length() - 1), san);
+		int sourceRow = -1;
+		int sourceColumn = -1;
+		for (int i = start; i < text.length() - 2; i++) {
+			char c = text.charAt(i);
+			if (c >= 'a' && c <= 'h') {
+				sourceColumn = c - 'a';
+			} else if (c >= '1' && c <= '8') {
+				sourceRow = '8' - c;
+			} else if (c != 'x' && c != '-') {
+				throw new ChessException("Invalid move: " + san);
+			}
+		}
+
+		int found = -1;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			int source = MoveList.source(move);
+			if (MoveList.target(move) != target || chessMatch.getPiece(source).getType() != type
+					|| (sourceColumn >= 0 && source % 8 != sourceColumn) || (sourceRow >= 0 && source / 8 != sourceRow)
+					|| (promotion != 0 && !MoveList.isPromotion(move))) {
+				continue;
+			}
+			if (found >= 0) {
+				throw new ChessException("Ambiguous move: " + san);
+			}
+			found = move;
+		}
+		if (found < 0) {
+			throw new ChessException("Illegal move: " + san);
+		}
+		return found;
+	}
+
+	/**
+	 * performs on a chess match the move written in SAN by the text passed as a
+	 * parameter, found by the {@link #parse(ChessMatch, String)} method. When the
+	 * move is a promotion, the pawn is replaced by the piece of the text, or by a
+	 * queen if the text has no piece.
+	 *
+	 * @param chessMatch chess match
+	 * @param san        the move in SAN
+	 * @return the move performed, as an integer of {@link chess.MoveList}
+	 */
+	public static int perform(ChessMatch chessMatch, String san) {
+		int move = parse(chessMatch, san);
+		perform(chessMatch, move, promotion(san));
+		return move;
+	}
+
+	/**
+	 * writes a legal move of the current player of a chess match in SAN. The
+	 * source column, row or square is only written when another piece of the
+	 * same type can reach the same target square, and the move is performed on a
+	 * copy of the match to find whether it gives check (+) or checkmate (#).
+	 *
+	 * @param chessMatch chess match
+	 * @param move       a legal move, as an integer of {@link chess.MoveList}
+	 * @param promotion  the SAN letter of the promotion piece (Q, R, B or N), or 0
+	 *                   for a queen when the move is a promotion
+	 * @return the move in SAN
+	 */
+	public static String format(ChessMatch chessMatch, int move, char promotion) {
+		int source = MoveList.source(move);
+		int target = MoveList.target(move);
+		ChessPiece piece = chessMatch.getPiece(source);
+		StringBuilder sb = new StringBuilder();
+		if (piece.getType() == PieceType.KING && Math.abs(target - source) == 2) {
+			sb.append(target > source ? "O-O" : "O-O-O");
+		} else if (piece.getType() == PieceType.PAWN) {
+			if (source % 8 != target % 8) {
+				sb.append((char) ('a' + source % 8)).append('x');
+			}
+			sb.append(MoveList.targetPosition(move));
+			if (MoveList.isPromotion(move)) {
+				sb.append('=').append(promotion == 0 ? 'Q' : promotion);
+			}
+		} else {
+			sb.append(letter(piece.getType()));
+			appendSource(sb, chessMatch, move);
+			if (chessMatch.getPiece(target) != null) {
+				sb.append('x');
+			}
+			sb.append(MoveList.targetPosition(move));
+		}
+		ChessMatch next = chessMatch.copy();
+		perform(next, move, promotion);
+		if (next.getCheckMate()) {
+			sb.append('#');
+		} else if (next.getCheck()) {
+			sb.append('+');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param san a move in SAN
+	 * @return the SAN letter of the promotion piece of the move (Q, R, B or N),
+	 *         or 0 if the text has no promotion piece
+	 */
+	public static char promotion(String san) {
+		String text = strip(san);
+		int equals = text.indexOf('=');
+		if (equals >= 0) {
+			if (equals + 1 >= text.length() || PIECE_LETTERS.indexOf(text.charAt(equals + 1)) < 1) {
+				throw new ChessException("Invalid promotion: " + san);
+			}
+			return text.charAt(equals + 1);
+		}
+		// some files omit the '=', as in "e8Q"
+		if (text.length() > 2 && Character.isDigit(text.charAt(text.length() - 2))
+				&& PIECE_LETTERS.indexOf(text.charAt(text.length() - 1)) >= 1 && !Character.isUpperCase(text.charAt(0))) {
+			return text.charAt(text.length() - 1);
+		}
+		return 0;
+	}
+
+	/**
+	 * writes the source column, row or square of a move when another piece of the
+	 * same type can also reach the target square: the column if it tells the
+	 * pieces apart, otherwise the row, otherwise both.
+	 */
+	private static void appendSource(StringBuilder sb, ChessMatch chessMatch, int move) {
+		int source = MoveList.source(move);
+		int target = MoveList.target(move);
+		PieceType type = chessMatch.getPiece(source).getType();
+		MoveList moves = new MoveList();
+		chessMatch.legalMoves(moves);
+		boolean ambiguous = false;
+		boolean sameColumn = false;
+		boolean sameRow = false;
+		for (int i = 0; i < moves.size(); i++) {
+			int other = MoveList.source(moves.get(i));
+			if (other != source && MoveList.target(moves.get(i)) == target
+					&& chessMatch.getPiece(other).getType() == type) {
+				ambiguous = true;
+				sameColumn |= other % 8 == source % 8;
+				sameRow |= other / 8 == source / 8;
+			}
+		}
+		if (ambiguous) {
+			String square = MoveList.sourcePosition(move).toString();
+			if (!sameColumn) {
+				sb.append(square.charAt(0));
+			} else if (!sameRow) {
+				sb.append(square.charAt(1));
+			} else {
+				sb.append(square);
+			}
+		}
+	}
+
+	private static void perform(ChessMatch chessMatch, int move, char promotion) {
+		chessMatch.performChessMove(MoveList.sourcePosition(move), MoveList.targetPosition(move));
+		if (MoveList.isPromotion(move) && promotion != 0 && promotion != 'Q') {
+			chessMatch.replacePromotedPiece(String.valueOf(pieceType(promotion).getSymbol()));
+		}
+	}
+
+	/**
+	 * removes the check, mate and annotation symbols from the end of a move.
+	 */
+	private static String strip(String san) {
+		int end = san.length();
+		while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+			end--;
+		}
+		return san.substring(0, end).trim();
+	}
+
+	private static int square(char column, char row, String san) {
+		if (column < 'a' || column > 'h' || row < '1' || row > '8') {
+			throw new ChessException("Invalid move: " + san);
+		}
+		return ('8' - row) * 8 + (column - 'a');
+	}
+
+	private static PieceType pieceType(char letter) {
+		switch (letter) {
+		case 'K':
+			return PieceType.KING;
+		case 'Q':
+			return PieceType.QUEEN;
+		case 'R':
+			return PieceType.ROOK;
+		case 'B':
+			return PieceType.BISHOP;
+		default:
+			return PieceType.KNIGHT;
+		}
+	}
+
+	private static char letter(PieceType type) {
+		return type == PieceType.KNIGHT ? 'N' : type.getSymbol();
+	}
+}
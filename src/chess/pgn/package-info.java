@@ -0,0 +1,8 @@
+/**
+ * This package reads and writes chess games in the PGN format, converts their
+ * moves from and to the standard algebraic notation, and annotates them in
+ * batch with the evaluations of the engine.
+ * 
+ * @author Joo Victor
+ */
+package chess.pgn;
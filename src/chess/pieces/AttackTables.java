@@ -0,0 +1,302 @@
+package chess.pieces;
+
+import java.util.SplittableRandom;
+
+import chess.Color;
+
+/**
+ * This class keeps the squares attacked by the pieces from each square of the
+ * board, computed once when the class is loaded, so that the possible moves of
+ * the pieces are read from a table instead of testing their offsets or walking
+ * their lines square by square. Each table entry is a set of squares in a
+ * long, where the square of a row and a column is the bit row * 8 + column (so
+ * bit 0 is a8, the top-left square, and bit 63 is h1). The targets of a piece
+ * are then visited with {@link Long#numberOfTrailingZeros(long)}, lowest bit
+ * first, and only those squares of the board are read.
+ * <p>
+ * The pawns move differently for each color, so their tables are indexed by
+ * the color too: the square one row ahead, where the pawn moves if it is empty,
+ * and the two diagonal squares ahead, which the pawn attacks.
+ * <p>
+ * The rooks and the bishops (and the queens, which move as both) attack along
+ * lines that stop at the first piece in their way, so their attacks also depend
+ * on the occupancy of the board. They are read from tables indexed by magic
+ * bitboards: for each square, only the squares of its lines that can block it
+ * are kept from the occupancy (the edges of the board never block anything,
+ * since the line ends there anyway), and that relevant occupancy is multiplied
+ * by a magic number and shifted, which packs its bits into a small index into
+ * the table of the square. The magic numbers are found when the class is
+ * loaded, by trying random sparse numbers, with a fixed seed, until one maps
+ * every relevant occupancy of the square to an index whose entry has the same
+ * attacks. The time taken to compute all the tables is kept by
+ * {@link #getGenerationNanos()}. The tables are for the 8x8 board of the chess
+ * match, with the squares numbered as the bits of
+ * {@link boardgame.Board#getOccupancy()}.
+ *
+ * @author Joo Victor
+ */
+public final class AttackTables {
+
+	private static final int[][] KNIGHT_OFFSETS = { { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 }, { 1, 2 }, { 2, 1 },
+			{ 2, -1 }, { 1, -2 } };
+	private static final int[][] KING_OFFSETS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 },
+			{ 1, -1 }, { 1, 1 } };
+
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+	private static final long[] KING_ATTACKS = new long[64];
+	private static final long[][] PAWN_PUSHES = new long[2][64];
+	private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+	private static final int[][] ROOK_DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+	private static final int[][] BISHOP_DIRECTIONS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
+
+	private static final long[] ROOK_MASKS = new long[64];
+	private static final long[] ROOK_MAGICS = new long[64];
+	private static final int[] ROOK_SHIFTS = new int[64];
+	private static final int[] ROOK_OFFSETS = new int[64];
+	private static final long[] ROOK_TABLE;
+
+	private static final long[] BISHOP_MASKS = new long[64];
+	private static final long[] BISHOP_MAGICS = new long[64];
+	private static final int[] BISHOP_SHIFTS = new int[64];
+	private static final int[] BISHOP_OFFSETS = new int[64];
+	private static final long[] BISHOP_TABLE;
+
+	private static final long GENERATION_NANOS;
+
+	static {
+		long start = System.nanoTime();
+		for (int square = 0; square < 64; square++) {
+			int row = square / 8;
+			int column = square % 8;
+			KNIGHT_ATTACKS[square] = squares(row, column, KNIGHT_OFFSETS);
+			KING_ATTACKS[square] = squares(row, column, KING_OFFSETS);
+			for (Color color : Color.values()) {
+				int forward = color == Color.WHITE ? -1 : 1;
+				PAWN_PUSHES[index(color)][square] = squares(row, column, new int[][] { { forward, 0 } });
+				PAWN_ATTACKS[index(color)][square] = squares(row, column, new int[][] { { forward, -1 }, { forward, 1 } });
+			}
+		}
+
+		SplittableRandom random = new SplittableRandom(2020);
+		ROOK_TABLE = new long[tableSize(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS)];
+		BISHOP_TABLE = new long[tableSize(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS)];
+		for (int square = 0; square < 64; square++) {
+			ROOK_MAGICS[square] = findMagic(square, ROOK_DIRECTIONS, ROOK_MASKS[square], ROOK_SHIFTS[square],
+					ROOK_TABLE, ROOK_OFFSETS[square], random);
+			BISHOP_MAGICS[square] = findMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS[square], BISHOP_SHIFTS[square],
+					BISHOP_TABLE, BISHOP_OFFSETS[square], random);
+		}
+		GENERATION_NANOS = System.nanoTime() - start;
+	}
+
+	private AttackTables() {
+	}
+
+	/**
+	 * @param square a square, row * 8 + column
+	 * @return the squares a knight on the square attacks
+	 */
+	public static long knightAttacks(int square) {
+		return KNIGHT_ATTACKS[square];
+	}
+
+	/**
+	 * @param square a square, row * 8 + column
+	 * @return the squares around the square, which a king on it attacks
+	 */
+	public static long kingAttacks(int square) {
+		return KING_ATTACKS[square];
+	}
+
+	/**
+	 * @param color  color of the pawn
+	 * @param square a square, row * 8 + column
+	 * @return the square one row ahead of a pawn on the square, or no square if
+	 *         the pawn is on the last row
+	 */
+	public static long pawnPushes(Color color, int square) {
+		return PAWN_PUSHES[index(color)][square];
+	}
+
+	/**
+	 * @param color  color of the pawn
+	 * @param square a square, row * 8 + column
+	 * @return the diagonal squares ahead of a pawn on the square, which it
+	 *         attacks
+	 */
+	public static long pawnAttacks(Color color, int square) {
+		return PAWN_ATTACKS[index(color)][square];
+	}
+
+	/**
+	 * @param square    a square, row * 8 + column
+	 * @param occupancy occupancy bitboard of the board
+	 * @return the squares a rook on the square attacks, up to and including the
+	 *         first occupied square of each line
+	 */
+	public static long rookAttacks(int square, long occupancy) {
+		long relevant = occupancy & ROOK_MASKS[square];
+		return ROOK_TABLE[ROOK_OFFSETS[square] + (int) ((relevant * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+	}
+
+	/**
+	 * @param square    a square, row * 8 + column
+	 * @param occupancy occupancy bitboard of the board
+	 * @return the squares a bishop on the square attacks, up to and including the
+	 *         first occupied square of each diagonal
+	 */
+	public static long bishopAttacks(int square, long occupancy) {
+		long relevant = occupancy & BISHOP_MASKS[square];
+		return BISHOP_TABLE[BISHOP_OFFSETS[square]
+				+ (int) ((relevant * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+	}
+
+	/**
+	 * @param square    a square, row * 8 + column
+	 * @param occupancy occupancy bitboard of the board
+	 * @return the squares a queen on the square attacks, which are the ones a rook
+	 *         and a bishop on the square would attack
+	 */
+	public static long queenAttacks(int square, long occupancy) {
+		return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+	}
+
+	/**
+	 * @return the time taken to compute all the tables, in nanoseconds
+	 */
+	public static long getGenerationNanos() {
+		return GENERATION_NANOS;
+	}
+
+	private static int index(Color color) {
+		return color == Color.WHITE ? 0 : 1;
+	}
+
+	/**
+	 * the set of the squares at the offsets passed as a parameter from a square,
+	 * leaving out the ones that fall off the board.
+	 */
+	private static long squares(int row, int column, int[][] offsets) {
+		long squares = 0L;
+		for (int[] offset : offsets) {
+			int targetRow = row + offset[0];
+			int targetColumn = column + offset[1];
+			if (onBoard(targetRow, targetColumn)) {
+				squares |= 1L << (targetRow * 8 + targetColumn);
+			}
+		}
+		return squares;
+	}
+
+	/**
+	 * computes the relevant occupancy mask of each square for the lines of a
+	 * sliding piece, with the shift that leaves as many bits of the index as the
+	 * mask has, and where the entries of each square start in the table.
+	 *
+	 * @return the size of the table of all the squares
+	 */
+	private static int tableSize(int[][] directions, long[] masks, int[] shifts, int[] offsets) {
+		int size = 0;
+		for (int square = 0; square < 64; square++) {
+			masks[square] = relevantOccupancy(square / 8, square % 8, directions);
+			int bits = Long.bitCount(masks[square]);
+			shifts[square] = 64 - bits;
+			offsets[square] = size;
+			size += 1 << bits;
+		}
+		return size;
+	}
+
+	/**
+	 * finds a magic number for a square and fills the entries of the square in the
+	 * table. All the subsets of the relevant occupancy mask are enumerated (by the
+	 * carry-rippler trick, subset = (subset - mask) &amp; mask) with their attacks.
+	 * A candidate magic number fails as soon as two subsets with different attacks
+	 * get the same index; subsets with the same attacks may share an index.
+	 */
+	private static long findMagic(int square, int[][] directions, long mask, int shift, long[] table, int offset,
+			SplittableRandom random) {
+		int size = 1 << (64 - shift);
+		long[] occupancies = new long[size];
+		long[] attacks = new long[size];
+		long subset = 0L;
+		int count = 0;
+		do {
+			occupancies[count] = subset;
+			attacks[count] = slidingAttacks(square / 8, square % 8, directions, subset);
+			count++;
+			subset = (subset - mask) & mask;
+		} while (subset != 0L);
+
+		int[] tried = new int[size];
+		long[] entries = new long[size];
+		for (int attempt = 1;; attempt++) {
+			long magic = random.nextLong() & random.nextLong() & random.nextLong();
+			if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) {
+				continue;
+			}
+			boolean found = true;
+			for (int i = 0; i < count && found; i++) {
+				int index = (int) ((occupancies[i] * magic) >>> shift);
+				if (tried[index] != attempt) {
+					tried[index] = attempt;
+					entries[index] = attacks[i];
+				} else if (entries[index] != attacks[i]) {
+					found = false;
+				}
+			}
+			if (found) {
+				for (int index = 0; index < size; index++) {
+					table[offset + index] = tried[index] == attempt ? entries[index] : 0L;
+				}
+				return magic;
+			}
+		}
+	}
+
+	/**
+	 * the squares of the lines of a sliding piece that can block it: all the
+	 * squares of each line except the last one, at the edge of the board.
+	 */
+	private static long relevantOccupancy(int row, int column, int[][] directions) {
+		long mask = 0L;
+		for (int[] direction : directions) {
+			int targetRow = row + direction[0];
+			int targetColumn = column + direction[1];
+			while (onBoard(targetRow + direction[0], targetColumn + direction[1])) {
+				mask |= 1L << (targetRow * 8 + targetColumn);
+				targetRow += direction[0];
+				targetColumn += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * the squares attacked by a sliding piece along its lines, walking each line
+	 * square by square until the edge of the board or the first occupied square,
+	 * which is also attacked. It is only used to fill the tables.
+	 */
+	private static long slidingAttacks(int row, int column, int[][] directions, long occupancy) {
+		long attacks = 0L;
+		for (int[] direction : directions) {
+			int targetRow = row + direction[0];
+			int targetColumn = column + direction[1];
+			while (onBoard(targetRow, targetColumn)) {
+				long bit = 1L << (targetRow * 8 + targetColumn);
+				attacks |= bit;
+				if ((occupancy & bit) != 0L) {
+					break;
+				}
+				targetRow += direction[0];
+				targetColumn += direction[1];
+			}
+		}
+		return attacks;
+	}
+
+	private static boolean onBoard(int row, int column) {
+		return row >= 0 && row < 8 && column >= 0 && column < 8;
+	}
+}
@@ -1,9 +1,11 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
 
 /**
  * This child class of the class ChessPiece represents a Bishop piece. This
@@ -11,7 +13,9 @@ import chess.Color;
  * 
  * @author Joo Victor
  */
-public class Bishop extends ChessPiece {
+public final class Bishop extends ChessPiece {
+
+	private static final int[][] DIRECTIONS = { { -1, -1 }, { -1, 1 }, { 1, -1 }, { 1, 1 } };
 
 	/**
 	 * creates the bishop chess piece, which is associated with a board and has a
@@ -21,7 +25,7 @@ public class Bishop extends ChessPiece {
 	 * @param color piece color
 	 */
 	public Bishop(Board board, Color color) {
-		super(board, color);
+		super(board, color, PieceType.BISHOP);
 	}
 
 	/**
@@ -36,68 +40,41 @@ public class Bishop extends ChessPiece {
 	 * Implements bishop chess piece move logic. This implementation occurs by
 	 * marking the matrix positions with true value. These marked positions consist
 	 * of the possible moves that can be performed by the bishop. Thus, positions
-	 * are marked northwest, northeast, southwest and southeast of the bishop. At
-	 * the end of this method, the boolean matrix that will contain the marked
-	 * positions will be returned. To mark the positions northwest the bishop, for
-	 * example, the following logic will be applied: From the first position
-	 * northwest the bishop the analysis will take place. As long as the positions
-	 * diagonally northwest the bishop exist within the board when verifying using
-	 * {@link boardgame.Board#positionExists(Position)} and do not contain a piece
-	 * when checking using {@link boardgame.Board#thereIsAPiece(Position)} those
-	 * positions will be marked with true value. When this repetition ends, it will
-	 * be tested if there is one more position northwest, and when verifying if that
-	 * possible position contains an opponent piece using
-	 * {@link chess.ChessPiece#isThereOpponentPiece(Position)}, if these conditions
-	 * are met, then this position will also be marked as true. This same logic
-	 * occurs for the other diagonals in an adapted way
+	 * are marked northwest, northeast, southwest and southeast of the bishop, up
+	 * to the first position of each diagonal that contains a piece, which is also
+	 * marked if it contains an opponent piece. Instead of walking each diagonal
+	 * position by position, the positions are read at once from the table of the
+	 * bishop attacks of {@link chess.pieces.AttackTables}, with the occupancy
+	 * bitboard of the board given by {@link boardgame.Board#getOccupancy()}, so the
+	 * cost of the method doesn't grow with the length of the open diagonals. If
+	 * the board keeps a {@link boardgame.Mailbox}, the diagonals are walked on the
+	 * mailbox instead, by the
+	 * {@link chess.ChessPiece#markSlides(boolean[][], int[][])} method
 	 */
 	@Override
 	public boolean[][] possibleMoves() {
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_BISHOP);
 		boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position p = new Position(0, 0);
-
-		// logic to mark positions diagonally northwest the bishop as possible moves 
-		p.setValues(position.getRow() - 1, position.getColumn() - 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() - 1, p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions diagonally northeast the bishop as possible moves 
-		p.setValues(position.getRow() - 1, position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() - 1, p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions diagonally southwest the bishop as possible moves 
-		p.setValues(position.getRow() + 1, position.getColumn() - 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() + 1, p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+		if (getBoard().getMailbox() != null) {
+			markSlides(matrix, DIRECTIONS);
+		} else {
+			markMoves(matrix, AttackTables.bishopAttacks(square(), getBoard().getOccupancy()));
 		}
-
-		// logic to mark positions diagonally southeast the bishop as possible moves 
-		p.setValues(position.getRow() + 1, position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() + 1, p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
 		return matrix;
 	}
 
+	/**
+	 * returns the same possible moves as the {@link #possibleMoves()} method, as a
+	 * set of target squares in a long, without allocating a matrix.
+	 * 
+	 * @return the target squares of the possible moves of the bishop
+	 */
+	@Override
+	public long possibleTargets() {
+		if (getBoard().getMailbox() != null) {
+			return super.possibleTargets();
+		}
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_BISHOP);
+		return withoutAllies(AttackTables.bishopAttacks(square(), getBoard().getOccupancy()));
+	}
 }
@@ -1,10 +1,12 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
 
 /**
  * This child class of the class ChessPiece represents a King piece. This class
@@ -12,7 +14,10 @@ import chess.Color;
  * 
  * @author Joo Victor
  */
-public class King extends ChessPiece {
+public final class King extends ChessPiece {
+
+	private static final int[][] STEPS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 }, { 1, -1 },
+			{ 1, 1 } };
 
 	private ChessMatch chessMatch;
 
@@ -25,7 +30,7 @@ public class King extends ChessPiece {
 	 * @param chessMatch chess match
 	 */
 	public King(Board board, Color color, ChessMatch chessMatch) {
-		super(board, color);
+		super(board, color, PieceType.KING);
 		this.chessMatch = chessMatch;
 	}
 
@@ -37,41 +42,24 @@ public class King extends ChessPiece {
 		return "K";
 	}
 
-	/**
-	 * determines whether the king can move to the position referred to as the
-	 * method parameter. This method will check if in a position there is a piece,
-	 * and if there is, it will verify if it is an opponent piece through the
-	 * {@link chess.ChessPiece#getColor()} method, which will indicate whether this
-	 * piece has a different color. These checks occur, because a king can only move
-	 * to a position that doesn't contain any piece, or a position that contains a
-	 * opponent, a piece of different color of the king
-	 * 
-	 * @param position a position
-	 * @return a boolean value that if true indicates that the king can move to the
-	 *         indicated position.
-	 */
-	private boolean canMove(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
-	}
-
 	/**
 	 * this method tests whether in a given position there is a rook suitable for
 	 * the castling special move. initially the
-	 * {@link boardgame.Board#piece(Position)} method returns a possible chess piece
-	 * located in the position that was passed as a parameter. Then it is analyzed,
-	 * if a chess piece was really returned, if the returned chess piece is a rook,
-	 * if this rook is the same color as the king, and if this rook has not moved
-	 * yet, if all the conditions are met, this will mean that the rook will be able
-	 * to castling
+	 * {@link boardgame.Board#piece(int, int)} method returns a possible chess piece
+	 * located in the row and column that were passed as parameters. Then it is
+	 * analyzed, if a chess piece was really returned, if the type of the returned
+	 * chess piece is rook, if this rook is the same color as the king, and if this
+	 * rook has not moved yet, if all the conditions are met, this will mean that
+	 * the rook will be able to castling
 	 * 
-	 * @param position a position
+	 * @param row    a row of the board
+	 * @param column a column of the board
 	 * @return a boolean that, if true, will indicate that in a position there is a
 	 *         rook suitable for the castling special move.
 	 */
-	private boolean testRookCastling(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
+	private boolean testRookCastling(int row, int column) {
+		ChessPiece p = (ChessPiece) getBoard().piece(row, column);
+		return p != null && p.getType() == PieceType.ROOK && p.getColor() == getColor() && p.getMoveCount() == 0;
 	}
 
 	/**
@@ -81,17 +69,21 @@ public class King extends ChessPiece {
 	 * above, left, right and below of the king. At the end of this method, the
 	 * boolean matrix that will contain the marked positions will be returned. In
 	 * the case of the king, only positions around that piece are possible target
-	 * positions. Then each of the positions around the king are checked by the
-	 * {@link #canMove(Position)} method, and if the method indicates that it is
-	 * possible to perform the move, the position in question will be marked as true
-	 * by the boolean matrix. Furthermore, the king will have one more possible
-	 * additional move with the use of the castling special move. For this special
+	 * positions, which are read from the table of the squares attacked by a king,
+	 * computed once by {@link chess.pieces.AttackTables}. Each of the positions
+	 * around the king is marked as true by the boolean matrix if it doesn't contain
+	 * any piece, or contains an opponent piece (if the board keeps a
+	 * {@link boardgame.Mailbox}, the positions around the king are found on the
+	 * mailbox instead, by the
+	 * {@link chess.ChessPiece#markSteps(boolean[][], int[][])} method).
+	 * Furthermore, the king will have one more possible additional move with the
+	 * use of the castling special move. For this special
 	 * move to be performed, at first it is necessary that the king hasn't performed
 	 * any moves and that the king isn't in check, this last condition can be
 	 * realized using the {@link chess.ChessMatch#getCheck()} method. Then, it is
 	 * checked if the positions between the king and the rook on the king side are
 	 * vacant, if they are and by checking using the
-	 * {@link #testRookCastling(Position)} method if the rook on the king side is
+	 * {@link #testRookCastling(int, int)} method if the rook on the king side is
 	 * suitable for the castling move, then the small castling move can be performed
 	 * and the two-column position towards that rook will be marked as true. There
 	 * is also the possibility of making the big castling movement that follows the
@@ -102,81 +94,59 @@ public class King extends ChessPiece {
 	 */
 	@Override
 	public boolean[][] possibleMoves() {
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_KING);
 		boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
 
-		Position p = new Position(0, 0);
-
-		// Above
-		p.setValues(position.getRow() - 1, position.getColumn());
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// below
-		p.setValues(position.getRow() + 1, position.getColumn());
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// left
-		p.setValues(position.getRow(), position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// right
-		p.setValues(position.getRow(), position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// northwest
-		p.setValues(position.getRow() - 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+		if (getBoard().getMailbox() != null) {
+			markSteps(matrix, STEPS);
+		} else {
+			markMoves(matrix, AttackTables.kingAttacks(square()));
 		}
 
-		// northeast
-		p.setValues(position.getRow() - 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
+		// special move castling
+		markMoves(matrix, castlingTargets());
 
-		// south-west
-		p.setValues(position.getRow() + 1, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
+		return matrix;
+	}
 
-		// south-east
-		p.setValues(position.getRow() + 1, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+	/**
+	 * returns the same possible moves as the {@link #possibleMoves()} method, as a
+	 * set of target squares in a long, without allocating a matrix.
+	 * 
+	 * @return the target squares of the possible moves of the king
+	 */
+	@Override
+	public long possibleTargets() {
+		if (getBoard().getMailbox() != null) {
+			return super.possibleTargets();
 		}
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_KING);
+		return withoutAllies(AttackTables.kingAttacks(square())) | castlingTargets();
+	}
 
-		// special move castling
+	/**
+	 * computes the target squares of the castling special moves described by the
+	 * {@link #possibleMoves()} method, the two-column positions towards the rooks.
+	 */
+	private long castlingTargets() {
+		long targets = 0L;
 		if (getMoveCount() == 0 && !chessMatch.getCheck()) {
+			int row = position.getRow();
+			int column = position.getColumn();
 			// small castling (castling king side rook)
-			Position kingSideRookPos = new Position(position.getRow(), position.getColumn() + 3);
-			if (testRookCastling(kingSideRookPos)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-				if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-					matrix[position.getRow()][position.getColumn() + 2] = true;
+			if (testRookCastling(row, column + 3)) {
+				if (getBoard().piece(row, column + 1) == null && getBoard().piece(row, column + 2) == null) {
+					targets |= 1L << (row * 8 + column + 2);
 				}
 			}
 			// big castling (castling queen side rook)
-			Position queenSideRookPos = new Position(position.getRow(), position.getColumn() - 4);
-			if (testRookCastling(queenSideRookPos)) {
-				Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-				Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-				Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-				if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-					matrix[position.getRow()][position.getColumn() - 2] = true;
+			if (testRookCastling(row, column - 4)) {
+				if (getBoard().piece(row, column - 1) == null && getBoard().piece(row, column - 2) == null
+						&& getBoard().piece(row, column - 3) == null) {
+					targets |= 1L << (row * 8 + column - 2);
 				}
 			}
 		}
-
-		return matrix;
+		return targets;
 	}
 }
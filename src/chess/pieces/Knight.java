@@ -1,9 +1,11 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
 
 /**
  * This child class of the class ChessPiece represents a Knight piece. This
@@ -11,7 +13,10 @@ import chess.Color;
  * 
  * @author Joo Victor
  */
-public class Knight extends ChessPiece {
+public final class Knight extends ChessPiece {
+
+	private static final int[][] STEPS = { { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 }, { 1, 2 }, { 2, 1 }, { 2, -1 },
+			{ 1, -2 } };
 
 	/**
 	 * creates the knight chess piece, which is associated with a board and has a
@@ -21,7 +26,7 @@ public class Knight extends ChessPiece {
 	 * @param color piece color
 	 */
 	public Knight(Board board, Color color) {
-		super(board, color);
+		super(board, color, PieceType.KNIGHT);
 	}
 
 	/**
@@ -32,95 +37,50 @@ public class Knight extends ChessPiece {
 		return "H";  // H of Horseman
 	}
 
-	/**
-	 * determines whether a knight can move to the position referred to as the
-	 * method parameter. This method will check if in a position there is a piece,
-	 * and if there is, it will verify if it is an opponent piece through the
-	 * {@link chess.ChessPiece#getColor()} method, which will indicate whether this
-	 * piece has a different color. These checks occur, because a knight can only
-	 * move to a position that doesn't contain any piece, or a position that
-	 * contains a opponent, a piece of different color of the knight
-	 * 
-	 * @param position a position
-	 * @return a boolean value that if true indicates that the knight can move to
-	 *         the indicated position.
-	 */
-	private boolean canMove(Position position) {
-		ChessPiece p = (ChessPiece) getBoard().piece(position);
-		return p == null || p.getColor() != getColor();
-	}
-
 	/**
 	 * Implements knight chess piece move logic. This implementation occurs by
 	 * marking the matrix positions with true value. These marked positions consist
-	 * of the possible moves that can be performed by the knight. Thus, positions
-	 * are marked above, left, right and below of the knight. At the end of this
-	 * method, the boolean matrix that will contain the marked positions will be
-	 * returned. In the case of the knights, they can only move two positions
-	 * vertically and one position horizontally or two positions horizontally and
-	 * one position vertically. Thus, a knight can have a maximum of 8 possible
-	 * target positions and each of these positions is verified through
-	 * {@link #canMove(Position)} method and if the method indicates that it is
-	 * possible to perform the move, the position in question will be marked as true
-	 * by the boolean matrix
+	 * of the possible moves that can be performed by the knight. In the case of the
+	 * knights, they can only move two positions vertically and one position
+	 * horizontally or two positions horizontally and one position vertically. So a
+	 * knight has a maximum of 8 possible target positions, which are read from the
+	 * table of the squares attacked by a knight, computed once by
+	 * {@link chess.pieces.AttackTables}, so the positions that fall off the board
+	 * are never tested. Each of the target positions is marked as true by the
+	 * boolean matrix if it doesn't contain any piece, or contains an opponent
+	 * piece. If the board keeps a {@link boardgame.Mailbox}, the target positions
+	 * are found by adding the offsets of the jumps on the mailbox instead, by the
+	 * {@link chess.ChessPiece#markSteps(boolean[][], int[][])} method
 	 * 
 	 * @return a boolean matrix that will indicate the possible moves of the knight
 	 *         chess piece
 	 */
 	@Override
 	public boolean[][] possibleMoves() {
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_KNIGHT);
 		boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
 
-		Position p = new Position(0, 0);
-
-		// 1
-		p.setValues(position.getRow() - 1, position.getColumn() - 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// 2
-		p.setValues(position.getRow() - 2, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// 3
-		p.setValues(position.getRow() - 2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// 4
-		p.setValues(position.getRow() - 1, position.getColumn() + 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+		if (getBoard().getMailbox() != null) {
+			markSteps(matrix, STEPS);
+		} else {
+			markMoves(matrix, AttackTables.knightAttacks(square()));
 		}
 
-		// 5
-		p.setValues(position.getRow() + 1, position.getColumn() + 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// 6
-		p.setValues(position.getRow() + 2, position.getColumn() + 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// 7
-		p.setValues(position.getRow() + 2, position.getColumn() - 1);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
+		return matrix;
+	}
 
-		// 8
-		p.setValues(position.getRow() + 1, position.getColumn() - 2);
-		if (getBoard().positionExists(p) && canMove(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+	/**
+	 * returns the same possible moves as the {@link #possibleMoves()} method, as a
+	 * set of target squares in a long, without allocating a matrix.
+	 * 
+	 * @return the target squares of the possible moves of the knight
+	 */
+	@Override
+	public long possibleTargets() {
+		if (getBoard().getMailbox() != null) {
+			return super.possibleTargets();
 		}
-
-		return matrix;
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_KNIGHT);
+		return withoutAllies(AttackTables.knightAttacks(square()));
 	}
 }
@@ -0,0 +1,65 @@
+package chess.pieces;
+
+import chess.ChessPiece;
+
+/**
+ * This class generates the possible moves of a chess piece from the hot paths
+ * of the match and of the engine. A call to
+ * {@link boardgame.Piece#possibleMoves()} through a reference of the abstract
+ * piece class reaches six different implementations, one per type of piece, so
+ * the JIT compiler can't inline it at that call site. Here, the type carried by
+ * the piece selects, with a switch, a call through a reference of the concrete
+ * class, and as the classes of the pieces are final, each of these calls has a
+ * single target, which the JIT compiler can inline.
+ *
+ * @author Joo Victor
+ */
+public final class MoveGenerator {
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * @param piece chess piece
+	 * @return the possible moves of the piece, as returned by its
+	 *         {@link boardgame.Piece#possibleMoves()} method
+	 */
+	public static boolean[][] possibleMoves(ChessPiece piece) {
+		switch (piece.getType()) {
+		case KING:
+			return ((King) piece).possibleMoves();
+		case QUEEN:
+			return ((Queen) piece).possibleMoves();
+		case ROOK:
+			return ((Rook) piece).possibleMoves();
+		case BISHOP:
+			return ((Bishop) piece).possibleMoves();
+		case KNIGHT:
+			return ((Knight) piece).possibleMoves();
+		default:
+			return ((Pawn) piece).possibleMoves();
+		}
+	}
+
+	/**
+	 * @param piece chess piece
+	 * @return the target squares of the possible moves of the piece, as returned
+	 *         by its {@link chess.ChessPiece#possibleTargets()} method
+	 */
+	public static long possibleTargets(ChessPiece piece) {
+		switch (piece.getType()) {
+		case KING:
+			return ((King) piece).possibleTargets();
+		case QUEEN:
+			return ((Queen) piece).possibleTargets();
+		case ROOK:
+			return ((Rook) piece).possibleTargets();
+		case BISHOP:
+			return ((Bishop) piece).possibleTargets();
+		case KNIGHT:
+			return ((Knight) piece).possibleTargets();
+		default:
+			return ((Pawn) piece).possibleTargets();
+		}
+	}
+}
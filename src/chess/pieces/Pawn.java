@@ -1,10 +1,12 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
 
 /**
  * This child class of the class ChessPiece represents a Pawn piece. This class
@@ -12,7 +14,7 @@ import chess.Color;
  * 
  * @author Joo Victor
  */
-public class Pawn extends ChessPiece {
+public final class Pawn extends ChessPiece {
 
 	private ChessMatch chessMatch;
 
@@ -25,7 +27,7 @@ public class Pawn extends ChessPiece {
 	 * @param chessMatch chess match
 	 */
 	public Pawn(Board board, Color color, ChessMatch chessMatch) {
-		super(board, color);
+		super(board, color, PieceType.PAWN);
 		this.chessMatch = chessMatch;
 	}
 
@@ -40,110 +42,89 @@ public class Pawn extends ChessPiece {
 	/**
 	 * Implements pawn chess piece move logic. This implementation occurs by marking
 	 * the matrix positions with true value. These marked positions consist of the
-	 * possible moves that can be performed by the rook. thus, for white pawns the
+	 * possible moves that can be performed by the pawn. thus, for white pawns the
 	 * marked positions will be above or diagonally, and for black pawns the marked
-	 * positions will be below or also diagonally. Taking a white pawn as an
-	 * example, when checking the position above the pawn exists using
-	 * {@link boardgame.Board#positionExists(Position)} and if there is no piece
-	 * using {@link boardgame.Board#thereIsAPiece(Position)} then it will be marked
-	 * as true. If the same pawn has not moved yet in the game when verifying using
-	 * {@link chess.ChessPiece#getMoveCount()} and in the second position above the
-	 * pawn there is no piece, then that second position will also be marked as
-	 * true. Now, the position northeast and northwest of the pawn will only be
-	 * marked as true if these two positions contain an opponent's piece, and this
-	 * is analyzed, through the
-	 * {@link chess.ChessPiece#isThereOpponentPiece(Position)} method. Black pawns
-	 * follow the same rules of movement, with the exception that they move down
-	 * only. Added to that, the pawn will have one possible additional move with the
-	 * use of the en passant special move. Then it is checked, if the piece that is
-	 * on the left or right side of the pawn is an opponent pawn using the
-	 * {@link chess.ChessMatch#getEnPassantVulnerable()} method. If the opponent
-	 * pawn is vulnerable to en passant, then the pawn will be able to perform the
-	 * special move
+	 * positions will be below or also diagonally. The position ahead of the pawn
+	 * and the two diagonal positions ahead, which the pawn attacks, are read from
+	 * the tables of each color computed once by {@link chess.pieces.AttackTables},
+	 * so the positions that fall off the board are never tested. The position
+	 * ahead will be marked as true if there is no piece on it. If the pawn has not
+	 * moved yet in the game when verifying using
+	 * {@link chess.ChessPiece#getMoveCount()} and the second position ahead of the
+	 * pawn is also empty, then that second position will also be marked as true.
+	 * The diagonal positions will only be marked as true if they contain an
+	 * opponent's piece. Added to that, the pawn will have one possible additional
+	 * move with the use of the en passant special move. For each diagonal position
+	 * that is empty, it is checked whether the piece beside the pawn, on the same
+	 * column as that diagonal position, is an opponent pawn vulnerable to en
+	 * passant, using the {@link chess.ChessMatch#getEnPassantVulnerable()}
+	 * method. If it is, then the pawn will be able to perform the special move
 	 */
 	@Override
 	public boolean[][] possibleMoves() {
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_PAWN);
 		boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
+		markMoves(matrix, targets());
+		return matrix;
+	}
 
-		Position p = new Position(0, 0);
-
-		if (getColor() == Color.WHITE) {
-			// above one
-			p.setValues(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
-			// above two
-			p.setValues(position.getRow() - 2, position.getColumn());
-			Position p2 = new Position(position.getRow() - 1, position.getColumn());
-			if (getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getBoard().positionExists(p)
-					&& !getBoard().thereIsAPiece(p) && getMoveCount() == 0) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
-			// northwest
-			p.setValues(position.getRow() - 1, position.getColumn() - 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
-			// northeast
-			p.setValues(position.getRow() - 1, position.getColumn() + 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
+	/**
+	 * returns the same possible moves as the {@link #possibleMoves()} method, as a
+	 * set of target squares in a long, without allocating a matrix.
+	 * 
+	 * @return the target squares of the possible moves of the pawn
+	 */
+	@Override
+	public long possibleTargets() {
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_PAWN);
+		return targets();
+	}
 
-			// special move en passant white
-			if (position.getRow() == 3) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-				
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					matrix[left.getRow() - 1][left.getColumn()] = true;
-				}
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
+	/**
+	 * computes the target squares of the pawn described by the
+	 * {@link #possibleMoves()} method: the squares ahead, the captures and the en
+	 * passant capture.
+	 */
+	private long targets() {
+		long moves = 0L;
+		int square = square();
 
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					matrix[right.getRow() - 1][right.getColumn()] = true;
+		// ahead one and ahead two
+		long push = AttackTables.pawnPushes(getColor(), square);
+		if (push != 0L) {
+			int target = Long.numberOfTrailingZeros(push);
+			if (getBoard().piece(target / 8, target % 8) == null) {
+				moves |= push;
+				long secondPush = AttackTables.pawnPushes(getColor(), target);
+				if (getMoveCount() == 0 && secondPush != 0L) {
+					int secondTarget = Long.numberOfTrailingZeros(secondPush);
+					if (getBoard().piece(secondTarget / 8, secondTarget % 8) == null) {
+						moves |= secondPush;
+					}
 				}
 			}
+		}
 
-		} else {
-			// above one
-			p.setValues(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
-			// above two
-			p.setValues(position.getRow() + 2, position.getColumn());
-			Position p2 = new Position(position.getRow() + 1, position.getColumn());
-			if (getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getBoard().positionExists(p)
-					&& !getBoard().thereIsAPiece(p) && getMoveCount() == 0) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
-			// northwest
-			p.setValues(position.getRow() + 1, position.getColumn() - 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
-			// northeast
-			p.setValues(position.getRow() + 1, position.getColumn() + 1);
-			if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-				matrix[p.getRow()][p.getColumn()] = true;
-			}
-
-			// special move en passant black
-			if (position.getRow() == 4) {
-				Position left = new Position(position.getRow(), position.getColumn() - 1);
-
-				if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-					matrix[left.getRow() + 1][left.getColumn()] = true;
+		// captures and special move en passant
+		int enPassantRow = getColor() == Color.WHITE ? 3 : 4;
+		long targets = AttackTables.pawnAttacks(getColor(), square);
+		while (targets != 0L) {
+			int target = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			ChessPiece p = (ChessPiece) getBoard().piece(target / 8, target % 8);
+			if (p != null) {
+				if (p.getColor() != getColor()) {
+					moves |= 1L << target;
 				}
-				Position right = new Position(position.getRow(), position.getColumn() + 1);
-				
-				if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-					matrix[right.getRow() + 1][right.getColumn()] = true;
+			} else if (position.getRow() == enPassantRow) {
+				ChessPiece beside = (ChessPiece) getBoard().piece(position.getRow(), target % 8);
+				if (beside != null && beside.getColor() != getColor()
+						&& beside == chessMatch.getEnPassantVulnerable()) {
+					moves |= 1L << target;
 				}
 			}
 		}
 
-		return matrix;
+		return moves;
 	}
 }
@@ -1,9 +1,11 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
 
 /**
  * This child class of the class ChessPiece represents a Queen piece. This class
@@ -11,7 +13,10 @@ import chess.Color;
  * 
  * @author Joo Victor
  */
-public class Queen extends ChessPiece {
+public final class Queen extends ChessPiece {
+
+	private static final int[][] DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 }, { -1, -1 }, { -1, 1 },
+			{ 1, -1 }, { 1, 1 } };
 
 	/**
 	 * creates the queen chess piece, which is associated with a board and has a
@@ -21,7 +26,7 @@ public class Queen extends ChessPiece {
 	 * @param color piece color
 	 */
 	public Queen(Board board, Color color) {
-		super(board, color);
+		super(board, color, PieceType.QUEEN);
 	}
 
 	/**
@@ -39,95 +44,35 @@ public class Queen extends ChessPiece {
 	 * marked above, left, right, below, northwest, northeast, southwest and
 	 * southeast of the queen. In short, the possible moves of a queen, consists of
 	 * a mixture of the possible moves of a bishop with the possible moves of a
-	 * rook.
+	 * rook, so they are the union of the rook and bishop attacks read from
+	 * {@link chess.pieces.AttackTables}. If the board keeps a
+	 * {@link boardgame.Mailbox}, the lines are walked on the mailbox instead, by
+	 * the {@link chess.ChessPiece#markSlides(boolean[][], int[][])} method
 	 */
 	@Override
 	public boolean[][] possibleMoves() {
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_QUEEN);
 		boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position p = new Position(0, 0);
-
-		// logic to mark positions above the queen as possible moves
-		p.setValues(position.getRow() - 1, position.getColumn());
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setRow(p.getRow() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions to the left of the queen as possible moves
-		p.setValues(position.getRow(), position.getColumn() - 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setColumn(p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions to the right of the queen as possible moves
-		p.setValues(position.getRow(), position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setColumn(p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions below the queen as possible moves
-		p.setValues(position.getRow() + 1, position.getColumn());
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setRow(p.getRow() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions diagonally northwest the queen as possible moves
-		p.setValues(position.getRow() - 1, position.getColumn() - 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() - 1, p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+		if (getBoard().getMailbox() != null) {
+			markSlides(matrix, DIRECTIONS);
+		} else {
+			markMoves(matrix, AttackTables.queenAttacks(square(), getBoard().getOccupancy()));
 		}
-
-		// logic to mark positions diagonally northeast the queen as possible moves
-		p.setValues(position.getRow() - 1, position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() - 1, p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions diagonally southwest the queen as possible moves
-		p.setValues(position.getRow() + 1, position.getColumn() - 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() + 1, p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions diagonally southeast the queen as possible moves
-		p.setValues(position.getRow() + 1, position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setValues(p.getRow() + 1, p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
 		return matrix;
 	}
 
+	/**
+	 * returns the same possible moves as the {@link #possibleMoves()} method, as a
+	 * set of target squares in a long, without allocating a matrix.
+	 * 
+	 * @return the target squares of the possible moves of the queen
+	 */
+	@Override
+	public long possibleTargets() {
+		if (getBoard().getMailbox() != null) {
+			return super.possibleTargets();
+		}
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_QUEEN);
+		return withoutAllies(AttackTables.queenAttacks(square(), getBoard().getOccupancy()));
+	}
 }
@@ -1,9 +1,11 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
+import chess.metrics.ChessMetrics;
+import chess.metrics.Counter;
 
 /**
  * This child class of the class ChessPiece represents a Rook piece. This class
@@ -11,7 +13,9 @@ import chess.Color;
  * 
  * @author Joo Victor
  */
-public class Rook extends ChessPiece {
+public final class Rook extends ChessPiece {
+
+	private static final int[][] DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
 
 	/**
 	 * creates the rook chess piece, which is associated with a board and has a
@@ -21,7 +25,7 @@ public class Rook extends ChessPiece {
 	 * @param color piece color
 	 */
 	public Rook(Board board, Color color) {
-		super(board, color);
+		super(board, color, PieceType.ROOK);
 	}
 
 	/**
@@ -36,69 +40,43 @@ public class Rook extends ChessPiece {
 	 * Implements rook chess piece move logic. This implementation occurs by marking
 	 * the matrix positions with true value. These marked positions consist of the
 	 * possible moves that can be performed by the rook. Thus, positions are marked
-	 * above, left, right and below of the rook. At the end of this method, the
-	 * boolean matrix that will contain the marked positions will be returned. To
-	 * mark the positions above the rook, for example, the following logic will be
-	 * applied: From the first position above the rook the analysis will take place.
-	 * As long as the positions above the rook exist within the board when verifying
-	 * using {@link boardgame.Board#positionExists(Position)} and do not contain a
-	 * piece when checking using {@link boardgame.Board#thereIsAPiece(Position)}
-	 * those positions will be marked with true value. When this repetition ends, it
-	 * will be tested if there is one more position above, and when verifying if
-	 * that possible position contains an opponent piece using
-	 * {@link chess.ChessPiece#isThereOpponentPiece(Position)}, if these conditions
-	 * are met, then this position will also be marked as true. This same logic
-	 * occurs for the other directions in an adapted way
+	 * above, left, right and below of the rook, up to the first position of each
+	 * line that contains a piece, which is also marked if it contains an opponent
+	 * piece. Instead of walking each line position by position, the positions
+	 * are read at once from the table of the rook attacks of
+	 * {@link chess.pieces.AttackTables}, with the occupancy bitboard of the board
+	 * given by {@link boardgame.Board#getOccupancy()}, so the cost of the method
+	 * doesn't grow with the length of the open lines. If the board keeps a
+	 * {@link boardgame.Mailbox}, the lines are walked on the mailbox instead, by
+	 * the {@link chess.ChessPiece#markSlides(boolean[][], int[][])} method
 	 * 
 	 * @return a boolean matrix that will indicate the possible moves of the rook
 	 *         chess piece
 	 */
 	@Override
 	public boolean[][] possibleMoves() {
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_ROOK);
 		boolean[][] matrix = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-		Position p = new Position(0, 0);
-
-		// logic to mark positions above the rook as possible moves 
-		p.setValues(position.getRow() - 1, position.getColumn());
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setRow(p.getRow() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions to the left of the rook as possible moves 
-		p.setValues(position.getRow(), position.getColumn() - 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setColumn(p.getColumn() - 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-		}
-
-		// logic to mark positions to the right of the rook as possible moves 
-		p.setValues(position.getRow(), position.getColumn() + 1);
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setColumn(p.getColumn() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+		if (getBoard().getMailbox() != null) {
+			markSlides(matrix, DIRECTIONS);
+		} else {
+			markMoves(matrix, AttackTables.rookAttacks(square(), getBoard().getOccupancy()));
 		}
+		return matrix;
+	}
 
-		// logic to mark positions below the rook as possible moves 
-		p.setValues(position.getRow() + 1, position.getColumn());
-		while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
-			p.setRow(p.getRow() + 1);
-		}
-		if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-			matrix[p.getRow()][p.getColumn()] = true;
+	/**
+	 * returns the same possible moves as the {@link #possibleMoves()} method, as a
+	 * set of target squares in a long, without allocating a matrix.
+	 * 
+	 * @return the target squares of the possible moves of the rook
+	 */
+	@Override
+	public long possibleTargets() {
+		if (getBoard().getMailbox() != null) {
+			return super.possibleTargets();
 		}
-
-		return matrix;
+		ChessMetrics.increment(Counter.POSSIBLE_MOVES_ROOK);
+		return withoutAllies(AttackTables.rookAttacks(square(), getBoard().getOccupancy()));
 	}
 }
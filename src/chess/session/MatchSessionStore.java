@@ -0,0 +1,415 @@
+package chess.session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MatchSnapshot;
+
+/**
+ * This class keeps the chess matches of many players, identified by a session
+ * id. Only the most recently used matches are kept in memory (resident
+ * matches). When there are more resident matches than the configured limit, or
+ * when a match stays idle for longer than the configured timeout, the match is
+ * evicted: it is written to a binary snapshot file through the
+ * {@link chess.MatchSnapshot} class and removed from memory. The next time the
+ * evicted match is requested, it is read back from its snapshot file
+ * (rehydrated) in a transparent way for the caller. The snapshot file is kept
+ * after the match is rehydrated, until the match is evicted again, which
+ * replaces it, or removed from the store, so a match is never only in memory
+ * once it was evicted. The snapshot files found in the directory when the
+ * store is created are taken as evicted matches, so the matches written by a
+ * previous process are not lost.
+ * <p>
+ * A resident match can be evicted at any time by another call to the store, so
+ * the store never shares the match it keeps with the caller:
+ * {@link #put(String, ChessMatch)} keeps a copy of the match it receives,
+ * {@link #get(String)} returns a copy, and the match of a session is changed
+ * through {@link #performChessMove(String, ChessPosition, ChessPosition)} and
+ * {@link #replacePromotedPiece(String, String)}, or by putting a changed match
+ * back with {@link #put(String, ChessMatch)}. The idle matches
+ * are evicted by {@link #evictIdle()}, which the store can call itself from a
+ * background thread, when it is created with an eviction period.
+ *
+ * @author Joo Victor
+ */
+public class MatchSessionStore implements AutoCloseable {
+
+	private static final String SNAPSHOT_EXTENSION = ".match";
+	private static final String ID_PATTERN = "[A-Za-z0-9_-]+";
+
+	private Path directory;
+	private int maxResidentMatches;
+	private long idleTimeoutNanos;
+
+	private Map<String, Session> residentMatches = new LinkedHashMap<>(16, 0.75f, true);
+	private Set<String> evictedMatches = new HashSet<>();
+
+	private long evictions;
+	private long rehydrations;
+	private long totalRehydrationNanos;
+	private long maxRehydrationNanos;
+
+	private ScheduledExecutorService evictionExecutor;
+
+	/**
+	 * Creates a session store that writes the evicted matches to the directory
+	 * passed as a parameter. If the maximum number of resident matches is less
+	 * than 1 or the idle timeout is negative, an IllegalArgumentException will be
+	 * thrown.
+	 *
+	 * @param directory          directory of the snapshot files
+	 * @param maxResidentMatches maximum number of matches kept in memory
+	 * @param idleTimeout        time a match can stay idle before it is evicted
+	 * @param unit               time unit of the idle timeout
+	 */
+	public MatchSessionStore(Path directory, int maxResidentMatches, long idleTimeout, TimeUnit unit) {
+		this(directory, maxResidentMatches, idleTimeout, unit, 0);
+	}
+
+	/**
+	 * Creates a session store that also evicts the idle matches periodically, in
+	 * a background thread that calls the {@link #evictIdle()} method, so the idle
+	 * timeout is applied without a scheduler of the caller. The thread is a
+	 * daemon, and is stopped by the {@link #close()} method. If the eviction
+	 * period is 0, no thread is started, and if it is negative, an
+	 * IllegalArgumentException will be thrown.
+	 *
+	 * @param directory            directory of the snapshot files
+	 * @param maxResidentMatches   maximum number of matches kept in memory
+	 * @param idleTimeout          time a match can stay idle before it is evicted
+	 * @param unit                 time unit of the idle timeout
+	 * @param evictionPeriodMillis time between two evictions of the idle matches
+	 *                             in milliseconds, or 0 for none
+	 */
+	public MatchSessionStore(Path directory, int maxResidentMatches, long idleTimeout, TimeUnit unit,
+			long evictionPeriodMillis) {
+		if (evictionPeriodMillis < 0) {
+			throw new IllegalArgumentException("The eviction period can't be negative");
+		}
+		if (maxResidentMatches < 1) {
+			throw new IllegalArgumentException("There must be at least 1 resident match");
+		}
+		if (idleTimeout < 0) {
+			throw new IllegalArgumentException("The idle timeout can't be negative");
+		}
+		this.directory = directory;
+		this.maxResidentMatches = maxResidentMatches;
+		this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error creating the session directory " + directory, e);
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SNAPSHOT_EXTENSION)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				String id = name.substring(0, name.length() - SNAPSHOT_EXTENSION.length());
+				if (id.matches(ID_PATTERN)) {
+					evictedMatches.add(id);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading the session directory " + directory, e);
+		}
+		if (evictionPeriodMillis > 0) {
+			evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "session-eviction");
+				thread.setDaemon(true);
+				return thread;
+			});
+			evictionExecutor.scheduleWithFixedDelay(this::evictIdle, evictionPeriodMillis, evictionPeriodMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Adds a copy of a chess match, made by the {@link chess.ChessMatch#copy()}
+	 * method, to the store as a resident match, so the changes the caller makes
+	 * to its match afterwards don't change the session. If there already is a
+	 * match with the same id, it will be replaced, and its snapshot file deleted.
+	 * If as a consequence there are more resident matches than allowed, the least
+	 * recently used match is evicted.
+	 *
+	 * @param id         session id
+	 * @param chessMatch chess match
+	 */
+	public synchronized void put(String id, ChessMatch chessMatch) {
+		validateId(id);
+		deleteSnapshot(id);
+		residentMatches.put(id, new Session(chessMatch.copy(), System.nanoTime()));
+		evictLeastRecentlyUsed();
+	}
+
+	/**
+	 * Returns a copy of the chess match of a session, made by the
+	 * {@link chess.ChessMatch#copy()} method. If the match was evicted, it will be
+	 * rehydrated from its snapshot file and become a resident match again, and the
+	 * time spent rehydrating it is recorded. If there is no match with the id
+	 * passed as a parameter, null is returned.
+	 * <p>
+	 * The copy is not kept by the store, so a move performed on it doesn't change
+	 * the session. The resident match itself is not returned because it can be
+	 * evicted by any later call to the store, and the changes made to it after
+	 * its snapshot was written would be lost when it is rehydrated.
+	 *
+	 * @param id session id
+	 * @return a copy of the chess match of the session, or null if it doesn't
+	 *         exist
+	 */
+	public synchronized ChessMatch get(String id) {
+		ChessMatch chessMatch = resident(id);
+		return chessMatch == null ? null : chessMatch.copy();
+	}
+
+	/**
+	 * returns the resident chess match of a session, rehydrating it first if it
+	 * was evicted, or null if there is no match with the id passed as a parameter.
+	 */
+	private ChessMatch resident(String id) {
+		Session session = residentMatches.get(id);
+		if (session == null) {
+			if (!evictedMatches.contains(id)) {
+				return null;
+			}
+			session = new Session(rehydrate(id), 0L);
+			residentMatches.put(id, session);
+			evictLeastRecentlyUsed();
+		}
+		session.lastAccess = System.nanoTime();
+		return session.chessMatch;
+	}
+
+	/**
+	 * performs a chess move on the match of a session, rehydrating it first if
+	 * needed, through the
+	 * {@link chess.ChessMatch#performChessMove(ChessPosition, ChessPosition)}
+	 * method. If there is no match with the id passed as a parameter, then an
+	 * IllegalArgumentException will be thrown.
+	 *
+	 * @param id             session id
+	 * @param sourcePosition source position
+	 * @param targetPosition target position
+	 * @return a captured piece at the end of movement
+	 */
+	public synchronized ChessPiece performChessMove(String id, ChessPosition sourcePosition,
+			ChessPosition targetPosition) {
+		return existing(id).performChessMove(sourcePosition, targetPosition);
+	}
+
+	/**
+	 * replaces the piece promoted by the last move of the match of a session,
+	 * which is a queen by default, through the
+	 * {@link chess.ChessMatch#replacePromotedPiece(String)} method. If there is no
+	 * match with the id passed as a parameter, then an IllegalArgumentException
+	 * will be thrown.
+	 *
+	 * @param id   session id
+	 * @param type the symbol of the type of the new piece: Q, H, R or B
+	 * @return the chess piece that replaced the promoted piece
+	 */
+	public synchronized ChessPiece replacePromotedPiece(String id, String type) {
+		return existing(id).replacePromotedPiece(type);
+	}
+
+	/**
+	 * returns the resident chess match of a session, rehydrating it first if
+	 * needed, or throws an IllegalArgumentException if there is no match with the
+	 * id passed as a parameter.
+	 */
+	private ChessMatch existing(String id) {
+		ChessMatch chessMatch = resident(id);
+		if (chessMatch == null) {
+			throw new IllegalArgumentException("There is no match with id " + id);
+		}
+		return chessMatch;
+	}
+
+	/**
+	 * Removes a match from the store, whether it's resident or evicted.
+	 *
+	 * @param id session id
+	 */
+	public synchronized void remove(String id) {
+		residentMatches.remove(id);
+		deleteSnapshot(id);
+	}
+
+	/**
+	 * Evicts all the resident matches that have been idle for longer than the idle
+	 * timeout. This method is meant to be called periodically, by the thread of
+	 * the store when it was created with an eviction period, or otherwise by a
+	 * scheduler of the caller.
+	 *
+	 * @return number of matches evicted
+	 */
+	public synchronized int evictIdle() {
+		long now = System.nanoTime();
+		int count = 0;
+		Iterator<Map.Entry<String, Session>> iterator = residentMatches.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Session> entry = iterator.next();
+			if (now - entry.getValue().lastAccess > idleTimeoutNanos) {
+				evict(entry.getKey(), entry.getValue());
+				iterator.remove();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * stops the periodic eviction of the idle matches, if the store was created
+	 * with an eviction period. The matches are kept, both the resident and the
+	 * evicted ones.
+	 */
+	@Override
+	public void close() {
+		if (evictionExecutor != null) {
+			evictionExecutor.shutdownNow();
+		}
+	}
+
+	public synchronized int getResidentCount() {
+		return residentMatches.size();
+	}
+
+	public synchronized int getEvictedCount() {
+		return evictedMatches.size();
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized long getRehydrations() {
+		return rehydrations;
+	}
+
+	/**
+	 * @return the average time spent rehydrating a match, in nanoseconds, or zero
+	 *         if no match was rehydrated yet
+	 */
+	public synchronized long getAverageRehydrationNanos() {
+		return rehydrations == 0 ? 0 : totalRehydrationNanos / rehydrations;
+	}
+
+	public synchronized long getMaxRehydrationNanos() {
+		return maxRehydrationNanos;
+	}
+
+	/**
+	 * evicts the least recently used matches until the number of resident matches
+	 * is within the limit. Because the resident matches map is kept in access
+	 * order, the least recently used match is always its first entry.
+	 */
+	private void evictLeastRecentlyUsed() {
+		Iterator<Map.Entry<String, Session>> iterator = residentMatches.entrySet().iterator();
+		while (residentMatches.size() > maxResidentMatches) {
+			Map.Entry<String, Session> eldest = iterator.next();
+			evict(eldest.getKey(), eldest.getValue());
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * writes the snapshot of a match to its file. The snapshot is first written to
+	 * a temporary file that then replaces the previous one, so an interrupted
+	 * write never leaves a corrupt snapshot behind.
+	 */
+	private void evict(String id, Session session) {
+		Path file = snapshotFile(id);
+		Path temporaryFile = directory.resolve(id + SNAPSHOT_EXTENSION + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+			MatchSnapshot.write(session.chessMatch, out);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error evicting match " + id, e);
+		}
+		try {
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error evicting match " + id, e);
+		}
+		evictedMatches.add(id);
+		evictions++;
+	}
+
+	/**
+	 * reads the snapshot file of an evicted match and records the time spent to
+	 * rebuild the match. The file is kept, until the match is evicted again or
+	 * removed.
+	 */
+	private ChessMatch rehydrate(String id) {
+		long start = System.nanoTime();
+		ChessMatch chessMatch;
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(snapshotFile(id))))) {
+			chessMatch = MatchSnapshot.read(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error rehydrating match " + id, e);
+		}
+		evictedMatches.remove(id);
+
+		long elapsed = System.nanoTime() - start;
+		rehydrations++;
+		totalRehydrationNanos += elapsed;
+		maxRehydrationNanos = Math.max(maxRehydrationNanos, elapsed);
+		return chessMatch;
+	}
+
+	private void deleteSnapshot(String id) {
+		evictedMatches.remove(id);
+		try {
+			Files.deleteIfExists(snapshotFile(id));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error deleting the snapshot of match " + id, e);
+		}
+	}
+
+	private Path snapshotFile(String id) {
+		return directory.resolve(id + SNAPSHOT_EXTENSION);
+	}
+
+	/**
+	 * the session id is used as a file name, so only letters, digits, hyphens and
+	 * underscores are allowed.
+	 */
+	private static void validateId(String id) {
+		if (id == null || id.isEmpty() || !id.matches(ID_PATTERN)) {
+			throw new IllegalArgumentException("Invalid session id: " + id);
+		}
+	}
+
+	/**
+	 * a resident match together with the last time it was accessed.
+	 */
+	private static class Session {
+
+		private ChessMatch chessMatch;
+		private long lastAccess;
+
+		private Session(ChessMatch chessMatch, long lastAccess) {
+			this.chessMatch = chessMatch;
+			this.lastAccess = lastAccess;
+		}
+	}
+}
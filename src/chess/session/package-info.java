@@ -0,0 +1,8 @@
+/**
+ * This package keeps the chess matches of many players in memory and on disk,
+ * evicting idle matches to compact snapshot files and reading them back when
+ * they are needed again.
+ * 
+ * @author Joo Victor
+ */
+package chess.session;
@@ -0,0 +1,203 @@
+package chess.tournament;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.MoveList;
+import chess.pgn.San;
+
+/**
+ * This class is a position of an EPD test suite, such as the tactical test
+ * sets used to measure the search of an engine: the four fields of the
+ * position, as in FEN, followed by operations such as bm Qxf7+; (the best
+ * moves), am Nxe5; (the moves to avoid) and id "WAC.001"; (the name of the
+ * position). The moves of the bm and am operations are written in SAN and are
+ * checked against the legal moves of the position when the line is read, so a
+ * suite with a wrong move is refused with a ChessException instead of never
+ * being solved.
+ *
+ * @author Joo Victor
+ */
+public class EpdPosition {
+
+	private String id;
+	private String fen;
+	private List<Integer> bestMoves = new ArrayList<>();
+	private List<Integer> avoidMoves = new ArrayList<>();
+
+	/**
+	 * reads a position from a line of an EPD file. A position must have at least
+	 * one bm or am operation, and a position without an id operation gets the
+	 * number passed as a parameter as its id.
+	 *
+	 * @param line   line of an EPD file
+	 * @param number the number of the position in the suite, starting at 1
+	 * @return the position
+	 */
+	public static EpdPosition parse(String line, int number) {
+		String[] fields = line.trim().split("\\s+", 5);
+		if (fields.length < 5) {
+			throw new ChessException("Invalid EPD, missing fields or operations: " + line);
+		}
+		EpdPosition position = new EpdPosition();
+		position.fen = readFen(line);
+		position.id = String.valueOf(number);
+		ChessMatch chessMatch = Fen.read(position.fen);
+		for (String operation : operations(fields[4])) {
+			String[] operands = operation.split("\\s+");
+			switch (operands[0]) {
+			case "id":
+				position.id = operation.substring(2).trim().replace("\"", "");
+				break;
+			case "bm":
+			case "am":
+				List<Integer> moves = operands[0].equals("bm") ? position.bestMoves : position.avoidMoves;
+				for (int i = 1; i < operands.length; i++) {
+					moves.add(San.parse(chessMatch, operands[i]));
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		if (position.bestMoves.isEmpty() && position.avoidMoves.isEmpty()) {
+			throw new ChessException("Invalid EPD, no bm or am operation: " + line);
+		}
+		return position;
+	}
+
+	/**
+	 * reads the positions of an EPD file, skipping the empty lines and the lines
+	 * starting with #.
+	 *
+	 * @param file EPD file
+	 * @return the positions of the file, in order
+	 * @throws IOException if the file can't be read
+	 */
+	public static List<EpdPosition> load(Path file) throws IOException {
+		List<EpdPosition> positions = new ArrayList<>();
+		for (String line : readLines(file)) {
+			positions.add(parse(line, positions.size() + 1));
+		}
+		return positions;
+	}
+
+	/**
+	 * reads the lines of an EPD file that hold a position, trimmed, skipping the
+	 * empty lines and the lines starting with #.
+	 *
+	 * @param file EPD file
+	 * @return the lines of the positions, in order
+	 * @throws IOException if the file can't be read
+	 */
+	public static List<String> readLines(Path file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (String line : Files.readAllLines(file, StandardCharsets.ISO_8859_1)) {
+			line = line.trim();
+			if (!line.isEmpty() && !line.startsWith("#")) {
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * reads the position of a line of an EPD file, its first four fields, which
+	 * are the fields of a FEN without the move counters. Anything that follows,
+	 * the operations or the move counters of a FEN, is ignored.
+	 *
+	 * @param line line of an EPD file
+	 * @return the position in FEN, without the move counters
+	 */
+	public static String readFen(String line) {
+		String[] fields = line.trim().split("\\s+", 5);
+		if (fields.length < 4) {
+			throw new ChessException("Invalid EPD, missing fields: " + line);
+		}
+		return fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3];
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the position in FEN, without the move counters
+	 */
+	public String getFen() {
+		return fen;
+	}
+
+	/**
+	 * @return the moves of the bm operation, as integers of
+	 *         {@link chess.MoveList}
+	 */
+	public List<Integer> getBestMoves() {
+		return Collections.unmodifiableList(bestMoves);
+	}
+
+	/**
+	 * @return the moves of the am operation, as integers of
+	 *         {@link chess.MoveList}
+	 */
+	public List<Integer> getAvoidMoves() {
+		return Collections.unmodifiableList(avoidMoves);
+	}
+
+	/**
+	 * tells whether a move solves the position: it must be one of the best
+	 * moves, if the position has any, and none of the moves to avoid. Only the
+	 * source and target squares are compared, so the promotion piece is
+	 * ignored.
+	 *
+	 * @param source source square of the move, as (row * 8 + column)
+	 * @param target target square of the move
+	 * @return true if the move solves the position
+	 */
+	public boolean isSolution(int source, int target) {
+		return (bestMoves.isEmpty() || contains(bestMoves, source, target)) && !contains(avoidMoves, source, target);
+	}
+
+	private static boolean contains(List<Integer> moves, int source, int target) {
+		for (int move : moves) {
+			if (MoveList.source(move) == source && MoveList.target(move) == target) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * splits the operations of an EPD line at the semicolons that are not inside
+	 * quotes.
+	 */
+	private static List<String> operations(String text) {
+		List<String> operations = new ArrayList<>();
+		StringBuilder operation = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == ';' && !quoted) {
+				if (operation.toString().trim().length() > 0) {
+					operations.add(operation.toString().trim());
+				}
+				operation.setLength(0);
+			} else {
+				quoted ^= c == '"';
+				operation.append(c);
+			}
+		}
+		if (operation.toString().trim().length() > 0) {
+			operations.add(operation.toString().trim());
+		}
+		return operations;
+	}
+}
@@ -0,0 +1,23 @@
+package chess.tournament;
+
+/**
+ * this enumeration will represent the decision of a sequential probability
+ * ratio test: whether more games are needed, or which hypothesis was accepted
+ * 
+ * @author Joo Victor
+ */
+public enum SprtDecision {
+	CONTINUE("more games are needed"),
+	ACCEPT_H0("H0 accepted, the change doesn't gain the expected strength"),
+	ACCEPT_H1("H1 accepted, the change gains the expected strength");
+
+	private String description;
+
+	private SprtDecision(String description) {
+		this.description = description;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+}
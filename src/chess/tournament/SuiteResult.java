@@ -0,0 +1,93 @@
+package chess.tournament;
+
+/**
+ * This class is the result of the search of a position of an EPD test suite:
+ * the move chosen by the engine, whether it solves the position, and the time
+ * and the nodes the search took to find the solution, counted from the
+ * iteration from which the best move stayed a solution until the end of the
+ * search. A position that was not solved has no time and no nodes to
+ * solution, which are then -1.
+ *
+ * @author Joo Victor
+ */
+public class SuiteResult {
+
+	private EpdPosition position;
+	private String move;
+	private boolean solved;
+	private int score;
+	private int depth;
+	private long nodes;
+	private long timeMillis;
+	private long solutionNodes;
+	private long solutionTimeMillis;
+
+	public SuiteResult(EpdPosition position, String move, boolean solved, int score, int depth, long nodes,
+			long timeMillis, long solutionNodes, long solutionTimeMillis) {
+		this.position = position;
+		this.move = move;
+		this.solved = solved;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.timeMillis = timeMillis;
+		this.solutionNodes = solutionNodes;
+		this.solutionTimeMillis = solutionTimeMillis;
+	}
+
+	public EpdPosition getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the move chosen by the engine in SAN, or "-" if the position had no
+	 *         legal move
+	 */
+	public String getMove() {
+		return move;
+	}
+
+	public boolean isSolved() {
+		return solved;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	/**
+	 * @return the nodes searched until the solution was found for good, or -1
+	 */
+	public long getSolutionNodes() {
+		return solutionNodes;
+	}
+
+	/**
+	 * @return the time until the solution was found for good, or -1
+	 */
+	public long getSolutionTimeMillis() {
+		return solutionTimeMillis;
+	}
+
+	/**
+	 * @return the result as a line of the results file, with the fields
+	 *         separated by tabs, in the order of the {@link SuiteRunner#HEADER}
+	 */
+	@Override
+	public String toString() {
+		return position.getId() + "\t" + (solved ? 1 : 0) + "\t" + move + "\t" + score + "\t" + depth + "\t" + nodes
+				+ "\t" + timeMillis + "\t" + solutionNodes + "\t" + solutionTimeMillis;
+	}
+}
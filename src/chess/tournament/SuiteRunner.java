@@ -0,0 +1,183 @@
+package chess.tournament;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Future;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.engine.Engine;
+import chess.engine.EnginePool;
+import chess.engine.Move;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.pgn.San;
+
+/**
+ * This class runs an EPD test suite, to measure the search of the engine: each
+ * position is searched with a fixed budget of nodes or of time, and the
+ * result tells whether the move chosen solves the position, and how long the
+ * search took to find it. The time and the nodes to solution are taken from
+ * the iterations of the iterative deepening, as the first iteration from which
+ * the best move is a solution until the end of the search, so a solution that
+ * is found and then lost is only counted from when it is found again.
+ * <p>
+ * The positions can be searched in parallel, one position per thread at a
+ * time, each thread with its own engine, but the threads compete for the
+ * processor, so the times are best measured with a single thread. The
+ * transposition table is cleared before each position, so with a budget of
+ * nodes the results don't depend on the order or the number of threads, and
+ * the results file of two runs can be compared line by line.
+ *
+ * @author Joo Victor
+ */
+public class SuiteRunner {
+
+	/**
+	 * the first line of the results file, with the names of the fields
+	 */
+	public static final String HEADER = "id\tsolved\tmove\tscore\tdepth\tnodes\ttime_ms\tsolution_nodes"
+			+ "\tsolution_time_ms";
+
+	private int threads = 1;
+	private int hashMegabytes = 16;
+	private SearchLimits limits = SearchLimits.nodes(1_000_000);
+	private PrintStream log;
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	public void setHashMegabytes(int hashMegabytes) {
+		this.hashMegabytes = hashMegabytes;
+	}
+
+	public SearchLimits getLimits() {
+		return limits;
+	}
+
+	/**
+	 * @param limits the limits of the search of each position, one million nodes
+	 *               by default; a number of nodes, as given by
+	 *               {@link chess.engine.SearchLimits#nodes(long)}, gives the same
+	 *               results on any computer
+	 */
+	public void setLimits(SearchLimits limits) {
+		this.limits = limits;
+	}
+
+	public void setLog(PrintStream log) {
+		this.log = log;
+	}
+
+	/**
+	 * searches the positions of a suite.
+	 *
+	 * @param positions positions of the suite
+	 * @return the results, in the order of the positions
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	public List<SuiteResult> run(List<EpdPosition> positions) throws InterruptedException {
+		List<SuiteResult> results = new ArrayList<>();
+		try (EnginePool pool = new EnginePool(threads, hashMegabytes)) {
+			List<Future<SuiteResult>> futures = new ArrayList<>();
+			for (EpdPosition position : positions) {
+				futures.add(pool.submit(engine -> run(position, engine)));
+			}
+			int solved = 0;
+			for (Future<SuiteResult> future : futures) {
+				SuiteResult result = EnginePool.result(future);
+				results.add(result);
+				solved += result.isSolved() ? 1 : 0;
+				if (log != null) {
+					log.println(String.format(Locale.ROOT, "%s: %s %s, %d/%d solved", result.getPosition().getId(),
+							result.getMove(), result.isSolved() ? "solved in " + result.getSolutionTimeMillis() + " ms"
+									: "not solved",
+							solved, results.size()));
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * searches a position with the engine passed as a parameter, following its
+	 * iterations to find when the solution was found.
+	 *
+	 * @param position position of a suite
+	 * @param engine   engine used for the search
+	 * @return the result of the position
+	 */
+	public SuiteResult run(EpdPosition position, Engine engine) {
+		ChessMatch chessMatch = Fen.read(position.getFen());
+		// the nodes and the time of the first iteration of the current solution
+		long[] solution = { -1, -1 };
+		engine.getTable().clear();
+		engine.setListener(iteration -> {
+			if (!solves(position, iteration.getBestMove())) {
+				solution[0] = -1;
+				solution[1] = -1;
+			} else if (solution[0] < 0) {
+				solution[0] = iteration.getNodes();
+				solution[1] = iteration.getTimeMillis();
+			}
+		});
+		SearchResult result;
+		try {
+			result = engine.search(chessMatch, limits);
+		} finally {
+			engine.setListener(null);
+		}
+
+		int move = result.getBestMove();
+		boolean solved = move != Move.NONE && solves(position, move);
+		if (solved && solution[0] < 0) {
+			// no iteration was completed, and the move is the first legal one
+			solution[0] = result.getNodes();
+			solution[1] = result.getTimeMillis();
+		} else if (!solved) {
+			solution[0] = -1;
+			solution[1] = -1;
+		}
+		String san = move == Move.NONE ? "-" : San.format(chessMatch, Move.legalMove(chessMatch, move), (char) 0);
+		return new SuiteResult(position, san, solved, result.getScore(), result.getDepth(), result.getNodes(),
+				result.getTimeMillis(), solution[0], solution[1]);
+	}
+
+	/**
+	 * writes the results of a suite to a file, one line per position after the
+	 * {@link #HEADER}, with the fields separated by tabs.
+	 *
+	 * @param results results of a suite
+	 * @param file    the results file
+	 * @throws IOException if the file can't be written
+	 */
+	public static void write(List<SuiteResult> results, Path file) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+			writer.write(HEADER);
+			writer.write('\n');
+			for (SuiteResult result : results) {
+				writer.write(result.toString());
+				writer.write('\n');
+			}
+		}
+	}
+
+	private static boolean solves(EpdPosition position, int move) {
+		return position.isSolution(Move.source(move), Move.target(move));
+	}
+}
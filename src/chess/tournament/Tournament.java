@@ -0,0 +1,334 @@
+package chess.tournament;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import chess.ChessClock;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.GameResult;
+import chess.engine.Engine;
+import chess.engine.Move;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+
+/**
+ * This class plays a tournament between two engines, the candidate and the
+ * baseline, to measure whether a change makes the engine stronger. The games
+ * are played at the same time by a pool of worker threads, one per processor
+ * by default, so the tournament keeps all the cores busy. Each worker has its
+ * own pair of engines, created by the factories passed to the tournament, and
+ * plays one game at a time, each game on its own {@link chess.ChessMatch}, with
+ * a chess clock for each engine. The games start from the opening positions,
+ * usually read from an EPD file, and each opening is played twice, with the
+ * colors swapped, so that an unbalanced opening doesn't favor any engine. A
+ * game that lasts too long is adjudicated as a draw.
+ * <p>
+ * After each game, the result is added to the
+ * {@link chess.tournament.TournamentStatistics}, and if the sequential
+ * probability ratio test is enabled, the tournament stops as soon as the test
+ * accepts one of its hypotheses, without playing the remaining games.
+ *
+ * @author Joo Victor
+ */
+public class Tournament {
+
+	private Supplier<Engine> candidate;
+	private Supplier<Engine> baseline;
+	private List<String> openings = new ArrayList<>(List.of(Fen.INITIAL_POSITION));
+	private int games = 1000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long baseMillis = 10_000;
+	private long incrementMillis = 100;
+	private long nodesPerMove;
+	private int maxPlies = 400;
+
+	private boolean sprt = true;
+	private double elo0 = 0;
+	private double elo1 = 5;
+	private double alpha = 0.05;
+	private double beta = 0.05;
+
+	private PrintStream log;
+
+	private TournamentStatistics statistics = new TournamentStatistics();
+	/**
+	 * the decision of the SPRT, which is only replaced while it is CONTINUE, so
+	 * the first decision taken by a worker is never overwritten by a test of
+	 * another worker that read CONTINUE before it
+	 */
+	private AtomicReference<SprtDecision> decision = new AtomicReference<>(SprtDecision.CONTINUE);
+	private AtomicInteger timeForfeits = new AtomicInteger();
+	private long elapsedNanos;
+
+	/**
+	 * creates a tournament between two engines. The factories are called once by
+	 * each worker thread, so the engines are never shared between threads.
+	 *
+	 * @param candidate factory of the engine being tested
+	 * @param baseline  factory of the reference engine
+	 */
+	public Tournament(Supplier<Engine> candidate, Supplier<Engine> baseline) {
+		this.candidate = candidate;
+		this.baseline = baseline;
+	}
+
+	/**
+	 * reads the opening positions of an EPD file, through the
+	 * {@link chess.tournament.EpdPosition#readLines(Path)} and
+	 * {@link chess.tournament.EpdPosition#readFen(String)} methods: one position
+	 * per line, whose first four fields are the position in FEN, followed by the
+	 * move counters or the operations of the EPD format, which are ignored. Empty
+	 * lines and lines starting with '#' are skipped, and a line with less than
+	 * four fields is refused with a ChessException.
+	 *
+	 * @param file EPD file
+	 * @return the positions in FEN
+	 * @throws IOException if the file can't be read
+	 */
+	public static List<String> loadOpenings(Path file) throws IOException {
+		List<String> openings = new ArrayList<>();
+		for (String line : EpdPosition.readLines(file)) {
+			openings.add(EpdPosition.readFen(line));
+		}
+		return openings;
+	}
+
+	public List<String> getOpenings() {
+		return openings;
+	}
+
+	/**
+	 * @param openings opening positions in FEN; each one is played twice
+	 */
+	public void setOpenings(List<String> openings) {
+		if (openings.isEmpty()) {
+			throw new IllegalArgumentException("The tournament needs at least one opening");
+		}
+		for (String opening : openings) {
+			Fen.read(opening);
+		}
+		this.openings = new ArrayList<>(openings);
+	}
+
+	public int getGames() {
+		return games;
+	}
+
+	/**
+	 * @param games maximum number of games, which may be cut short by the SPRT
+	 */
+	public void setGames(int games) {
+		this.games = games;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * sets the time control of the games, the same for both engines.
+	 *
+	 * @param baseMillis      base time of each engine in milliseconds
+	 * @param incrementMillis increment per move in milliseconds
+	 */
+	public void setTimeControl(long baseMillis, long incrementMillis) {
+		if (baseMillis <= 0 || incrementMillis < 0) {
+			throw new IllegalArgumentException("Invalid time control: " + baseMillis + "+" + incrementMillis);
+		}
+		this.baseMillis = baseMillis;
+		this.incrementMillis = incrementMillis;
+	}
+
+	public long getNodesPerMove() {
+		return nodesPerMove;
+	}
+
+	/**
+	 * @param nodesPerMove if positive, the engines search this number of nodes per
+	 *                     move instead of using their clocks, which makes the
+	 *                     games independent of the load of the machine
+	 */
+	public void setNodesPerMove(long nodesPerMove) {
+		this.nodesPerMove = nodesPerMove;
+	}
+
+	public void setMaxPlies(int maxPlies) {
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * enables the sequential probability ratio test with the hypotheses and the
+	 * error probabilities passed as parameters.
+	 *
+	 * @param elo0  Elo difference of H0
+	 * @param elo1  Elo difference of H1
+	 * @param alpha probability of accepting H1 when H0 is true
+	 * @param beta  probability of accepting H0 when H1 is true
+	 */
+	public void setSprt(double elo0, double elo1, double alpha, double beta) {
+		if (elo1 <= elo0 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+			throw new IllegalArgumentException("Invalid SPRT parameters");
+		}
+		sprt = true;
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+	/**
+	 * disables the sequential probability ratio test, so all the games are played.
+	 */
+	public void disableSprt() {
+		sprt = false;
+	}
+
+	/**
+	 * @param log where the result of each game is printed, or null
+	 */
+	public void setLog(PrintStream log) {
+		this.log = log;
+	}
+
+	public TournamentStatistics getStatistics() {
+		return statistics;
+	}
+
+	public SprtDecision getDecision() {
+		return decision.get();
+	}
+
+	/**
+	 * @return the log-likelihood ratio of the SPRT with the current results
+	 */
+	public double getLogLikelihoodRatio() {
+		return statistics.getLogLikelihoodRatio(elo0, elo1);
+	}
+
+	public int getTimeForfeits() {
+		return timeForfeits.get();
+	}
+
+	/**
+	 * @return the number of games played per hour of wall time
+	 */
+	public double getGamesPerHour() {
+		return elapsedNanos == 0 ? 0 : statistics.getGames() * 3600e9 / elapsedNanos;
+	}
+
+	/**
+	 * plays the tournament, and returns when all the games were played or the
+	 * SPRT made its decision.
+	 *
+	 * @return the statistics of the results
+	 */
+	public TournamentStatistics run() {
+		long start = System.nanoTime();
+		AtomicInteger nextGame = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			executor.execute(() -> playGames(nextGame));
+		}
+		executor.shutdown();
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+				elapsedNanos = System.nanoTime() - start;
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		elapsedNanos = System.nanoTime() - start;
+		return statistics;
+	}
+
+	/**
+	 * the loop of a worker thread, which plays the next game of the tournament
+	 * until there are no more games or the SPRT made its decision.
+	 */
+	private void playGames(AtomicInteger nextGame) {
+		Engine candidateEngine = candidate.get();
+		Engine baselineEngine = baseline.get();
+		int game;
+		while (decision.get() == SprtDecision.CONTINUE && (game = nextGame.getAndIncrement()) < games) {
+			String opening = openings.get(game / 2 % openings.size());
+			Color candidateColor = Fen.read(opening).getCurrentPlayer();
+			if (game % 2 == 1) {
+				candidateColor = candidateColor == Color.WHITE ? Color.BLACK : Color.WHITE;
+			}
+			candidateEngine.getTable().clear();
+			baselineEngine.getTable().clear();
+			double points = playGame(opening, candidateEngine, baselineEngine, candidateColor);
+			statistics.addResult(points);
+			if (sprt && decision.get() == SprtDecision.CONTINUE) {
+				SprtDecision test = statistics.testSprt(elo0, elo1, alpha, beta);
+				if (test != SprtDecision.CONTINUE) {
+					decision.compareAndSet(SprtDecision.CONTINUE, test);
+				}
+			}
+			if (log != null) {
+				log.println("Game " + (game + 1) + ": " + points + " - " + statistics);
+			}
+		}
+	}
+
+	/**
+	 * plays a game from an opening position.
+	 *
+	 * @return the points of the candidate engine
+	 */
+	private double playGame(String opening, Engine candidateEngine, Engine baselineEngine, Color candidateColor) {
+		ChessMatch chessMatch = Fen.read(opening);
+		ChessClock clock = new ChessClock(baseMillis, incrementMillis);
+		clock.start(chessMatch.getCurrentPlayer());
+		int plies = 0;
+		while (!chessMatch.getResult().isOver() && plies < maxPlies) {
+			Color player = chessMatch.getCurrentPlayer();
+			Engine engine = player == candidateColor ? candidateEngine : baselineEngine;
+			SearchLimits limits;
+			if (nodesPerMove > 0) {
+				limits = SearchLimits.nodes(nodesPerMove);
+			} else {
+				limits = SearchLimits.clock(clock);
+			}
+			SearchResult result = engine.search(chessMatch, limits);
+			if (nodesPerMove <= 0 && clock.isFlagged(player)) {
+				timeForfeits.incrementAndGet();
+				chessMatch.loseOnTime();
+				break;
+			}
+			if (!Move.perform(chessMatch, result.getBestMove())) {
+				break;
+			}
+			plies++;
+			if (!chessMatch.getResult().isOver()) {
+				clock.press();
+			}
+		}
+
+		GameResult result = chessMatch.getResult();
+		Color current = chessMatch.getCurrentPlayer();
+		if (result == GameResult.CHECKMATE) {
+			return current == candidateColor ? 1 : 0;
+		}
+		if (result == GameResult.TIME_FORFEIT) {
+			return current == candidateColor ? 0 : 1;
+		}
+		return 0.5;
+	}
+}
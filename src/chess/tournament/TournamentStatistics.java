@@ -0,0 +1,185 @@
+package chess.tournament;
+
+import java.util.Locale;
+
+/**
+ * This class accumulates the results of the games of a tournament between two
+ * engines, from the point of view of the first engine (the candidate, usually
+ * the engine with the change being tested), and turns them into statistics.
+ * The score is the average points per game (1 for a win, 0.5 for a draw and 0
+ * for a loss), and the Elo difference is the one that, by the logistic model
+ * of the Elo ratings, gives that expected score. The error margin comes from
+ * the variance of the points of the games, with the 95% confidence of the
+ * normal distribution.
+ * <p>
+ * The sequential probability ratio test (SPRT) decides, after each game,
+ * between two hypotheses: H0, that the Elo difference is elo0, and H1, that it
+ * is elo1. It accumulates the log-likelihood ratio (LLR) of the results under
+ * the two hypotheses, and stops as soon as it crosses one of the bounds given
+ * by the error probabilities alpha (accepting H1 when H0 is true) and beta
+ * (accepting H0 when H1 is true). The LLR is computed with the usual normal
+ * approximation of the results of the games, which is accurate after a few
+ * dozen games. The methods are synchronized, because the results are added by
+ * the threads that play the games.
+ *
+ * @author Joo Victor
+ */
+public class TournamentStatistics {
+
+	private static final double Z_95 = 1.959964;
+
+	private long wins;
+	private long draws;
+	private long losses;
+
+	/**
+	 * adds the result of a game.
+	 *
+	 * @param points points of the candidate engine: 1, 0.5 or 0
+	 */
+	public synchronized void addResult(double points) {
+		if (points > 0.75) {
+			wins++;
+		} else if (points > 0.25) {
+			draws++;
+		} else {
+			losses++;
+		}
+	}
+
+	public synchronized long getWins() {
+		return wins;
+	}
+
+	public synchronized long getDraws() {
+		return draws;
+	}
+
+	public synchronized long getLosses() {
+		return losses;
+	}
+
+	public synchronized long getGames() {
+		return wins + draws + losses;
+	}
+
+	/**
+	 * @return the average points per game of the candidate engine
+	 */
+	public synchronized double getScore() {
+		long games = wins + draws + losses;
+		return games == 0 ? 0.5 : (wins + draws * 0.5) / games;
+	}
+
+	/**
+	 * @return the Elo difference between the candidate and the baseline engine
+	 */
+	public synchronized double getEloDifference() {
+		return elo(getScore());
+	}
+
+	/**
+	 * @return the half width of the 95% confidence interval of the Elo difference,
+	 *         or infinity if there are not enough games
+	 */
+	public synchronized double getEloErrorMargin() {
+		long games = wins + draws + losses;
+		if (games < 2) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double margin = Z_95 * Math.sqrt(variance() / games);
+		double score = getScore();
+		return (elo(Math.min(score + margin, 1)) - elo(Math.max(score - margin, 0))) / 2;
+	}
+
+	/**
+	 * computes the log-likelihood ratio of the results of the games between the
+	 * hypotheses H1 (the Elo difference is elo1) and H0 (it is elo0).
+	 *
+	 * @param elo0 Elo difference of H0
+	 * @param elo1 Elo difference of H1
+	 * @return the log-likelihood ratio, or 0 if there are not enough games
+	 */
+	public synchronized double getLogLikelihoodRatio(double elo0, double elo1) {
+		long games = wins + draws + losses;
+		double variance = variance();
+		if (games < 2 || variance == 0) {
+			return 0;
+		}
+		double score0 = expectedScore(elo0);
+		double score1 = expectedScore(elo1);
+		return games * (score1 - score0) * (2 * getScore() - score0 - score1) / (2 * variance);
+	}
+
+	/**
+	 * applies the sequential probability ratio test to the results of the games.
+	 *
+	 * @param elo0  Elo difference of H0
+	 * @param elo1  Elo difference of H1
+	 * @param alpha probability of accepting H1 when H0 is true
+	 * @param beta  probability of accepting H0 when H1 is true
+	 * @return the decision of the test
+	 */
+	public synchronized SprtDecision testSprt(double elo0, double elo1, double alpha, double beta) {
+		double llr = getLogLikelihoodRatio(elo0, elo1);
+		if (llr >= upperBound(alpha, beta)) {
+			return SprtDecision.ACCEPT_H1;
+		}
+		if (llr <= lowerBound(alpha, beta)) {
+			return SprtDecision.ACCEPT_H0;
+		}
+		return SprtDecision.CONTINUE;
+	}
+
+	/**
+	 * @return the log-likelihood ratio above which H1 is accepted
+	 */
+	public static double upperBound(double alpha, double beta) {
+		return Math.log((1 - beta) / alpha);
+	}
+
+	/**
+	 * @return the log-likelihood ratio below which H0 is accepted
+	 */
+	public static double lowerBound(double alpha, double beta) {
+		return Math.log(beta / (1 - alpha));
+	}
+
+	/**
+	 * @param elo an Elo difference
+	 * @return the expected score of the stronger engine by the logistic model
+	 */
+	public static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	/**
+	 * @param score an average score
+	 * @return the Elo difference that gives that expected score
+	 */
+	public static double elo(double score) {
+		if (score <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if (score >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	/**
+	 * the variance of the points of a single game.
+	 */
+	private double variance() {
+		long games = wins + draws + losses;
+		double score = (wins + draws * 0.5) / games;
+		return (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score) + losses * score * score)
+				/ games;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(Locale.ROOT, "%d games (+%d =%d -%d), score %.1f%%, Elo %+.1f +/- %.1f", getGames(),
+				wins, draws, losses, getScore() * 100, getEloDifference(), getEloErrorMargin());
+	}
+}
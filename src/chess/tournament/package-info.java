@@ -0,0 +1,11 @@
+/**
+ * This package contains the tournament runner, which plays games between two
+ * engines in parallel, to measure whether a change to the engine makes it
+ * stronger, together with the statistics that turn the results of the games
+ * into an Elo difference and a sequential probability ratio test, and the
+ * runner of EPD test suites, which measures how many positions the search
+ * solves and how fast.
+ * 
+ * @author Joo Victor
+ */
+package chess.tournament;
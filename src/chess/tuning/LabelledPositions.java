@@ -0,0 +1,235 @@
+package chess.tuning;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import chess.ChessException;
+import chess.engine.Evaluator;
+
+/**
+ * This class keeps a large set of chess positions labelled with the result of
+ * the game they were taken from, packed in arrays of primitives, so millions
+ * of positions fit in memory without a chess match or a piece object for each
+ * one. Each piece of a position is a short integer, the index of its square in
+ * the piece-square table of its type among the parameters of the
+ * {@link chess.engine.Evaluator}, with the squares of the black pieces
+ * mirrored as the evaluator does, plus {@link #BLACK} for the black pieces. The
+ * pieces of all the positions are kept one after the other in a single array,
+ * where the position i starts at the offset i and ends at the offset i + 1.
+ *
+ * The positions are read from EPD or FEN lines, where the result is written as
+ * c9 "1-0", as [1.0] or [0.5], or as the last field of the line (1-0, 0-1,
+ * 1/2-1/2, 1.0, 0.5 or 0.0), always from the point of view of the white
+ * player. Only the placement of the pieces is used, since the evaluation
+ * doesn't depend on the player to move.
+ *
+ * @author Joo Victor
+ */
+public final class LabelledPositions {
+
+	/**
+	 * the flag added to the pieces of the black player
+	 */
+	public static final int BLACK = 1 << 9;
+
+	private static final String FEN_SYMBOLS = "KQRBNP";
+
+	private short[] pieces = new short[1024];
+	private int[] offsets = new int[33];
+	private byte[] results = new byte[32];
+	private int size;
+
+	/**
+	 * reads the labelled positions of a file, one per line. The empty lines and
+	 * the lines starting with # are skipped, and a line without a valid position
+	 * or result throws a ChessException with its number.
+	 *
+	 * @param file EPD or FEN file with the results of the positions
+	 * @return the positions of the file
+	 * @throws IOException if the file can't be read
+	 */
+	public static LabelledPositions read(Path file) throws IOException {
+		LabelledPositions positions = new LabelledPositions();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+			String line;
+			int number = 0;
+			while ((line = reader.readLine()) != null) {
+				number++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				try {
+					positions.add(line.substring(0, Math.max(line.indexOf(' '), 0)), result(line));
+				} catch (ChessException e) {
+					throw new ChessException("Line " + number + " of " + file + ": " + e.getMessage());
+				}
+			}
+		}
+		positions.trim();
+		return positions;
+	}
+
+	/**
+	 * adds a position to the set.
+	 *
+	 * @param placement the placement of the pieces, the first field of a FEN
+	 * @param result    the result of the game from the point of view of the white
+	 *                  player: 1 for a win, 0.5 for a draw and 0 for a loss
+	 */
+	public void add(String placement, double result) {
+		if (result != 0.0 && result != 0.5 && result != 1.0) {
+			throw new ChessException("Invalid result: " + result);
+		}
+		int start = offsets[size];
+		if (pieces.length < start + 32) {
+			pieces = Arrays.copyOf(pieces, pieces.length * 2);
+		}
+		int end = start;
+		int row = 0;
+		int column = 0;
+		for (int i = 0; i < placement.length(); i++) {
+			char c = placement.charAt(i);
+			if (c == '/') {
+				if (column != 8 || ++row > 7) {
+					throw new ChessException("Invalid placement: " + placement);
+				}
+				column = 0;
+			} else if (c >= '1' && c <= '8') {
+				column += c - '0';
+			} else {
+				int type = FEN_SYMBOLS.indexOf(Character.toUpperCase(c));
+				if (type < 0 || column > 7 || end - start == 32) {
+					throw new ChessException("Invalid placement: " + placement);
+				}
+				if (Character.isUpperCase(c)) {
+					pieces[end++] = (short) (type * 64 + row * 8 + column);
+				} else {
+					pieces[end++] = (short) (BLACK | type * 64 + (7 - row) * 8 + column);
+				}
+				column++;
+			}
+		}
+		if (row != 7 || column != 8) {
+			throw new ChessException("Invalid placement: " + placement);
+		}
+
+		if (results.length == size) {
+			results = Arrays.copyOf(results, size * 2);
+			offsets = Arrays.copyOf(offsets, size * 2 + 1);
+		}
+		results[size] = (byte) (result * 2);
+		offsets[++size] = end;
+	}
+
+	/**
+	 * @return the number of positions of the set
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param position index of a position
+	 * @return the result of the game of the position from the point of view of
+	 *         the white player: 1 for a win, 0.5 for a draw and 0 for a loss
+	 */
+	public double getResult(int position) {
+		return results[position] * 0.5;
+	}
+
+	/**
+	 * @param position index of a position
+	 * @return the index of the first piece of the position in the array returned
+	 *         by the {@link #getPieces()} method
+	 */
+	public int start(int position) {
+		return offsets[position];
+	}
+
+	/**
+	 * @param position index of a position
+	 * @return the index after the last piece of the position in the array
+	 *         returned by the {@link #getPieces()} method
+	 */
+	public int end(int position) {
+		return offsets[position + 1];
+	}
+
+	/**
+	 * returns the pieces of all the positions. The array isn't copied, for the
+	 * tuner reads it millions of times, so it must not be changed.
+	 *
+	 * @return the pieces of the positions, each one the index of its parameter in
+	 *         the piece-square tables, plus {@link #BLACK} for the black pieces
+	 */
+	public short[] getPieces() {
+		return pieces;
+	}
+
+	/**
+	 * evaluates a position with the parameters of an evaluator, exactly as the
+	 * {@link chess.engine.Evaluator#evaluate(chess.ChessMatch)} method does, but
+	 * always from the point of view of the white player.
+	 *
+	 * @param position   index of a position
+	 * @param parameters the parameters of an evaluator
+	 * @return the score of the position in centipawns
+	 */
+	public double evaluate(int position, double[] parameters) {
+		double score = 0.0;
+		for (int i = offsets[position]; i < offsets[position + 1]; i++) {
+			int piece = pieces[i];
+			int index = piece & (BLACK - 1);
+			double value = parameters[Evaluator.MATERIAL + index / 64] + parameters[index];
+			score += (piece & BLACK) == 0 ? value : -value;
+		}
+		return score;
+	}
+
+	/**
+	 * releases the unused space of the arrays after the positions are read.
+	 */
+	private void trim() {
+		pieces = Arrays.copyOf(pieces, offsets[size]);
+		offsets = Arrays.copyOf(offsets, size + 1);
+		results = Arrays.copyOf(results, size);
+	}
+
+	/**
+	 * finds the result of a line of the file, in any of the formats accepted.
+	 */
+	private static double result(String line) {
+		int c9 = line.indexOf("c9 ");
+		int bracket = line.indexOf('[');
+		String text;
+		if (c9 >= 0) {
+			int semicolon = line.indexOf(';', c9);
+			text = line.substring(c9 + 3, semicolon < 0 ? line.length() : semicolon);
+		} else if (bracket >= 0) {
+			text = line.substring(bracket + 1, Math.max(line.indexOf(']', bracket), bracket + 1));
+		} else {
+			text = line.substring(line.lastIndexOf(' ') + 1);
+		}
+		text = text.replace("\"", "").replace(";", "").trim();
+		switch (text) {
+		case "1-0":
+		case "1.0":
+		case "1":
+			return 1.0;
+		case "0-1":
+		case "0.0":
+		case "0":
+			return 0.0;
+		case "1/2-1/2":
+		case "0.5":
+			return 0.5;
+		default:
+			throw new ChessException("Invalid result: " + text);
+		}
+	}
+}
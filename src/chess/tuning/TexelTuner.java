@@ -0,0 +1,355 @@
+package chess.tuning;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.PieceType;
+import chess.engine.Evaluator;
+
+/**
+ * This class tunes the parameters of the {@link chess.engine.Evaluator} with
+ * the method of Texel: the evaluation of each labelled position is turned into
+ * an expected result by the sigmoid 1 / (1 + 10^(-K * score / 400)), and the
+ * parameters are changed to minimise the mean squared error between the
+ * expected results and the results of the games the positions were taken from.
+ * The scaling constant K is fitted first, with the initial parameters, so the
+ * error is measured on the scale of the evaluator being tuned.
+ *
+ * The evaluation is a sum of weights, so the gradient of the error is computed
+ * exactly in the same pass that computes the error, and the parameters are
+ * optimised by gradient descent with the Adam method, which gives each
+ * parameter its own step size. The passes are split among threads, each one
+ * adding the error and the gradient of a slice of the positions. The
+ * positions are evaluated statically, without a quiescence search, so they
+ * should be quiet, as in the usual data sets for this kind of tuning.
+ *
+ * @author Joo Victor
+ */
+public class TexelTuner {
+
+	private static final double BETA1 = 0.9;
+	private static final double BETA2 = 0.999;
+	private static final double EPSILON = 1e-8;
+
+	/**
+	 * the number of slices of the positions of each pass per thread, so a slow
+	 * thread doesn't hold the others back at the end of the pass
+	 */
+	private static final int SLICES_PER_THREAD = 4;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int iterations = 500;
+	private double learningRate = 1.0;
+	private double scalingConstant;
+	private PrintStream log;
+
+	private long passes;
+	private long passNanos;
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads);
+		}
+		this.threads = threads;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @param iterations the number of steps of gradient descent, each one a full
+	 *                   pass over the positions
+	 */
+	public void setIterations(int iterations) {
+		if (iterations < 1) {
+			throw new IllegalArgumentException("Invalid number of iterations: " + iterations);
+		}
+		this.iterations = iterations;
+	}
+
+	public double getLearningRate() {
+		return learningRate;
+	}
+
+	/**
+	 * @param learningRate the largest change of a parameter in one step, in
+	 *                     centipawns
+	 */
+	public void setLearningRate(double learningRate) {
+		if (!(learningRate > 0)) {
+			throw new IllegalArgumentException("Invalid learning rate: " + learningRate);
+		}
+		this.learningRate = learningRate;
+	}
+
+	/**
+	 * @return the scaling constant K of the sigmoid, found by the last call to
+	 *         the {@link #tune(LabelledPositions, int[])} or the
+	 *         {@link #fitScalingConstant(LabelledPositions, int[])} methods
+	 */
+	public double getScalingConstant() {
+		return scalingConstant;
+	}
+
+	public void setScalingConstant(double scalingConstant) {
+		this.scalingConstant = scalingConstant;
+	}
+
+	public void setLog(PrintStream log) {
+		this.log = log;
+	}
+
+	/**
+	 * @return the mean time of a full pass over the positions, in milliseconds
+	 */
+	public double getMillisPerPass() {
+		return passes == 0 ? 0 : passNanos / 1e6 / passes;
+	}
+
+	/**
+	 * tunes the parameters of the evaluator on a set of labelled positions,
+	 * fitting the scaling constant first.
+	 *
+	 * @param positions  labelled positions
+	 * @param parameters the initial parameters, as in
+	 *                   {@link chess.engine.Evaluator#getParameters()}
+	 * @return the tuned parameters
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	public int[] tune(LabelledPositions positions, int[] parameters) throws InterruptedException {
+		checkPositions(positions);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			double[] weights = toDoubles(parameters);
+			fitScalingConstant(positions, weights, executor);
+			double[] gradient = new double[Evaluator.PARAMETERS];
+			double[] moment = new double[Evaluator.PARAMETERS];
+			double[] velocity = new double[Evaluator.PARAMETERS];
+			for (int iteration = 1; iteration <= iterations; iteration++) {
+				double error = pass(positions, weights, gradient, executor);
+				if (log != null && (iteration == 1 || iteration % 10 == 0)) {
+					log.println(String.format(Locale.ROOT, "Iteration %d: error %.6f, %.0f ms per pass", iteration,
+							error, getMillisPerPass()));
+				}
+				double correction1 = 1 - Math.pow(BETA1, iteration);
+				double correction2 = 1 - Math.pow(BETA2, iteration);
+				for (int i = 0; i < Evaluator.PARAMETERS; i++) {
+					moment[i] = BETA1 * moment[i] + (1 - BETA1) * gradient[i];
+					velocity[i] = BETA2 * velocity[i] + (1 - BETA2) * gradient[i] * gradient[i];
+					weights[i] -= learningRate * (moment[i] / correction1)
+							/ (Math.sqrt(velocity[i] / correction2) + EPSILON);
+				}
+			}
+			int[] tuned = new int[Evaluator.PARAMETERS];
+			for (int i = 0; i < tuned.length; i++) {
+				tuned[i] = (int) Math.round(weights[i]);
+			}
+			return tuned;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * finds the scaling constant K that gives the smallest error for the
+	 * parameters passed, by a golden section search between 0 and 5.
+	 *
+	 * @param positions  labelled positions
+	 * @param parameters parameters of the evaluator
+	 * @return the scaling constant, which is also kept by the tuner
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	public double fitScalingConstant(LabelledPositions positions, int[] parameters) throws InterruptedException {
+		checkPositions(positions);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			return fitScalingConstant(positions, toDoubles(parameters), executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * computes the mean squared error of the parameters passed, with the
+	 * current scaling constant.
+	 *
+	 * @param positions  labelled positions
+	 * @param parameters parameters of the evaluator
+	 * @return the mean squared error
+	 * @throws InterruptedException if the thread is interrupted
+	 */
+	public double error(LabelledPositions positions, int[] parameters) throws InterruptedException {
+		checkPositions(positions);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			return pass(positions, toDoubles(parameters), null, executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * writes the parameters as the material values and the piece-square tables of
+	 * the evaluator, in the layout of its source code, with the eighth rank in
+	 * the first row.
+	 *
+	 * @param parameters parameters of the evaluator
+	 * @return the text of the parameters
+	 */
+	public static String format(int[] parameters) {
+		StringBuilder sb = new StringBuilder();
+		for (PieceType type : PieceType.values()) {
+			sb.append(type).append(" value: ").append(parameters[Evaluator.MATERIAL + type.ordinal()]).append('\n');
+		}
+		for (PieceType type : PieceType.values()) {
+			sb.append('\n').append(type).append("_TABLE\n");
+			for (int row = 0; row < 8; row++) {
+				for (int column = 0; column < 8; column++) {
+					sb.append(String.format(Locale.ROOT, "%5d,", parameters[type.ordinal() * 64 + row * 8 + column]));
+				}
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	private double fitScalingConstant(LabelledPositions positions, double[] weights, ExecutorService executor)
+			throws InterruptedException {
+		double ratio = (Math.sqrt(5) - 1) / 2;
+		double low = 0.0;
+		double high = 5.0;
+		double left = high - ratio * (high - low);
+		double right = low + ratio * (high - low);
+		double leftError = errorWith(positions, weights, left, executor);
+		double rightError = errorWith(positions, weights, right, executor);
+		while (high - low > 1e-4) {
+			if (leftError < rightError) {
+				high = right;
+				right = left;
+				rightError = leftError;
+				left = high - ratio * (high - low);
+				leftError = errorWith(positions, weights, left, executor);
+			} else {
+				low = left;
+				left = right;
+				leftError = rightError;
+				right = low + ratio * (high - low);
+				rightError = errorWith(positions, weights, right, executor);
+			}
+		}
+		scalingConstant = (low + high) / 2;
+		if (log != null) {
+			log.println(String.format(Locale.ROOT, "Scaling constant K = %.4f", scalingConstant));
+		}
+		return scalingConstant;
+	}
+
+	private double errorWith(LabelledPositions positions, double[] weights, double k, ExecutorService executor)
+			throws InterruptedException {
+		scalingConstant = k;
+		return pass(positions, weights, null, executor);
+	}
+
+	/**
+	 * computes the mean squared error of the weights over all the positions and,
+	 * if the gradient array isn't null, its gradient with respect to each
+	 * weight, splitting the positions into slices computed in parallel.
+	 */
+	private double pass(LabelledPositions positions, double[] weights, double[] gradient, ExecutorService executor)
+			throws InterruptedException {
+		long start = System.nanoTime();
+		int slices = threads * SLICES_PER_THREAD;
+		List<Callable<double[]>> tasks = new ArrayList<>(slices);
+		for (int slice = 0; slice < slices; slice++) {
+			int first = (int) ((long) positions.size() * slice / slices);
+			int last = (int) ((long) positions.size() * (slice + 1) / slices);
+			tasks.add(() -> slice(positions, weights, first, last, gradient != null));
+		}
+		double error = 0.0;
+		if (gradient != null) {
+			Arrays.fill(gradient, 0.0);
+		}
+		try {
+			for (Future<double[]> future : executor.invokeAll(tasks)) {
+				double[] result = future.get();
+				error += result[Evaluator.PARAMETERS];
+				if (gradient != null) {
+					for (int i = 0; i < Evaluator.PARAMETERS; i++) {
+						gradient[i] += result[i];
+					}
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("The error pass failed", e.getCause());
+		}
+		if (gradient != null) {
+			// the derivative of the squared error and of the sigmoid, which was left
+			// out of the slices
+			double factor = -2.0 * scalingConstant * Math.log(10) / 400 / positions.size();
+			for (int i = 0; i < Evaluator.PARAMETERS; i++) {
+				gradient[i] *= factor;
+			}
+		}
+		passes++;
+		passNanos += System.nanoTime() - start;
+		return error / positions.size();
+	}
+
+	/**
+	 * computes the squared error of a slice of the positions, in the last
+	 * element of the array returned, and the sums of the gradient of each weight
+	 * in the other elements.
+	 */
+	private double[] slice(LabelledPositions positions, double[] weights, int first, int last, boolean withGradient) {
+		double[] result = new double[Evaluator.PARAMETERS + 1];
+		short[] pieces = positions.getPieces();
+		double k = scalingConstant;
+		for (int position = first; position < last; position++) {
+			double sigmoid = 1 / (1 + Math.pow(10, -k * positions.evaluate(position, weights) / 400));
+			double difference = positions.getResult(position) - sigmoid;
+			result[Evaluator.PARAMETERS] += difference * difference;
+			if (withGradient) {
+				double term = difference * sigmoid * (1 - sigmoid);
+				for (int i = positions.start(position); i < positions.end(position); i++) {
+					int piece = pieces[i];
+					int index = piece & (LabelledPositions.BLACK - 1);
+					double sign = (piece & LabelledPositions.BLACK) == 0 ? term : -term;
+					result[index] += sign;
+					result[Evaluator.MATERIAL + index / 64] += sign;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static double[] toDoubles(int[] parameters) {
+		if (parameters.length != Evaluator.PARAMETERS) {
+			throw new IllegalArgumentException(
+					"The evaluator needs " + Evaluator.PARAMETERS + " parameters, not " + parameters.length);
+		}
+		double[] weights = new double[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			weights[i] = parameters[i];
+		}
+		return weights;
+	}
+
+	private static void checkPositions(LabelledPositions positions) {
+		if (positions.size() == 0) {
+			throw new IllegalArgumentException("There are no positions to tune");
+		}
+	}
+}
@@ -0,0 +1,10 @@
+/**
+ * This package learns the weights of the evaluation of the engine from data:
+ * it keeps millions of positions labelled with the results of their games
+ * packed in arrays of primitives, and tunes the material values and the
+ * piece-square tables of the evaluator to predict those results with the
+ * smallest error.
+ *
+ * @author Joo Victor
+ */
+package chess.tuning;